@@ -26,54 +26,110 @@ class AStar{
      *         a new line
      */
     static String algorithm(Grid grid ,Position startPosition, Position endPosition){
-        final int maxGscore = 2000000000; //Arbitrarily large number used as default for comparison
-        Set<Position> closedSet = new HashSet<>();
-        Set<Position> openSet = new HashSet<>();
-        openSet.add(startPosition);
-        HashMap<Position, Integer> gScore = new HashMap<>();
-        gScore.put(startPosition, 0);
-        HashMap<Position, Double> fScore = new HashMap<>();
-        fScore.put(startPosition, hEstimate(startPosition, endPosition));
-        HashMap<Position, Position> cameFrom = new HashMap<>();
-        ArrayList<Position> validNeighbors;
-        String path = "";
-        boolean empty = false;
+        GridPath path = findPath(grid, startPosition, endPosition);
+        if(path == null){
+            return "";
+        }
+        return PathFormatter.format(path);
+    }
+
+    /**
+     * This method returns the same path as algorithm(), but runs the search on the calling thread's
+     * pooled search engine for the grid instead of a new one. It is meant for callers that run many
+     * queries against the same grid, since the engine's arrays are reused from one query to the next.
+     *
+     * @param grid Grid that was created from the user's json file
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return string of path from ending position to starting, in the same format as algorithm()
+     */
+    static String pooledAlgorithm(Grid grid, Position startPosition, Position endPosition){
+        GridPath path = pooledFindPath(grid, startPosition, endPosition);
+        if(path == null){
+            return "";
+        }
+        return PathFormatter.format(path);
+    }
+
+    /**
+     * This method finds the shortest path between two positions and returns it as a GridPath, which
+     * holds the coordinates from start to end without any text formatting. The search itself runs on
+     * int-encoded cells in flat arrays, see SearchEngine, or for paged grids on the cells it reaches
+     * only, see PagedSearch.
+     *
+     * @param grid Grid that was created from the user's json file
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return path from starting position to ending, or null if there is no path
+     */
+    static GridPath findPath(Grid grid, Position startPosition, Position endPosition){
+        return SearchMetrics.findPath(SearchMode.ASTAR.create(grid), SearchMode.ASTAR, startPosition, endPosition);
+    }
+
+    /**
+     * This method is findPath() running on the calling thread's pooled search engine for the grid.
+     *
+     * @param grid Grid that was created from the user's json file
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return path from starting position to ending, or null if there is no path
+     */
+    static GridPath pooledFindPath(Grid grid, Position startPosition, Position endPosition){
+        return SearchMetrics.findPath(grid.pathFinder(SearchMode.ASTAR), SearchMode.ASTAR, startPosition, endPosition);
+    }
+
+    /**
+     * This method finds the shortest path between two positions with the chosen kind of search.
+     * Every mode but HIERARCHICAL returns a path of the same length, they differ in how much of the
+     * grid they look at. HIERARCHICAL trades a little length for searching far less of large grids.
+     *
+     * @param grid Grid that was created from the user's json file
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @param mode kind of search to use
+     * @return path from starting position to ending, or null if there is no path
+     */
+    static GridPath findPath(Grid grid, Position startPosition, Position endPosition, SearchMode mode){
+        return SearchMetrics.findPath(mode.create(grid), mode, startPosition, endPosition);
+    }
+
+    /**
+     * This method is findPath() with the chosen kind of search, running on the calling thread's
+     * pooled path finder for the grid.
+     *
+     * @param grid Grid that was created from the user's json file
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @param mode kind of search to use
+     * @return path from starting position to ending, or null if there is no path
+     */
+    static GridPath pooledFindPath(Grid grid, Position startPosition, Position endPosition, SearchMode mode){
+        return SearchMetrics.findPath(grid.pathFinder(mode), mode, startPosition, endPosition);
+    }
 
-        while(!empty){
-            //Current position is set to the position in the open set with the shortest distance to the end position
-            Position currentPosition = lowestFScore(openSet, fScore);
-            //Ends search once the end position is reached
-            if(currentPosition.equals(endPosition)){
-                 path = constructShortestPath(cameFrom, currentPosition);
-                 empty = true;
-            }
-            openSet.remove(currentPosition);
-            closedSet.add(currentPosition);
-            validNeighbors = getValidNeighbors(currentPosition, grid);
-            for(Position neighbor : validNeighbors){
-                if(contains(closedSet, neighbor)){
-                    continue; //Ignore neighbors that have already been evaluated
-                }
-                //Distance between current and neighbor is always 1
-                int neighborGScoreTentative = gScore.get(currentPosition) + 1;
-                //If previous G score for neighbor is null, maxGscore is an arbitrarily large number
-                // that is used for comparison so that the tentative G score is always less
-                int neighborGScorePrevious = gScore.getOrDefault(neighbor, maxGscore);
-                if(!contains(openSet, neighbor)) {
-                    openSet.add(neighbor);
-                }
-                else if(neighborGScoreTentative >= neighborGScorePrevious){
-                    continue; //Not a better path
-                }
-                cameFrom.put(neighbor, currentPosition);
-                gScore.put(neighbor, neighborGScoreTentative);
-                double neighborFScore = gScore.get(neighbor) + hEstimate(neighbor, endPosition);
-                fScore.put(neighbor, neighborFScore);
-            }
+    /**
+     * This method checks whether any path joins two positions without searching for it, by
+     * looking up the connected regions of the grid, see ComponentIndex. The regions are labelled
+     * the first time a grid is asked, which takes 4 bytes per cell, after that the answer takes
+     * constant time and searches on the grid use the labels as well.
+     *
+     * @param grid Grid that was created from the user's json file
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return true if a path exists and false if the ending position is unreachable
+     * @throws IllegalStateException if the grid is paged, since its regions are never labelled
+     */
+    static boolean isReachable(Grid grid, Position startPosition, Position endPosition){
+        if(!isInside(startPosition, grid) || !isInside(endPosition, grid)){
+            return false;
         }
-        //Once end position is reached, the path is constructed as a String and the while loop is exited
-        //to return the path here
-        return path;
+        return grid.components().connected(startPosition.getX(), startPosition.getY(),
+                endPosition.getX(), endPosition.getY());
+    }
+
+    private static boolean isInside(Position position, Grid grid){
+        return position.getX() >= 0 && position.getY() >= 0
+                && position.getX() < grid.getDimension() && position.getY() < grid.getDimension();
     }
 
     /**
@@ -92,62 +148,32 @@ class AStar{
     }
 
     /**
-     * This method iterates through the current open set and returns the position that has the
-     * lowest F score, which will be made the new current position. If the open set only has
-     * one position, then that will be the position returned.
-     *
-     * @param openSet current open set that contains all positions that could be evaluated
-     * @param fScore HashMap that contains all positions that have previously been evaluated and their
-     *               current F score
-     * @return the position in the open set with the lowest F score
-     */
-    private static Position lowestFScore(Set<Position> openSet, HashMap<Position, Double> fScore){
-        double lowestFScore = 2000000000; //Arbitrarily high number that no F score will surpass
-        Iterator<Position> positionIterator = openSet.iterator();
-        //Initializes position to a null Position, but this will be changed
-        Position lowestFScorePosition = null;
-        if(openSet.size() == 1){
-            lowestFScorePosition = positionIterator.next();
-        }
-        else {
-            while(positionIterator.hasNext()){
-                Position tempPosition = positionIterator.next();
-                double tempFScore = fScore.get(tempPosition);
-                if(tempFScore<lowestFScore){
-                    lowestFScore = tempFScore;
-                    lowestFScorePosition = tempPosition;
-                }
-            }
-        }
-        return lowestFScorePosition;
-    }
-
-    /**
-     * This method creates positions of each  neighbor of the current position and determines if each
-     * position is valid by using the isValidPosition() method. If the neighbor is a valid position, it is added
-     * to an ArrayList of valid neighbors that is returned at the end of this method.
+     * This method looks at each neighbor of the current position and determines if each position
+     * is valid by using the isValidPosition() method. If the neighbor is a valid position, the grid's
+     * shared Position object for it is added to an ArrayList of valid neighbors that is returned at
+     * the end of this method.
      *
      * @param currentPosition position algorithm is currently evaluating
      * @param grid Grid object that contains the information of the dimensions and obstacles
      * @return an ArrayList of all the neighbors of the current position that are valid positions
      */
     static ArrayList<Position> getValidNeighbors(Position currentPosition, Grid grid){
-        ArrayList<Position> validNeighbors = new ArrayList<>();
+        ArrayList<Position> validNeighbors = new ArrayList<>(4);
         int currentX = currentPosition.getX();
         int currentY = currentPosition.getY();
-        Position north = new Position(currentX, currentY+1);
-        Position south = new Position(currentX, currentY-1);
-        Position east = new Position(currentX+1, currentY);
-        Position west = new Position(currentX-1, currentY);
-        ArrayList<Position> possibleNeighbors = new ArrayList<>(Arrays.asList(north, south, east, west));
-        for(Position newPosition : possibleNeighbors){
-            if(isValidPosition(newPosition, grid)){
-                validNeighbors.add(newPosition);
-            }
-        }
+        addIfValid(validNeighbors, currentX, currentY+1, grid); //north
+        addIfValid(validNeighbors, currentX, currentY-1, grid); //south
+        addIfValid(validNeighbors, currentX+1, currentY, grid); //east
+        addIfValid(validNeighbors, currentX-1, currentY, grid); //west
         return validNeighbors;
     }
 
+    private static void addIfValid(ArrayList<Position> validNeighbors, int x, int y, Grid grid){
+        if(isValidPosition(x, y, grid)){
+            validNeighbors.add(grid.position(x, y));
+        }
+    }
+
     /**
      * This method checks with the grid to determine whether or not that position is
      * a valid position. It would be invalid it lies outside of the dimensions of the grid
@@ -159,64 +185,26 @@ class AStar{
      * @return true if it is a valid position and false if it is not
      */
     static boolean isValidPosition(Position newPosition, Grid grid){
-        Position[] allObstacles = grid.getObstacles();
+        return isValidPosition(newPosition.getX(), newPosition.getY(), grid);
+    }
+
+    private static boolean isValidPosition(int x, int y, Grid grid){
         int dimensionMax = grid.getDimension();
-        if(newPosition.getX()>dimensionMax-1 || newPosition.getY()>dimensionMax-1
-                || newPosition.getX()<0 || newPosition.getY()<0){
+        if(x>dimensionMax-1 || y>dimensionMax-1 || x<0 || y<0){
             return false;
         }
-        for(Position obstacle : allObstacles){
-            if(newPosition.equals(obstacle)){
-                return false;
-            }
-        }
-        return true;
+        return !grid.isBlocked(x, y);
     }
 
     /**
-     * This method determines whether or not a set contains a specified position. This is used
-     * rather than the default set.contains() because multiple variables within the Position
-     * objects have to be evaluated.
+     * This method determines whether or not a set contains a specified position. Positions compare
+     * by their coordinates, so this is a constant time lookup in a hash set.
      *
      * @param set set of Position objects
      * @param B Position to be evaluated
      * @return true if Position B is in the set and false if it is not
      */
     static boolean contains(Set<Position> set, Position B){
-        boolean setContainsB = false;
-        Iterator<Position> openSetIterator = set.iterator();
-        if(set.size() == 0){
-            setContainsB = false;
-        }
-        else if(openSetIterator.next().equals(B)) {
-            setContainsB = true;
-        }
-        else {
-            while(openSetIterator.hasNext()){
-                if(openSetIterator.next().equals(B)){
-                    setContainsB = true;
-                }
-            }
-        }
-        return setContainsB;
-    }
-
-        /**
-     * This method takes current position (which is the end position) and constructs a path by connecting
-     * each position to where it came from, to where that came from, and so on until the starting
-     * position is reached
-     *
-     * @param cameFrom HashMap that contains each position and the position that they came from
-     * @param currentPosition position algorithm is currently evaluating, which in this case is the
-     *                        end position
-     * @return string of path from ending position to starting
-     */
-    private static String constructShortestPath(HashMap<Position, Position> cameFrom, Position currentPosition){
-        String totalPath = "x="+currentPosition.getX()+", y="+currentPosition.getY();
-        while(cameFrom.containsKey(currentPosition)){
-            currentPosition = cameFrom.get(currentPosition);
-            totalPath += "\nx="+currentPosition.getX()+", y="+currentPosition.getY();
-        }
-        return totalPath;
+        return set.contains(B);
     }
 }
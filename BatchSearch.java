@@ -0,0 +1,131 @@
+package grid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BatchSearch - class that runs many start and end queries against one grid in parallel. The
+ * grid is only read during the batch, so all workers share it, and each worker thread searches
+ * with its own pooled path finder from Grid.pathFinder().
+ *
+ * @author Danielle Plecki
+ */
+class BatchSearch {
+    //Queries handled by one task before it stops splitting, small enough to balance the load
+    //across workers and large enough that the cost of forking stays small next to the searches
+    private static final int QUERIES_PER_TASK = 16;
+    //Batches of at least this many queries label the grid's connected regions first, see
+    //Grid.labelRegionsUpFront(), so that unreachable queries in them are not searched
+    static final int LABEL_REGIONS_QUERIES = 64;
+
+    private BatchSearch(){} //only static methods
+
+    /**
+     * This method runs a batch of queries on the common ForkJoinPool.
+     *
+     * @param grid grid to search, which must not be changed while the batch runs
+     * @param queries start and end pairs to search for
+     * @return shortest path of each query in the same order as the queries, null where a query
+     *         has no path
+     */
+    static GridPath[] run(Grid grid, Query[] queries){
+        return run(grid, queries, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This method runs a batch of queries on the given pool, which decides how many cores are used.
+     *
+     * @param grid grid to search, which must not be changed while the batch runs
+     * @param queries start and end pairs to search for
+     * @param pool pool whose workers run the searches
+     * @return shortest path of each query in the same order as the queries, null where a query
+     *         has no path
+     */
+    static GridPath[] run(Grid grid, Query[] queries, ForkJoinPool pool){
+        return run(grid, queries, pool, SearchMode.ASTAR);
+    }
+
+    /**
+     * This method runs a batch of queries on the given pool with the chosen kind of search.
+     *
+     * @param grid grid to search, which must not be changed while the batch runs
+     * @param queries start and end pairs to search for
+     * @param pool pool whose workers run the searches
+     * @param mode kind of search to use
+     * @return shortest path of each query in the same order as the queries, null where a query
+     *         has no path
+     */
+    static GridPath[] run(Grid grid, Query[] queries, ForkJoinPool pool, SearchMode mode){
+        if(queries.length >= LABEL_REGIONS_QUERIES){
+            grid.labelRegionsUpFront();
+        }
+        GridPath[] results = new GridPath[queries.length];
+        pool.invoke(new SearchTask(grid, mode, null, queries, results, 0, queries.length));
+        return results;
+    }
+
+    /**
+     * This method runs a batch of queries on the given pool through a path cache, so that queries
+     * repeated within the batch or since earlier batches are not searched again.
+     *
+     * @param grid grid to search, which must not be changed while the batch runs
+     * @param queries start and end pairs to search for
+     * @param pool pool whose workers run the searches
+     * @param cache cache to look the queries up in, which also decides the kind of search
+     * @return path of each query in the same order as the queries, null where a query has no path
+     */
+    static GridPath[] run(Grid grid, Query[] queries, ForkJoinPool pool, PathCache cache){
+        if(queries.length >= LABEL_REGIONS_QUERIES){
+            grid.labelRegionsUpFront();
+        }
+        GridPath[] results = new GridPath[queries.length];
+        pool.invoke(new SearchTask(grid, null, cache, queries, results, 0, queries.length));
+        return results;
+    }
+
+    /**
+     * SearchTask - splits its range of queries in half until it is small enough, then searches
+     * each query, through the cache if there is one, and stores the path at the query's index.
+     */
+    private static class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Grid grid;
+        private final SearchMode mode;
+        private final PathCache cache;
+        private final Query[] queries;
+        private final GridPath[] results;
+        private final int from;
+        private final int to;
+
+        SearchTask(Grid grid, SearchMode mode, PathCache cache, Query[] queries, GridPath[] results, int from, int to){
+            this.grid = grid;
+            this.mode = mode;
+            this.cache = cache;
+            this.queries = queries;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from <= QUERIES_PER_TASK && cache != null){
+                for(int i = from; i < to; i++){
+                    results[i] = cache.findPath(grid, queries[i].getStart(), queries[i].getEnd());
+                }
+                return;
+            }
+            if(to - from <= QUERIES_PER_TASK){
+                PathFinder engine = grid.pathFinder(mode);
+                for(int i = from; i < to; i++){
+                    results[i] = SearchMetrics.findPath(engine, mode, queries[i].getStart(), queries[i].getEnd());
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SearchTask(grid, mode, cache, queries, results, from, middle),
+                    new SearchTask(grid, mode, cache, queries, results, middle, to));
+        }
+    }
+}
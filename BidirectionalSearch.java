@@ -0,0 +1,254 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * BidirectionalSearch - A* that searches forward from the start and backward from the end at the
+ * same time, always expanding the side whose open set is smaller. Whenever one side reaches a cell
+ * the other side has already reached, the two half paths form a complete path, and the shortest
+ * one found so far is kept. The search stops once the lowest F score on either side is no better
+ * than that path, since every path not found yet has to go through that side's open set and so
+ * cannot be shorter. This keeps the path optimal.
+ *
+ * Expanding the smaller side first also means that an end walled into a small region is found to
+ * be unreachable as soon as the backward side runs out of cells, without flooding the start's side.
+ *
+ * Both sides use the Manhattan distance to the other side's starting cell as their heuristic.
+ *
+ * @author Danielle Plecki
+ */
+class BidirectionalSearch implements PathFinder {
+    private static final byte FORWARD_OPEN = 1;
+    private static final byte FORWARD_CLOSED = 2;
+    private static final byte BACKWARD_OPEN = 4;
+    private static final byte BACKWARD_CLOSED = 8;
+    private static final byte FORWARD_SEEN = FORWARD_OPEN | FORWARD_CLOSED;
+    private static final byte BACKWARD_SEEN = BACKWARD_OPEN | BACKWARD_CLOSED;
+    private static final int NO_PARENT = -1;
+    private static final int NO_PATH = Integer.MAX_VALUE;
+
+    private Grid grid;
+    private final int dimension;
+    private final int[] gForward;
+    private final int[] gBackward;
+    private final int[] cameFromForward;
+    private final int[] cameFromBackward;
+    private final byte[] state;
+    private final int[] searchStamp;
+    private int currentSearch;
+    private final IndexedMinHeap openForward;
+    private final IndexedMinHeap openBackward;
+    private int expandedNodes;
+    private int bestLength;
+    private int meetingCell;
+
+    BidirectionalSearch(Grid grid){
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+        int cells = dimension*dimension;
+        gForward = new int[cells];
+        gBackward = new int[cells];
+        cameFromForward = new int[cells];
+        cameFromBackward = new int[cells];
+        state = new byte[cells];
+        searchStamp = new int[cells];
+        openForward = new IndexedMinHeap(cells);
+        openBackward = new IndexedMinHeap(cells);
+    }
+
+    @Override
+    public int getDimension(){
+        return dimension;
+    }
+
+    @Override
+    public Grid getGrid(){
+        return grid;
+    }
+
+    @Override
+    public boolean useGrid(Grid grid){
+        if(grid.getDimension() != dimension){
+            return false;
+        }
+        this.grid = grid;
+        return true;
+    }
+
+    @Override
+    public int expandedNodes(){
+        return expandedNodes;
+    }
+
+    @Override
+    public void collectStats(SearchStats stats){
+        stats.countSearch(expandedNodes, openForward, openBackward);
+    }
+
+    @Override
+    public void traceExpanded(SearchTrace trace){
+        trace.countClosed(expandedNodes, searchStamp, currentSearch, state, FORWARD_CLOSED | BACKWARD_CLOSED);
+    }
+
+    @Override
+    public GridPath findPath(Position startPosition, Position endPosition){
+        int startX = startPosition.getX();
+        int startY = startPosition.getY();
+        int endX = endPosition.getX();
+        int endY = endPosition.getY();
+        if(!inBounds(startX, startY) || !inBounds(endX, endY)){
+            return null;
+        }
+        int startCell = startY*dimension + startX;
+        int endCell = endY*dimension + endX;
+        if(startCell == endCell){
+            return new GridPath(new int[]{startX, startY}, 0);
+        }
+        if(!grid.connected(startX, startY, endX, endY)){
+            expandedNodes = 0;
+            return null; //No path joins the two regions, so there is nothing to search
+        }
+        if(!search(startCell, endCell)){
+            return null;
+        }
+        return constructShortestPath();
+    }
+
+    private boolean search(int startCell, int endCell){
+        reset();
+        bestLength = NO_PATH;
+        meetingCell = NO_PARENT;
+        gForward[startCell] = 0;
+        cameFromForward[startCell] = NO_PARENT;
+        gBackward[endCell] = 0;
+        cameFromBackward[endCell] = NO_PARENT;
+        searchStamp[startCell] = currentSearch;
+        searchStamp[endCell] = currentSearch;
+        state[startCell] = FORWARD_OPEN;
+        state[endCell] = BACKWARD_OPEN;
+        openForward.insert(startCell, manhattan(startCell, endCell));
+        openBackward.insert(endCell, manhattan(endCell, startCell));
+
+        while(!openForward.isEmpty() && !openBackward.isEmpty()){
+            if(openForward.priorityOf(openForward.peek()) >= bestLength
+                    || openBackward.priorityOf(openBackward.peek()) >= bestLength){
+                break; //No path through either open set can be shorter than the best one
+            }
+            if(openForward.size() <= openBackward.size()){
+                expand(openForward.poll(), true, endCell);
+            }
+            else {
+                expand(openBackward.poll(), false, startCell);
+            }
+        }
+        return bestLength != NO_PATH;
+    }
+
+    /**
+     * This method closes a cell on one side and relaxes its neighbors on that side.
+     *
+     * @param cell cell taken off that side's open set
+     * @param forward true for the side searching from the start
+     * @param target starting cell of the other side, which the heuristic estimates the distance to
+     */
+    private void expand(int cell, boolean forward, int target){
+        expandedNodes++;
+        state[cell] = (byte) ((state[cell] & ~(forward ? FORWARD_OPEN : BACKWARD_OPEN))
+                | (forward ? FORWARD_CLOSED : BACKWARD_CLOSED));
+        int x = cell % dimension;
+        int y = cell / dimension;
+        int neighborGScore = (forward ? gForward[cell] : gBackward[cell]) + 1;
+        if(y + 1 < dimension){
+            relax(cell, cell + dimension, x, y + 1, neighborGScore, forward, target);
+        }
+        if(y > 0){
+            relax(cell, cell - dimension, x, y - 1, neighborGScore, forward, target);
+        }
+        if(x + 1 < dimension){
+            relax(cell, cell + 1, x + 1, y, neighborGScore, forward, target);
+        }
+        if(x > 0){
+            relax(cell, cell - 1, x - 1, y, neighborGScore, forward, target);
+        }
+    }
+
+    private void relax(int cell, int neighbor, int neighborX, int neighborY, int neighborGScore,
+                       boolean forward, int target){
+        if(searchStamp[neighbor] != currentSearch){
+            if(grid.isBlocked(neighborX, neighborY)){
+                return;
+            }
+            searchStamp[neighbor] = currentSearch;
+            state[neighbor] = 0;
+        }
+        byte neighborState = state[neighbor];
+        int[] gScore = forward ? gForward : gBackward;
+        IndexedMinHeap openSet = forward ? openForward : openBackward;
+        if((neighborState & (forward ? FORWARD_CLOSED : BACKWARD_CLOSED)) != 0){
+            return;
+        }
+        boolean open = (neighborState & (forward ? FORWARD_OPEN : BACKWARD_OPEN)) != 0;
+        if(open && neighborGScore >= gScore[neighbor]){
+            return; //Not a better path
+        }
+        gScore[neighbor] = neighborGScore;
+        (forward ? cameFromForward : cameFromBackward)[neighbor] = cell;
+        double fScore = neighborGScore + manhattan(neighbor, target);
+        if(open){
+            openSet.decreaseKey(neighbor, fScore);
+        }
+        else {
+            state[neighbor] = (byte) (neighborState | (forward ? FORWARD_OPEN : BACKWARD_OPEN));
+            openSet.insert(neighbor, fScore);
+        }
+        //A cell reached by both sides joins the two half paths into a full one
+        if((state[neighbor] & (forward ? BACKWARD_SEEN : FORWARD_SEEN)) != 0){
+            int length = neighborGScore + (forward ? gBackward[neighbor] : gForward[neighbor]);
+            if(length < bestLength){
+                bestLength = length;
+                meetingCell = neighbor;
+            }
+        }
+    }
+
+    private int manhattan(int cell, int target){
+        return Math.abs(cell % dimension - target % dimension) + Math.abs(cell / dimension - target / dimension);
+    }
+
+    private boolean inBounds(int x, int y){
+        return x >= 0 && y >= 0 && x < dimension && y < dimension;
+    }
+
+    private void reset(){
+        openForward.clear();
+        openBackward.clear();
+        expandedNodes = 0;
+        currentSearch++;
+        if(currentSearch == 0){
+            Arrays.fill(searchStamp, 0);
+            currentSearch = 1;
+        }
+    }
+
+    /**
+     * This method joins the forward chain from the start to the meeting cell with the backward
+     * chain from the meeting cell to the end.
+     */
+    private GridPath constructShortestPath(){
+        int length = bestLength + 1;
+        int[] coordinates = new int[2*length];
+        int index = gForward[meetingCell];
+        for(int cell = meetingCell; cell != NO_PARENT; cell = cameFromForward[cell]){
+            coordinates[2*index] = cell % dimension;
+            coordinates[2*index + 1] = cell / dimension;
+            index--;
+        }
+        index = gForward[meetingCell];
+        for(int cell = cameFromBackward[meetingCell]; cell != NO_PARENT; cell = cameFromBackward[cell]){
+            index++;
+            coordinates[2*index] = cell % dimension;
+            coordinates[2*index + 1] = cell / dimension;
+        }
+        return new GridPath(coordinates, bestLength);
+    }
+}
@@ -0,0 +1,132 @@
+package grid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * BinaryGridFormat - compact binary grid file that loads without parsing. The file starts with a
+ * 32 byte header of little endian ints:
+ *
+ *  magic, version, dimension, start x, start y, end x, end y, flags
+ *
+ * where bit 0 of flags is set when the start position is present and bit 1 when the end position
+ * is present. The header is followed by the occupancy bitset as little endian longs, one bit per
+ * cell indexed by y*dimension+x, set for obstacles.
+ *
+ * Loading maps the file into memory and the grid reads obstacles straight from the mapping, so
+ * nothing is copied onto the heap and processes that load the same file share its pages through
+ * the operating system's page cache. Queries are not stored in the binary format.
+ *
+ * @author Danielle Plecki
+ */
+class BinaryGridFormat {
+    static final int MAGIC = 0x44524741; //"AGRD" in little endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    private static final int HAS_START = 1;
+    private static final int HAS_END = 2;
+
+    private BinaryGridFormat(){} //only static methods
+
+    /**
+     * This method checks the first bytes of a file to see whether it is a binary grid file.
+     *
+     * @param filePath file to check
+     * @return true if the file starts with the binary grid magic number
+     * @throws IOException throws exception if the file cannot be read
+     */
+    static boolean isBinaryGrid(Path filePath) throws IOException{
+        try(FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)){
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while(magic.hasRemaining() && channel.read(magic) >= 0){
+                //keep reading until the magic number is complete or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * This method writes a grid to a binary grid file, replacing the file if it exists.
+     *
+     * @param grid grid to save
+     * @param filePath location of the binary grid file
+     * @throws IOException throws exception if the file cannot be written
+     */
+    static void write(Grid grid, Path filePath) throws IOException{
+        Occupancy occupancy = grid.getOccupancy();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        Position start = grid.getStart();
+        Position end = grid.getEnd();
+        header.putInt(MAGIC).putInt(VERSION).putInt(grid.getDimension());
+        header.putInt(start == null ? 0 : start.getX()).putInt(start == null ? 0 : start.getY());
+        header.putInt(end == null ? 0 : end.getX()).putInt(end == null ? 0 : end.getY());
+        header.putInt((start == null ? 0 : HAS_START) | (end == null ? 0 : HAS_END));
+        header.flip();
+        try(FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            writeFully(channel, header);
+            ByteBuffer words = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            int wordCount = occupancy.wordCount();
+            int next = 0;
+            while(next < wordCount){
+                while(next < wordCount && words.remaining() >= Long.BYTES){
+                    words.putLong(occupancy.word(next++));
+                }
+                words.flip();
+                writeFully(channel, words);
+                words.clear();
+            }
+        }
+    }
+
+    /**
+     * This method maps a binary grid file into memory and creates a grid that reads its obstacles
+     * from the mapping. The mapping stays valid after the file is closed.
+     *
+     * @param filePath location of the binary grid file
+     * @return Grid object backed by the mapped file
+     * @throws IOException throws exception if the file cannot be read or is not a binary grid file
+     */
+    static Grid load(Path filePath) throws IOException{
+        MappedByteBuffer mapped;
+        try(FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)){
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if(mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC){
+            throw new IOException(filePath + " is not a binary grid file");
+        }
+        if(mapped.getInt(4) != VERSION){
+            throw new IOException("Unsupported binary grid version " + mapped.getInt(4));
+        }
+        int dimension = mapped.getInt(8);
+        long words = ((long) dimension*dimension + 63) >>> 6;
+        if(dimension < 0 || mapped.capacity() - HEADER_SIZE < words*Long.BYTES){
+            throw new IOException(filePath + " is shorter than its header says");
+        }
+        int flags = mapped.getInt(28);
+        mapped.position(HEADER_SIZE);
+        LongBuffer occupancy = mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        occupancy.limit((int) words);
+        Grid grid = new Grid(dimension, occupancy.slice());
+        if((flags & HAS_START) != 0){
+            grid.setStart(new Position(mapped.getInt(12), mapped.getInt(16)));
+        }
+        if((flags & HAS_END) != 0){
+            grid.setEnd(new Position(mapped.getInt(20), mapped.getInt(24)));
+        }
+        return grid;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException{
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package grid;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * ClusterGraph - the abstract graph searched by HierarchicalSearch. The grid is split into square
+ * clusters of clusterSize by clusterSize cells. Wherever the free cells on both sides of a border
+ * between two clusters form a run (an entrance), one or two pairs of facing cells are picked as
+ * transitions: the middle of a short entrance, or both ends of a long one. Each transition cell
+ * becomes a node, joined by an edge of cost 1 to the cell facing it in the other cluster, and by
+ * an edge to every other node of its own cluster that it can reach without leaving the cluster,
+ * whose cost is the length of that path.
+ *
+ * The graph is immutable once built. Building it searches every cluster once from each of its
+ * nodes, with one row of clusters per task in parallel. Grid.clusterGraph() keeps the graph of a
+ * grid so that it is only built once.
+ *
+ * @author Danielle Plecki
+ */
+class ClusterGraph {
+    //Entrances at least this long get a transition at each end instead of one in the middle
+    private static final int LONG_ENTRANCE = 6;
+
+    private final int dimension;
+    private final int clusterSize;
+    private final int clustersPerRow;
+    private final int[] clusterNodeStart; //nodes of cluster c are clusterNodeStart[c] up to clusterNodeStart[c+1]
+    private final int[] nodeCell;         //cell index y*dimension+x of each node
+    private final int[] edgeStart;        //edges of node n are edgeStart[n] up to edgeStart[n+1]
+    private final int[] edgeTarget;
+    private final int[] edgeCost;
+
+    ClusterGraph(Grid grid, int clusterSize){
+        if(clusterSize < 2){
+            throw new IllegalArgumentException("Cluster size must be at least 2, was " + clusterSize);
+        }
+        this.dimension = grid.getDimension();
+        this.clusterSize = clusterSize;
+        this.clustersPerRow = (dimension + clusterSize - 1) / clusterSize;
+        int clusters = clustersPerRow*clustersPerRow;
+
+        //Transitions, found by walking along every border. Each one is a pair of facing cells.
+        IntList transitions = new IntList();
+        for(int border = clusterSize; border < dimension; border += clusterSize){
+            for(int from = 0; from < dimension; from += clusterSize){
+                int to = Math.min(from + clusterSize, dimension);
+                addEntrances(grid, border, from, to, true, transitions);
+                addEntrances(grid, border, from, to, false, transitions);
+            }
+        }
+
+        //Nodes, grouped by cluster so that the nodes of a cluster are numbered consecutively
+        IntList[] clusterCells = new IntList[clusters];
+        for(int c = 0; c < clusters; c++){
+            clusterCells[c] = new IntList();
+        }
+        for(int i = 0; i < transitions.size(); i++){
+            int cell = transitions.get(i);
+            IntList cells = clusterCells[clusterOf(cell)];
+            if(!cells.contains(cell)){
+                cells.add(cell);
+            }
+        }
+        clusterNodeStart = new int[clusters + 1];
+        for(int c = 0; c < clusters; c++){
+            clusterNodeStart[c + 1] = clusterNodeStart[c] + clusterCells[c].size();
+        }
+        nodeCell = new int[clusterNodeStart[clusters]];
+        for(int c = 0; c < clusters; c++){
+            for(int i = 0; i < clusterCells[c].size(); i++){
+                nodeCell[clusterNodeStart[c] + i] = clusterCells[c].get(i);
+            }
+        }
+
+        //Edges of each node: intra-cluster edges from a search of its cluster, then the
+        //transitions that leave from it
+        IntList[] targets = new IntList[nodeCell.length];
+        IntList[] costs = new IntList[nodeCell.length];
+        IntStream.range(0, clustersPerRow).parallel().forEach(clusterRow -> {
+            ClusterWindow window = new ClusterWindow(grid, clusterSize);
+            for(int c = clusterRow*clustersPerRow; c < (clusterRow + 1)*clustersPerRow; c++){
+                for(int node = clusterNodeStart[c]; node < clusterNodeStart[c + 1]; node++){
+                    targets[node] = new IntList();
+                    costs[node] = new IntList();
+                    window.search(nodeCell[node] % dimension, nodeCell[node] / dimension);
+                    for(int other = clusterNodeStart[c]; other < clusterNodeStart[c + 1]; other++){
+                        int distance = window.distance(nodeCell[other] % dimension, nodeCell[other] / dimension);
+                        if(other != node && distance >= 0){
+                            targets[node].add(other);
+                            costs[node].add(distance);
+                        }
+                    }
+                }
+            }
+        });
+        for(int i = 0; i < transitions.size(); i += 2){
+            int a = nodeOf(transitions.get(i));
+            int b = nodeOf(transitions.get(i + 1));
+            targets[a].add(b);
+            costs[a].add(1);
+            targets[b].add(a);
+            costs[b].add(1);
+        }
+        edgeStart = new int[nodeCell.length + 1];
+        for(int node = 0; node < nodeCell.length; node++){
+            edgeStart[node + 1] = edgeStart[node] + targets[node].size();
+        }
+        edgeTarget = new int[edgeStart[nodeCell.length]];
+        edgeCost = new int[edgeTarget.length];
+        for(int node = 0; node < nodeCell.length; node++){
+            for(int i = 0; i < targets[node].size(); i++){
+                edgeTarget[edgeStart[node] + i] = targets[node].get(i);
+                edgeCost[edgeStart[node] + i] = costs[node].get(i);
+            }
+        }
+    }
+
+    /**
+     * This method walks along one stretch of a border, the part between from and to, and adds the
+     * transitions of every entrance on it.
+     *
+     * @param border first row or column of the clusters after the border
+     * @param vertical true for a border between clusters side by side, where the stretch runs
+     *                 along y, and false for one between clusters above each other
+     */
+    private void addEntrances(Grid grid, int border, int from, int to, boolean vertical, IntList transitions){
+        int runStart = -1;
+        for(int i = from; i <= to; i++){
+            boolean open = i < to && (vertical
+                    ? !grid.isBlocked(border - 1, i) && !grid.isBlocked(border, i)
+                    : !grid.isBlocked(i, border - 1) && !grid.isBlocked(i, border));
+            if(open && runStart < 0){
+                runStart = i;
+            }
+            else if(!open && runStart >= 0){
+                int runEnd = i - 1;
+                if(runEnd - runStart + 1 >= LONG_ENTRANCE){
+                    addTransition(border, runStart, vertical, transitions);
+                    addTransition(border, runEnd, vertical, transitions);
+                }
+                else {
+                    addTransition(border, (runStart + runEnd) / 2, vertical, transitions);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private void addTransition(int border, int along, boolean vertical, IntList transitions){
+        if(vertical){
+            transitions.add(along*dimension + border - 1);
+            transitions.add(along*dimension + border);
+        }
+        else {
+            transitions.add((border - 1)*dimension + along);
+            transitions.add(border*dimension + along);
+        }
+    }
+
+    int getClusterSize(){
+        return clusterSize;
+    }
+
+    int nodeCount(){
+        return nodeCell.length;
+    }
+
+    /**
+     * @param cell cell index y*dimension+x
+     * @return index of the cluster the cell lies in
+     */
+    int clusterOf(int cell){
+        return (cell / dimension / clusterSize)*clustersPerRow + (cell % dimension) / clusterSize;
+    }
+
+    int firstNode(int cluster){
+        return clusterNodeStart[cluster];
+    }
+
+    int endNode(int cluster){
+        return clusterNodeStart[cluster + 1];
+    }
+
+    int cellOf(int node){
+        return nodeCell[node];
+    }
+
+    int firstEdge(int node){
+        return edgeStart[node];
+    }
+
+    int endEdge(int node){
+        return edgeStart[node + 1];
+    }
+
+    int edgeTarget(int edge){
+        return edgeTarget[edge];
+    }
+
+    int edgeCost(int edge){
+        return edgeCost[edge];
+    }
+
+    private int nodeOf(int cell){
+        int cluster = clusterOf(cell);
+        for(int node = clusterNodeStart[cluster]; node < clusterNodeStart[cluster + 1]; node++){
+            if(nodeCell[node] == cell){
+                return node;
+            }
+        }
+        throw new IllegalStateException("No node at cell " + cell);
+    }
+
+    /**
+     * IntList - growable list of ints, used while the graph is built.
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value){
+            if(size == values.length){
+                values = Arrays.copyOf(values, size*2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index){
+            return values[index];
+        }
+
+        int size(){
+            return size;
+        }
+
+        boolean contains(int value){
+            for(int i = 0; i < size; i++){
+                if(values[i] == value){
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * ClusterWindow - breadth first search that stays inside one cluster of a ClusterGraph. Every
+ * step costs 1, so the distances it finds are the shortest ones inside the cluster. The scratch
+ * arrays only cover one cluster, so a window is small no matter how large the grid is, and
+ * cells are stamped with a search number like in SearchEngine so a new search does not clear them.
+ *
+ * A window is not thread safe.
+ *
+ * @author Danielle Plecki
+ */
+class ClusterWindow {
+    private static final int NO_PARENT = -1;
+
+    private Grid grid;
+    private final int dimension;
+    private final int clusterSize;
+    private final int[] distance;
+    private final int[] cameFrom;
+    private final int[] searchStamp;
+    private final int[] queue;
+    private int currentSearch;
+    private int minX;
+    private int minY;
+    private int maxX; //exclusive
+    private int maxY; //exclusive
+
+    ClusterWindow(Grid grid, int clusterSize){
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+        this.clusterSize = clusterSize;
+        int cells = clusterSize*clusterSize;
+        distance = new int[cells];
+        cameFrom = new int[cells];
+        searchStamp = new int[cells];
+        queue = new int[cells];
+    }
+
+    /**
+     * @param grid grid of the same dimension to search from now on
+     */
+    void useGrid(Grid grid){
+        this.grid = grid;
+    }
+
+    /**
+     * This method finds the distance from a position to every cell of its cluster that can be
+     * reached without leaving the cluster.
+     *
+     * @param x x coordinate of the starting position
+     * @param y y coordinate of the starting position
+     */
+    void search(int x, int y){
+        minX = x / clusterSize * clusterSize;
+        minY = y / clusterSize * clusterSize;
+        maxX = Math.min(minX + clusterSize, dimension);
+        maxY = Math.min(minY + clusterSize, dimension);
+        currentSearch++;
+        if(currentSearch == 0){
+            Arrays.fill(searchStamp, 0);
+            currentSearch = 1;
+        }
+        int width = maxX - minX;
+        int start = local(x, y);
+        int head = 0;
+        int tail = 0;
+        distance[start] = 0;
+        cameFrom[start] = NO_PARENT;
+        searchStamp[start] = currentSearch;
+        queue[tail++] = start;
+        while(head < tail){
+            int current = queue[head++];
+            int currentX = current % width + minX;
+            int currentY = current / width + minY;
+            int next = distance[current] + 1;
+            if(currentY + 1 < maxY) tail = visit(current, currentX, currentY + 1, next, tail);
+            if(currentY > minY) tail = visit(current, currentX, currentY - 1, next, tail);
+            if(currentX + 1 < maxX) tail = visit(current, currentX + 1, currentY, next, tail);
+            if(currentX > minX) tail = visit(current, currentX - 1, currentY, next, tail);
+        }
+    }
+
+    private int visit(int current, int x, int y, int nextDistance, int tail){
+        int cell = local(x, y);
+        if(searchStamp[cell] == currentSearch || grid.isBlocked(x, y)){
+            return tail;
+        }
+        searchStamp[cell] = currentSearch;
+        distance[cell] = nextDistance;
+        cameFrom[cell] = current;
+        queue[tail++] = cell;
+        return tail;
+    }
+
+    private int local(int x, int y){
+        return (y - minY)*(maxX - minX) + (x - minX);
+    }
+
+    /**
+     * @param x x coordinate of a position in the cluster of the last search
+     * @param y y coordinate of a position in the cluster of the last search
+     * @return distance from the starting position of the last search, or -1 if it was not reached
+     */
+    int distance(int x, int y){
+        int cell = local(x, y);
+        return searchStamp[cell] == currentSearch ? distance[cell] : -1;
+    }
+
+    /**
+     * This method writes the path of the last search from its starting position to a reached
+     * position into a packed coordinate array, in the same layout as GridPath.
+     *
+     * @param x x coordinate of the reached position
+     * @param y y coordinate of the reached position
+     * @param coordinates array to write x and y pairs into
+     * @param offset index of the starting position's pair in the array
+     */
+    void writePath(int x, int y, int[] coordinates, int offset){
+        int width = maxX - minX;
+        int cell = local(x, y);
+        for(int i = distance[cell]; i >= 0; i--){
+            coordinates[2*(offset + i)] = cell % width + minX;
+            coordinates[2*(offset + i) + 1] = cell / width + minY;
+            cell = cameFrom[cell];
+        }
+    }
+}
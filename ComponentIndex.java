@@ -0,0 +1,336 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * ComponentIndex - labels every free cell of a grid with the connected region it belongs to, so
+ * that a query between two regions can be answered "unreachable" without searching. Cells are
+ * labelled once with a flood fill, after which the labels are kept up to date as single cells
+ * change:
+ *
+ *  - when a cell is freed, the regions around it merge, which is a union of their labels
+ *  - when a cell is blocked, its region may fall apart. A breadth first search is started from
+ *    each free neighbor, one cell at a time in turn, and searches that meet are merged. A search
+ *    that runs out of cells without meeting the others has found a region of its own, which gets
+ *    a new label. This stops as soon as only one search is left, so it costs about as much as the
+ *    smaller pieces rather than the whole region.
+ *
+ * Labels are joined in a union-find structure, the region of a cell is the root of its label.
+ *
+ * @author Danielle Plecki
+ */
+class ComponentIndex {
+    private static final int BLOCKED = 0;
+
+    private final Grid grid;
+    private final int dimension;
+    private final int[] labels;   //label of each cell, BLOCKED for obstacles
+    private int[] parent;         //union-find parent of each label
+    private int labelCount;
+
+    //Scratch state of the searches run when a cell is blocked
+    private int[] visitStamp;
+    private int stampBase;
+
+    ComponentIndex(Grid grid){
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+        int cells = dimension*dimension;
+        labels = new int[cells];
+        parent = new int[16];
+        labelCount = 1; //label 0 is BLOCKED
+        labelAll();
+    }
+
+    /**
+     * This method flood fills every free cell that has no label yet with a new label.
+     */
+    private void labelAll(){
+        int[] queue = new int[labels.length];
+        for(int cell = 0; cell < labels.length; cell++){
+            if(labels[cell] != BLOCKED || isBlocked(cell)){
+                continue;
+            }
+            int label = newLabel();
+            int head = 0;
+            int tail = 0;
+            labels[cell] = label;
+            queue[tail++] = cell;
+            while(head < tail){
+                int current = queue[head++];
+                int x = current % dimension;
+                int y = current / dimension;
+                if(y + 1 < dimension) tail = label(current + dimension, label, queue, tail);
+                if(y > 0) tail = label(current - dimension, label, queue, tail);
+                if(x + 1 < dimension) tail = label(current + 1, label, queue, tail);
+                if(x > 0) tail = label(current - 1, label, queue, tail);
+            }
+        }
+    }
+
+    private int label(int cell, int label, int[] queue, int tail){
+        if(labels[cell] == BLOCKED && !isBlocked(cell)){
+            labels[cell] = label;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    /**
+     * This method checks whether a path can exist between two positions. A blocked starting
+     * position is allowed, since the searches step off it, in which case it counts as connected
+     * to the regions of its free neighbors. Both positions must lie inside the grid.
+     *
+     * @param startX x coordinate of the starting position
+     * @param startY y coordinate of the starting position
+     * @param endX x coordinate of the ending position
+     * @param endY y coordinate of the ending position
+     * @return true if the ending position can be reached from the starting position
+     */
+    boolean connected(int startX, int startY, int endX, int endY){
+        int startCell = startY*dimension + startX;
+        int endCell = endY*dimension + endX;
+        if(startCell == endCell){
+            return true;
+        }
+        if(labels[endCell] == BLOCKED){
+            return false;
+        }
+        int region = find(labels[endCell]);
+        if(labels[startCell] != BLOCKED){
+            return find(labels[startCell]) == region;
+        }
+        return (startY + 1 < dimension && sameRegion(startCell + dimension, region))
+                || (startY > 0 && sameRegion(startCell - dimension, region))
+                || (startX + 1 < dimension && sameRegion(startCell + 1, region))
+                || (startX > 0 && sameRegion(startCell - 1, region));
+    }
+
+    private boolean sameRegion(int cell, int region){
+        return labels[cell] != BLOCKED && find(labels[cell]) == region;
+    }
+
+    /**
+     * @param x x coordinate of a position inside the grid
+     * @param y y coordinate of a position inside the grid
+     * @return number identifying the region of the cell, or 0 if the cell is blocked
+     */
+    int regionOf(int x, int y){
+        int label = labels[y*dimension + x];
+        return label == BLOCKED ? BLOCKED : find(label);
+    }
+
+    /**
+     * @return number identifying the region with the most cells, or 0 if every cell is blocked
+     */
+    int largestRegion(){
+        int[] sizes = new int[labelCount];
+        for(int label : labels){
+            if(label != BLOCKED){
+                sizes[find(label)]++;
+            }
+        }
+        int largest = BLOCKED;
+        for(int region = 1; region < sizes.length; region++){
+            if(sizes[region] > sizes[largest]){
+                largest = region;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * This method updates the labels after a blocked cell has been freed, merging the regions of
+     * its free neighbors.
+     *
+     * @param x x coordinate of the freed cell
+     * @param y y coordinate of the freed cell
+     */
+    void cellFreed(int x, int y){
+        int cell = y*dimension + x;
+        if(labels[cell] != BLOCKED){
+            return;
+        }
+        int region = BLOCKED;
+        if(y + 1 < dimension) region = merge(region, cell + dimension);
+        if(y > 0) region = merge(region, cell - dimension);
+        if(x + 1 < dimension) region = merge(region, cell + 1);
+        if(x > 0) region = merge(region, cell - 1);
+        labels[cell] = region == BLOCKED ? newLabel() : region;
+    }
+
+    private int merge(int region, int neighbor){
+        if(labels[neighbor] == BLOCKED){
+            return region;
+        }
+        int neighborRegion = find(labels[neighbor]);
+        if(region == BLOCKED || region == neighborRegion){
+            return neighborRegion;
+        }
+        parent[neighborRegion] = region;
+        return region;
+    }
+
+    /**
+     * This method updates the labels after a free cell has been blocked, giving new labels to any
+     * pieces its region falls apart into.
+     *
+     * @param x x coordinate of the blocked cell
+     * @param y y coordinate of the blocked cell
+     */
+    void cellBlocked(int x, int y){
+        int cell = y*dimension + x;
+        if(labels[cell] == BLOCKED){
+            return;
+        }
+        labels[cell] = BLOCKED;
+        int[] seeds = new int[4];
+        int count = 0;
+        if(y + 1 < dimension && labels[cell + dimension] != BLOCKED) seeds[count++] = cell + dimension;
+        if(y > 0 && labels[cell - dimension] != BLOCKED) seeds[count++] = cell - dimension;
+        if(x + 1 < dimension && labels[cell + 1] != BLOCKED) seeds[count++] = cell + 1;
+        if(x > 0 && labels[cell - 1] != BLOCKED) seeds[count++] = cell - 1;
+        if(count > 1){
+            split(seeds, count);
+        }
+    }
+
+    /**
+     * This method runs one breadth first search from each seed, taking turns one cell at a time.
+     * Searches that reach each other's cells are joined into one group. A group whose searches
+     * have all run out of cells is a region of its own and gets a new label. Once only one group
+     * is still running it is the part that keeps the old label.
+     */
+    private void split(int[] seeds, int count){
+        if(visitStamp == null){
+            visitStamp = new int[labels.length];
+        }
+        if(stampBase > Integer.MAX_VALUE - 8){
+            Arrays.fill(visitStamp, 0);
+            stampBase = 0;
+        }
+        int base = stampBase + 1;
+        stampBase += count;
+        int[][] queues = new int[count][];
+        int[] heads = new int[count];
+        int[] tails = new int[count];
+        int[] group = new int[count];
+        for(int i = 0; i < count; i++){
+            queues[i] = new int[16];
+            queues[i][tails[i]++] = seeds[i];
+            visitStamp[seeds[i]] = base + i;
+            group[i] = i;
+        }
+        boolean[] finished = new boolean[count];
+        int running = count;
+        while(running > 1){
+            for(int i = 0; i < count && running > 1; i++){
+                if(heads[i] == tails[i]){
+                    continue;
+                }
+                int current = queues[i][heads[i]++];
+                int cx = current % dimension;
+                int cy = current / dimension;
+                for(int direction = 0; direction < 4; direction++){
+                    int next;
+                    if(direction == 0){ if(cy + 1 >= dimension) continue; next = current + dimension; }
+                    else if(direction == 1){ if(cy == 0) continue; next = current - dimension; }
+                    else if(direction == 2){ if(cx + 1 >= dimension) continue; next = current + 1; }
+                    else { if(cx == 0) continue; next = current - 1; }
+                    if(labels[next] == BLOCKED){
+                        continue;
+                    }
+                    int owner = visitStamp[next] - base;
+                    if(owner >= 0 && owner < count){
+                        join(group, i, owner);
+                        continue;
+                    }
+                    visitStamp[next] = base + i;
+                    if(tails[i] == queues[i].length){
+                        queues[i] = Arrays.copyOf(queues[i], queues[i].length*2);
+                    }
+                    queues[i][tails[i]++] = next;
+                }
+                running = groups(group, finished, count);
+                //A group with nothing left to search is cut off from the rest
+                for(int g = 0; g < count && running > 1; g++){
+                    if(finished[g] || root(group, g) != g || !exhausted(group, heads, tails, g, count)){
+                        continue;
+                    }
+                    int label = newLabel();
+                    for(int member = 0; member < count; member++){
+                        if(root(group, member) == g){
+                            for(int k = 0; k < tails[member]; k++){
+                                labels[queues[member][k]] = label;
+                            }
+                        }
+                    }
+                    finished[g] = true;
+                    running--;
+                }
+            }
+        }
+    }
+
+    private static int root(int[] group, int i){
+        while(group[i] != i){
+            i = group[i];
+        }
+        return i;
+    }
+
+    private static void join(int[] group, int a, int b){
+        int rootA = root(group, a);
+        int rootB = root(group, b);
+        if(rootA != rootB){
+            group[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    /**
+     * @return number of groups that are still running
+     */
+    private static int groups(int[] group, boolean[] finished, int count){
+        int running = 0;
+        for(int i = 0; i < count; i++){
+            if(root(group, i) == i && !finished[i]){
+                running++;
+            }
+        }
+        return running;
+    }
+
+    private static boolean exhausted(int[] group, int[] heads, int[] tails, int g, int count){
+        for(int member = 0; member < count; member++){
+            if(root(group, member) == g && heads[member] != tails[member]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int find(int label){
+        int root = label;
+        while(parent[root] != root){
+            root = parent[root];
+        }
+        while(parent[label] != root){
+            int next = parent[label];
+            parent[label] = root;
+            label = next;
+        }
+        return root;
+    }
+
+    private int newLabel(){
+        if(labelCount == parent.length){
+            parent = Arrays.copyOf(parent, parent.length*2);
+        }
+        parent[labelCount] = labelCount;
+        return labelCount++;
+    }
+
+    private boolean isBlocked(int cell){
+        return grid.isBlocked(cell % dimension, cell / dimension);
+    }
+}
@@ -0,0 +1,123 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * ConcurrentGrid - grid whose obstacles can change while other threads search it. Every state of
+ * the obstacles is an unchangeable Grid snapshot with its own version number. A search takes the
+ * current snapshot with a single volatile read and runs on it to the end, so it never waits and
+ * never sees half of a change. Writers apply batches of changes one at a time: a batch builds the
+ * next snapshot by copy-on-write of the tiles it touches (see TiledOccupancy) and then publishes it.
+ *
+ * Old snapshots are ordinary objects that are garbage collected once no search holds them. The
+ * path finders of all snapshots are shared, one of each SearchMode per thread, and move on to the
+ * newest snapshot on their thread's next search, until which they keep the last one they searched.
+ *
+ * @author Danielle Plecki
+ */
+class ConcurrentGrid {
+    private final Object writeLock = new Object();
+    private final ThreadLocal<PathFinder[]> pathFinders = new ThreadLocal<>();
+    private volatile Grid current;
+
+    /**
+     * @param grid grid to start from, whose obstacles are copied
+     */
+    ConcurrentGrid(Grid grid){
+        current = new Grid(grid, TiledOccupancy.copyOf(grid.getOccupancy()), 0, pathFinders);
+    }
+
+    /**
+     * This method returns the current state of the grid. The snapshot never changes, so it can be
+     * searched for as long as needed while writers carry on.
+     *
+     * @return current snapshot
+     */
+    Grid snapshot(){
+        return current;
+    }
+
+    /**
+     * @return version of the current snapshot, which goes up by one with every batch
+     */
+    long version(){
+        return current.getVersion();
+    }
+
+    int getDimension(){
+        return current.getDimension();
+    }
+
+    /**
+     * This method finds a path on the current snapshot with the calling thread's path finder.
+     *
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @param mode kind of search to use
+     * @return path from starting position to ending, or null if there is no path
+     */
+    GridPath findPath(Position startPosition, Position endPosition, SearchMode mode){
+        return AStar.pooledFindPath(current, startPosition, endPosition, mode);
+    }
+
+    /**
+     * This method applies a batch of changes and publishes the result as a new snapshot. Batches
+     * from different writers are applied one after the other; searches are never blocked.
+     *
+     * @param batch changes to apply
+     * @return version of the new snapshot
+     */
+    long apply(Batch batch){
+        synchronized(writeLock){
+            Grid previous = current;
+            TiledOccupancy occupancy = (TiledOccupancy) previous.getOccupancy();
+            Grid next = new Grid(previous, occupancy.with(batch.cells, batch.blocked, batch.size),
+                    previous.getVersion() + 1, pathFinders);
+            current = next;
+            return next.getVersion();
+        }
+    }
+
+    /**
+     * Batch - obstacle changes that are applied together, so that searches see all of them or none.
+     * Later changes to the same cell win.
+     */
+    static class Batch {
+        private final int dimension;
+        private int[] cells = new int[16];
+        private boolean[] blocked = new boolean[16];
+        private int size;
+
+        /**
+         * @param grid grid the batch will be applied to
+         */
+        Batch(ConcurrentGrid grid){
+            this.dimension = grid.getDimension();
+        }
+
+        Batch block(int x, int y){
+            return set(x, y, true);
+        }
+
+        Batch free(int x, int y){
+            return set(x, y, false);
+        }
+
+        private Batch set(int x, int y, boolean cellBlocked){
+            if(x < 0 || y < 0 || x >= dimension || y >= dimension){
+                throw new IllegalArgumentException("Position x=" + x + ", y=" + y + " is outside the grid");
+            }
+            if(size == cells.length){
+                cells = Arrays.copyOf(cells, 2*size);
+                blocked = Arrays.copyOf(blocked, 2*size);
+            }
+            cells[size] = y*dimension + x;
+            blocked[size++] = cellBlocked;
+            return this;
+        }
+
+        int size(){
+            return size;
+        }
+    }
+}
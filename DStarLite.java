@@ -0,0 +1,232 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * DStarLite - incremental planner for one agent on a grid whose obstacles change, using D* Lite
+ * (Koenig and Likhachev). The search runs backwards from the goal, so g[cell] is the distance
+ * from a cell to the goal, and it keeps its state between calls. When a cell flips between free
+ * and blocked only the cells whose distance changes are searched again, and when the agent moves
+ * the old search stays valid, with the heuristic corrected by an offset (keyModifier) instead of
+ * reordering the open set.
+ *
+ * Every step costs 1 and moving into a blocked cell is not allowed, so like the other searches a
+ * blocked start can be left but a blocked goal cannot be reached. Obstacles have to be changed
+ * through setBlocked() so the planner sees the change. A planner is not thread safe.
+ *
+ * @author Danielle Plecki
+ */
+class DStarLite {
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private final Grid grid;
+    private final int dimension;
+    private final int goalCell;
+    private final int[] g;   //distance to the goal found so far
+    private final int[] rhs; //one step look ahead of g, the cell is consistent when the two agree
+    private final LongKeyHeap openSet;
+    private int startCell;
+    private int keyModifier;
+    private int expandedNodes;
+
+    /**
+     * @param grid grid to plan on
+     * @param startPosition position of the agent, inside the grid
+     * @param goalPosition position the agent is heading to, inside the grid
+     */
+    DStarLite(Grid grid, Position startPosition, Position goalPosition){
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+        checkInside(startPosition.getX(), startPosition.getY());
+        checkInside(goalPosition.getX(), goalPosition.getY());
+        int cells = dimension*dimension;
+        g = new int[cells];
+        rhs = new int[cells];
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        openSet = new LongKeyHeap(cells);
+        startCell = startPosition.getY()*dimension + startPosition.getX();
+        goalCell = goalPosition.getY()*dimension + goalPosition.getX();
+        rhs[goalCell] = 0;
+        openSet.insert(goalCell, key(goalCell));
+    }
+
+    /**
+     * This method adds or removes an obstacle and marks the cells around it for repair. The path
+     * is only searched again on the next call to path().
+     *
+     * @param x x coordinate of the cell
+     * @param y y coordinate of the cell
+     * @param blocked true to add an obstacle and false to remove it
+     */
+    void setBlocked(int x, int y, boolean blocked){
+        checkInside(x, y);
+        if(grid.isBlocked(x, y) == blocked){
+            return;
+        }
+        grid.setBlocked(x, y, blocked);
+        //Only the cost of moving into the cell changed, which affects the cells next to it
+        int cell = y*dimension + x;
+        if(y + 1 < dimension) updateCell(cell + dimension);
+        if(y > 0) updateCell(cell - dimension);
+        if(x + 1 < dimension) updateCell(cell + 1);
+        if(x > 0) updateCell(cell - 1);
+    }
+
+    /**
+     * This method moves the agent, for example after it has taken the first steps of its path.
+     *
+     * @param position new position of the agent, inside the grid
+     */
+    void moveStart(Position position){
+        checkInside(position.getX(), position.getY());
+        int cell = position.getY()*dimension + position.getX();
+        keyModifier += distance(startCell, cell);
+        startCell = cell;
+    }
+
+    /**
+     * This method brings the search up to date with the changes since the last call and returns
+     * the shortest path from the agent to the goal.
+     *
+     * @return path from the agent's position to the goal, or null if the goal cannot be reached
+     */
+    GridPath path(){
+        expandedNodes = 0;
+        int startX = startCell % dimension;
+        int startY = startCell / dimension;
+        if(!grid.connected(startX, startY, goalCell % dimension, goalCell / dimension)){
+            return null;
+        }
+        computeShortestPath();
+        if(g[startCell] >= INFINITY){
+            return null;
+        }
+        int length = g[startCell] + 1;
+        int[] coordinates = new int[2*length];
+        int cell = startCell;
+        for(int i = 0; i < length; i++){
+            coordinates[2*i] = cell % dimension;
+            coordinates[2*i + 1] = cell / dimension;
+            cell = nextStep(cell);
+        }
+        return new GridPath(coordinates, length - 1);
+    }
+
+    /**
+     * @return number of cells taken off the open set by the last call to path()
+     */
+    int expandedNodes(){
+        return expandedNodes;
+    }
+
+    private void computeShortestPath(){
+        while(openSet.peekPriority() < key(startCell) || rhs[startCell] != g[startCell]){
+            if(openSet.isEmpty()){
+                return;
+            }
+            long oldKey = openSet.peekPriority();
+            int cell = openSet.peek();
+            expandedNodes++;
+            long newKey = key(cell);
+            if(oldKey < newKey){
+                openSet.update(cell, newKey); //The agent moved since the cell was queued
+            }
+            else if(g[cell] > rhs[cell]){
+                g[cell] = rhs[cell];
+                openSet.poll();
+                updateNeighbors(cell);
+            }
+            else {
+                g[cell] = INFINITY;
+                updateCell(cell);
+                updateNeighbors(cell);
+            }
+        }
+    }
+
+    private void updateNeighbors(int cell){
+        int x = cell % dimension;
+        int y = cell / dimension;
+        if(y + 1 < dimension) updateCell(cell + dimension);
+        if(y > 0) updateCell(cell - dimension);
+        if(x + 1 < dimension) updateCell(cell + 1);
+        if(x > 0) updateCell(cell - 1);
+    }
+
+    /**
+     * This method works out the look ahead value of a cell again from its neighbors and puts the
+     * cell in the open set if it is inconsistent, or takes it out if it is not.
+     */
+    private void updateCell(int cell){
+        if(cell != goalCell){
+            rhs[cell] = bestStep(cell, false);
+        }
+        if(g[cell] != rhs[cell]){
+            if(openSet.contains(cell)){
+                openSet.update(cell, key(cell));
+            }
+            else {
+                openSet.insert(cell, key(cell));
+            }
+        }
+        else if(openSet.contains(cell)){
+            openSet.remove(cell);
+        }
+    }
+
+    private int nextStep(int cell){
+        return bestStep(cell, true);
+    }
+
+    /**
+     * This method looks at the free neighbors of a cell, in the order north, south, east, west.
+     *
+     * @param returnCell true to return the neighbor to step to, false to return the distance
+     *                   to the goal through it
+     */
+    private int bestStep(int cell, boolean returnCell){
+        int x = cell % dimension;
+        int y = cell / dimension;
+        int best = INFINITY;
+        int bestCell = -1;
+        for(int direction = 0; direction < 4; direction++){
+            int nx = x;
+            int ny = y;
+            if(direction == 0) ny++;
+            else if(direction == 1) ny--;
+            else if(direction == 2) nx++;
+            else nx--;
+            if(nx < 0 || ny < 0 || nx >= dimension || ny >= dimension || grid.isBlocked(nx, ny)){
+                continue;
+            }
+            int neighbor = ny*dimension + nx;
+            if(g[neighbor] < INFINITY && g[neighbor] + 1 < best){
+                best = g[neighbor] + 1;
+                bestCell = neighbor;
+            }
+        }
+        return returnCell ? bestCell : best;
+    }
+
+    private long key(int cell){
+        int smaller = Math.min(g[cell], rhs[cell]);
+        if(smaller >= INFINITY){
+            return LongKeyHeap.pack(INFINITY, INFINITY);
+        }
+        return LongKeyHeap.pack(smaller + distance(startCell, cell) + keyModifier, smaller);
+    }
+
+    /**
+     * This method is the Manhattan distance between two cells, the heuristic of the search.
+     */
+    private int distance(int cellA, int cellB){
+        return Math.abs(cellA % dimension - cellB % dimension) + Math.abs(cellA / dimension - cellB / dimension);
+    }
+
+    private void checkInside(int x, int y){
+        if(x < 0 || y < 0 || x >= dimension || y >= dimension){
+            throw new IllegalArgumentException("Position x=" + x + ", y=" + y + " is outside the grid");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package grid;
+
+import java.nio.LongBuffer;
+
+/**
+ * FlatOccupancy - occupancy bitset held in one buffer of words, which either wraps a long array
+ * or views a memory mapped grid file, see BinaryGridFormat. Only a buffer that wraps an array it
+ * may write to can be changed.
+ *
+ * @author Danielle Plecki
+ */
+class FlatOccupancy implements Occupancy {
+    private final LongBuffer words;
+
+    FlatOccupancy(LongBuffer words){
+        this.words = words;
+    }
+
+    /**
+     * This method copies any occupancy into a new flat one that can be changed.
+     *
+     * @param occupancy bitset to copy
+     * @return flat copy of the bitset
+     */
+    static FlatOccupancy copyOf(Occupancy occupancy){
+        long[] copy = new long[occupancy.wordCount()];
+        for(int i = 0; i < copy.length; i++){
+            copy[i] = occupancy.word(i);
+        }
+        return new FlatOccupancy(LongBuffer.wrap(copy));
+    }
+
+    @Override
+    public boolean isBlocked(int cell){
+        return (words.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    @Override
+    public int wordCount(){
+        return words.capacity();
+    }
+
+    @Override
+    public long word(int index){
+        return words.get(index);
+    }
+
+    /**
+     * @return true if flip() may be called
+     */
+    boolean isWritable(){
+        return words.hasArray() && !words.isReadOnly();
+    }
+
+    /**
+     * This method adds an obstacle to a free cell or removes the one in a blocked cell.
+     *
+     * @param cell cell index y*dimension+x
+     */
+    void flip(int cell){
+        int index = cell >>> 6;
+        words.put(index, words.get(index) ^ (1L << cell));
+    }
+}
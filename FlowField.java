@@ -0,0 +1,302 @@
+package grid;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * FlowField - the direction to step in from every cell of a grid to get closer to one target, for
+ * when many agents head to the same place. The field is built once with a search backwards from
+ * the target, after which the shortest path from any start is read off by following the
+ * directions, in time proportional to its length. Only the directions are kept, one byte per
+ * cell; the distances the search works out are dropped once the directions point along them, and
+ * the distance of a cell is the length of the path its directions lead along.
+ *
+ * The field is built in parallel. The grid is split into square tiles and each tile is searched
+ * on its own from the distances along its border, taken from the tiles next to it. A tile whose
+ * border distances go down makes its neighbors search again, and this repeats until nothing
+ * changes. Tiles are searched in a checkerboard order, so two tiles that touch never run at the
+ * same time and every tile only writes its own cells.
+ *
+ * Every step costs 1 and a blocked cell cannot be moved into but can be left, like in the other
+ * searches. Grid.flowField() keeps the fields of the last few targets until the obstacles change.
+ * A field never changes once it is built, so it can be read by any number of threads.
+ *
+ * @author Danielle Plecki
+ */
+class FlowField {
+    static final byte NONE = 0; //the target, or a cell that cannot reach it
+    static final byte NORTH = 1; //y + 1
+    static final byte SOUTH = 2; //y - 1
+    static final byte EAST = 3; //x + 1
+    static final byte WEST = 4; //x - 1
+
+    private static final int TILE_SIZE = 64;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    //Scratch arrays of searchTile(), one of each per thread since tiles are searched in parallel
+    private static final ThreadLocal<long[]> SEEDS = ThreadLocal.withInitial(() -> new long[4*TILE_SIZE + 1]);
+    private static final ThreadLocal<int[]> QUEUES = ThreadLocal.withInitial(() -> new int[TILE_SIZE*TILE_SIZE]);
+
+    private final Grid grid;
+    private final int dimension;
+    private final int target;
+    //Distance of every cell to the target while the field is built, null afterwards
+    private int[] distance;
+    private final byte[] direction;
+    private final int tilesPerRow;
+    private final boolean[] dirty;
+    private final int expandedNodes;
+
+    /**
+     * @param grid grid to build the field on, which must not change while it is built
+     * @param targetX x coordinate of the target, inside the grid
+     * @param targetY y coordinate of the target, inside the grid
+     */
+    FlowField(Grid grid, int targetX, int targetY){
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+        this.target = targetY*dimension + targetX;
+        int cells = dimension*dimension;
+        distance = new int[cells];
+        direction = new byte[cells];
+        Arrays.fill(distance, UNREACHED);
+        tilesPerRow = (dimension + TILE_SIZE - 1) / TILE_SIZE;
+        dirty = new boolean[tilesPerRow*tilesPerRow];
+        distance[target] = 0;
+        int expanded = searchTile(targetY / TILE_SIZE * tilesPerRow + targetX / TILE_SIZE, target);
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for(int color = 0; color < 2; color++){
+                int[] tiles = takeDirtyTiles(color);
+                changed |= tiles.length > 0;
+                expanded += IntStream.of(tiles).parallel().map(tile -> searchTile(tile, -1)).sum();
+            }
+        }
+        expandedNodes = expanded;
+        IntStream.range(0, dimension).parallel().forEach(this::pointRow);
+        distance = null;
+    }
+
+    /**
+     * @return cell index y*dimension+x of the target
+     */
+    int getTarget(){
+        return target;
+    }
+
+    /**
+     * @return number of cells taken off the queues while the field was built
+     */
+    int expandedNodes(){
+        return expandedNodes;
+    }
+
+    /**
+     * This method counts the steps from a cell to the target by following the directions.
+     *
+     * @param x x coordinate of the cell, inside the grid
+     * @param y y coordinate of the cell, inside the grid
+     * @return number of steps from the cell to the target, or -1 if it cannot reach the target
+     */
+    int distance(int x, int y){
+        int cell = y*dimension + x;
+        int steps = 0;
+        while(cell != target){
+            byte step = direction[cell];
+            if(step == NONE){
+                return -1;
+            }
+            cell = next(cell, step);
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * @param x x coordinate of the cell, inside the grid
+     * @param y y coordinate of the cell, inside the grid
+     * @return direction of the first step from the cell towards the target, one of NORTH, SOUTH,
+     *         EAST and WEST, or NONE for the target and for cells that cannot reach it
+     */
+    byte direction(int x, int y){
+        return direction[y*dimension + x];
+    }
+
+    /**
+     * This method reads the shortest path from a position to the target off the field.
+     *
+     * @param startPosition starting position of the path
+     * @return path from starting position to the target, or null if there is no path
+     */
+    GridPath path(Position startPosition){
+        int x = startPosition.getX();
+        int y = startPosition.getY();
+        if(x < 0 || y < 0 || x >= dimension || y >= dimension){
+            return null;
+        }
+        int steps = distance(x, y);
+        if(steps < 0){
+            return null;
+        }
+        int[] coordinates = new int[2*(steps + 1)];
+        int cell = y*dimension + x;
+        for(int i = 0; i <= steps; i++){
+            coordinates[2*i] = cell % dimension;
+            coordinates[2*i + 1] = cell / dimension;
+            cell = next(cell, direction[cell]);
+        }
+        return new GridPath(coordinates, steps);
+    }
+
+    /**
+     * @return cell one step from a cell in a direction, or the cell itself for NONE
+     */
+    private int next(int cell, byte step){
+        if(step == NORTH) return cell + dimension;
+        if(step == SOUTH) return cell - dimension;
+        if(step == EAST) return cell + 1;
+        if(step == WEST) return cell - 1;
+        return cell;
+    }
+
+    /**
+     * This method lists the dirty tiles of one color of the checkerboard and marks them clean.
+     */
+    private int[] takeDirtyTiles(int color){
+        int[] tiles = new int[dirty.length];
+        int count = 0;
+        for(int tile = 0; tile < dirty.length; tile++){
+            if(dirty[tile] && (tile % tilesPerRow + tile / tilesPerRow) % 2 == color){
+                dirty[tile] = false;
+                tiles[count++] = tile;
+            }
+        }
+        return Arrays.copyOf(tiles, count);
+    }
+
+    /**
+     * This method lowers the distances of a tile's cells as far as the distances along its border
+     * allow, with a breadth first search of the tile that takes its border cells in order of
+     * distance. The tiles on the other side of any border cell that went down are marked dirty.
+     *
+     * @param tile index of the tile, row by row
+     * @param seed cell of the tile to start from besides its border, or -1
+     * @return number of cells taken off the queues
+     */
+    private int searchTile(int tile, int seed){
+        int minX = tile % tilesPerRow * TILE_SIZE;
+        int minY = tile / tilesPerRow * TILE_SIZE;
+        int maxX = Math.min(minX + TILE_SIZE, dimension); //exclusive
+        int maxY = Math.min(minY + TILE_SIZE, dimension); //exclusive
+        //Border cells that can get closer through the cell outside them, packed as distance and cell
+        long[] seeds = SEEDS.get();
+        int seedCount = 0;
+        if(seed >= 0){
+            seeds[seedCount++] = pack(distance[seed], seed);
+        }
+        for(int x = minX; x < maxX; x++){
+            if(minY > 0) seedCount = seedFrom(x, minY, x, minY - 1, seeds, seedCount);
+            if(maxY < dimension) seedCount = seedFrom(x, maxY - 1, x, maxY, seeds, seedCount);
+        }
+        for(int y = minY; y < maxY; y++){
+            if(minX > 0) seedCount = seedFrom(minX, y, minX - 1, y, seeds, seedCount);
+            if(maxX < dimension) seedCount = seedFrom(maxX - 1, y, maxX, y, seeds, seedCount);
+        }
+        if(seedCount == 0){
+            return 0;
+        }
+        Arrays.sort(seeds, 0, seedCount);
+        //The queue only ever holds distances one above the cell taken last, so taking the lower of
+        //the next seed and the queue's head takes cells in order of distance, like Dijkstra
+        int[] queue = QUEUES.get();
+        int head = 0;
+        int tail = 0;
+        int nextSeed = 0;
+        int expanded = 0;
+        while(nextSeed < seedCount || head < tail){
+            int cell;
+            if(head == tail || (nextSeed < seedCount && (int) (seeds[nextSeed] >>> 32) < distance[queue[head]])){
+                long packed = seeds[nextSeed++];
+                cell = (int) packed;
+                if((int) (packed >>> 32) != distance[cell] || grid.isBlocked(cell % dimension, cell / dimension)){
+                    continue; //Lowered again since, or a blocked cell that cannot be moved into
+                }
+            }
+            else {
+                cell = queue[head++];
+            }
+            expanded++;
+            int x = cell % dimension;
+            int y = cell / dimension;
+            int next = distance[cell] + 1;
+            if(y + 1 < maxY) tail = lower(x, y + 1, next, queue, tail);
+            if(y > minY) tail = lower(x, y - 1, next, queue, tail);
+            if(x + 1 < maxX) tail = lower(x + 1, y, next, queue, tail);
+            if(x > minX) tail = lower(x - 1, y, next, queue, tail);
+            if(y + 1 == maxY && maxY < dimension) dirty[tile + tilesPerRow] = true;
+            if(y == minY && minY > 0) dirty[tile - tilesPerRow] = true;
+            if(x + 1 == maxX && maxX < dimension) dirty[tile + 1] = true;
+            if(x == minX && minX > 0) dirty[tile - 1] = true;
+        }
+        return expanded;
+    }
+
+    /**
+     * This method lowers the distance of a border cell through the cell outside it, if that cell
+     * is free and closer, and adds the border cell to the seeds.
+     */
+    private int seedFrom(int x, int y, int outsideX, int outsideY, long[] seeds, int seedCount){
+        int cell = y*dimension + x;
+        int outside = outsideY*dimension + outsideX;
+        if(distance[outside] == UNREACHED || distance[outside] + 1 >= distance[cell]
+                || grid.isBlocked(outsideX, outsideY)){
+            return seedCount;
+        }
+        distance[cell] = distance[outside] + 1;
+        seeds[seedCount] = pack(distance[cell], cell);
+        return seedCount + 1;
+    }
+
+    /**
+     * This method lowers the distance of a cell of the tile being searched. A blocked cell keeps
+     * its distance, since it can be left, but is not queued, since it cannot be moved into.
+     */
+    private int lower(int x, int y, int nextDistance, int[] queue, int tail){
+        int cell = y*dimension + x;
+        if(nextDistance >= distance[cell]){
+            return tail;
+        }
+        distance[cell] = nextDistance;
+        if(grid.isBlocked(x, y)){
+            return tail;
+        }
+        queue[tail] = cell;
+        return tail + 1;
+    }
+
+    /**
+     * This method sets the direction of every cell of a row that can reach the target, towards a
+     * free neighbor one step closer, looking in the order north, south, east, west.
+     */
+    private void pointRow(int y){
+        for(int x = 0; x < dimension; x++){
+            int cell = y*dimension + x;
+            int cellDistance = distance[cell];
+            if(cellDistance == 0 || cellDistance == UNREACHED){
+                continue;
+            }
+            if(y + 1 < dimension && closer(x, y + 1, cellDistance)) direction[cell] = NORTH;
+            else if(y > 0 && closer(x, y - 1, cellDistance)) direction[cell] = SOUTH;
+            else if(x + 1 < dimension && closer(x + 1, y, cellDistance)) direction[cell] = EAST;
+            else if(x > 0 && closer(x - 1, y, cellDistance)) direction[cell] = WEST;
+        }
+    }
+
+    private boolean closer(int x, int y, int cellDistance){
+        return distance[y*dimension + x] == cellDistance - 1 && !grid.isBlocked(x, y);
+    }
+
+    private static long pack(int cellDistance, int cell){
+        return ((long) cellDistance << 32) | cell;
+    }
+}
@@ -0,0 +1,68 @@
+package grid;
+
+/**
+ * FlowFieldSearch - path finder that answers every query from the FlowField of its ending
+ * position. The field is built once per end and kept by the grid, see Grid.flowField(), so a
+ * batch of queries heading to the same few ends costs one search of the grid per end, and each
+ * query after that only follows its path. The field is shared between threads, so this path
+ * finder holds almost no state of its own.
+ *
+ * @author Danielle Plecki
+ */
+class FlowFieldSearch implements PathFinder {
+    private final int dimension;
+    private Grid grid;
+    private FlowField lastField;
+    private int expandedNodes;
+
+    FlowFieldSearch(Grid grid){
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+    }
+
+    @Override
+    public int getDimension(){
+        return dimension;
+    }
+
+    @Override
+    public Grid getGrid(){
+        return grid;
+    }
+
+    @Override
+    public boolean useGrid(Grid grid){
+        if(grid.getDimension() != dimension){
+            return false;
+        }
+        this.grid = grid;
+        return true;
+    }
+
+    /**
+     * @return number of cells taken off the open set to build the field used by the last search,
+     *         or 0 if this path finder had already used that field
+     */
+    @Override
+    public int expandedNodes(){
+        return expandedNodes;
+    }
+
+    @Override
+    public GridPath findPath(Position startPosition, Position endPosition){
+        int endX = endPosition.getX();
+        int endY = endPosition.getY();
+        if(startPosition.getX() < 0 || startPosition.getY() < 0 || startPosition.getX() >= dimension
+                || startPosition.getY() >= dimension || endX < 0 || endY < 0 || endX >= dimension || endY >= dimension){
+            return null;
+        }
+        if(!grid.connected(startPosition.getX(), startPosition.getY(), endX, endY)){
+            expandedNodes = 0;
+            return null; //No path joins the two regions, so there is no need for a field
+        }
+        FlowField field = grid.flowField(endX, endY);
+        expandedNodes = field == lastField ? 0 : field.expandedNodes();
+        lastField = field;
+        return field.path(startPosition);
+    }
+}
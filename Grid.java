@@ -1,5 +1,7 @@
 package grid;
 
+import java.nio.LongBuffer;
+
 /**
  * Grid - class is used to create an object from a json file, which
  * is then used in other classes to access information about the Grid
@@ -7,17 +9,151 @@ package grid;
  * @author Danielle Plecki
  */
 class Grid {
+    static final int FLOW_FIELDS_KEPT = 4;
+
     private int dimension;
+    //Width and height of grids whose sides differ, or 0 when both are the dimension
+    private transient int width;
+    private transient int height;
     private Position start;
     private Position end;
     private Position[] obstacles;
+    private Query[] queries;
+    //One bit per cell, indexed by y*dimension+x, set when the cell holds an obstacle, see Occupancy.
+    //Transient so that gson neither reads nor writes it.
+    private transient Occupancy occupancy = new FlatOccupancy(LongBuffer.allocate(0));
+    //Counts the changes to the obstacles and the movement model, so that results worked out for one
+    //state can be told apart
+    private transient long version;
+    //Moves and costs used by WeightedSearch
+    private transient MovementModel movementModel = MovementModel.DEFAULT;
+    //Set for the snapshots of a ConcurrentGrid, whose obstacles never change
+    private transient boolean snapshot;
+    //Path finders kept between queries, one of each SearchMode per thread that searches this grid
+    private transient ThreadLocal<PathFinder[]> pathFinders = new ThreadLocal<>();
+    //Canonical position objects for the cells of the grid, created on first use
+    private transient PositionCache positions;
+    //Connected regions of the free cells, labelled when first asked for and kept up to date by setBlocked
+    private transient volatile ComponentIndex components;
+    //Abstract graph used by HierarchicalSearch, built on first use for one cluster size at a time
+    private transient volatile ClusterGraph clusterGraph;
+    //Flow fields of the last few targets asked for, most recent first, built on first use
+    private transient volatile FlowField[] flowFields;
+    //Landmark distance tables used by the ALT mode, set or built on first use
+    private transient volatile LandmarkIndex landmarks;
+
+    Grid() {} //default constructor, used by gson
+
+    /**
+     * This constructor creates a grid straight from an occupancy bitset, without any Position
+     * objects for the obstacles. It is used by loaders that read obstacles into the bitset as
+     * they go, see GridLoader.
+     *
+     * @param dimension width and height of the grid
+     * @param occupancy one bit per cell, indexed by y*dimension+x, set for obstacles
+     */
+    Grid(int dimension, long[] occupancy) {
+        this(dimension, LongBuffer.wrap(occupancy));
+    }
+
+    /**
+     * This constructor creates a grid that reads its obstacles from a buffer of bitset words
+     * without copying them, such as a view of a memory mapped file.
+     *
+     * @param dimension width and height of the grid
+     * @param occupancy one bit per cell, indexed by y*dimension+x, set for obstacles
+     */
+    Grid(int dimension, LongBuffer occupancy) {
+        this(dimension, new FlatOccupancy(occupancy));
+    }
+
+    /**
+     * @param dimension width and height of the grid
+     * @param occupancy obstacles of the grid
+     */
+    Grid(int dimension, Occupancy occupancy) {
+        this.dimension = dimension;
+        this.occupancy = occupancy;
+    }
+
+    /**
+     * This constructor creates a grid whose width and height may differ. The dimension is the
+     * larger side, so the occupancy must report the cells outside the width and height as blocked,
+     * as PagedOccupancy does. Paged grids are searched within their width and height only, see
+     * PagedSearch.
+     *
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid
+     * @param occupancy obstacles of the grid, indexed by y*dimension+x for the larger side
+     */
+    Grid(int width, int height, Occupancy occupancy) {
+        this(Math.max(width, height), occupancy);
+        if(width != height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * This constructor creates an unchangeable snapshot of a grid's state, see ConcurrentGrid.
+     * Snapshots of the same grid share their path finders, which move on to the newest snapshot
+     * a thread searches instead of being created again.
+     *
+     * @param source grid to take the dimension, start, end and queries from
+     * @param occupancy obstacles of the snapshot, which must not change
+     * @param version version number of the snapshot
+     * @param pathFinders path finders shared by all snapshots of the grid
+     */
+    Grid(Grid source, Occupancy occupancy, long version, ThreadLocal<PathFinder[]> pathFinders) {
+        this(source.dimension, occupancy);
+        this.width = source.width;
+        this.height = source.height;
+        this.start = source.start;
+        this.end = source.end;
+        this.queries = source.queries;
+        this.movementModel = source.movementModel;
+        this.version = version;
+        this.snapshot = true;
+        this.pathFinders = pathFinders;
+    }
+
+    /**
+     * This method checks whether the grid reads its obstacles from a tiled grid file, see
+     * PagedGridFormat. Such a grid may hold more cells than an int can number, so it is searched
+     * by PagedSearch whatever the mode, and nothing with an entry for every cell is ever built
+     * for it: no connected regions, cluster graph, flow fields or landmarks.
+     *
+     * @return true for a paged grid
+     */
+    boolean isPaged() {
+        return occupancy instanceof PagedOccupancy;
+    }
 
     int getDimension() {
         return dimension;
     }
 
+    /**
+     * @return number of columns of the grid, which is the dimension unless the grid is not square
+     */
+    int getWidth() {
+        return width == 0 ? dimension : width;
+    }
+
+    /**
+     * @return number of rows of the grid, which is the dimension unless the grid is not square
+     */
+    int getHeight() {
+        return height == 0 ? dimension : height;
+    }
+
     void setDimension(int dimension) {
+        obstacles = getObstacles();
         this.dimension = dimension;
+        width = 0;
+        height = 0;
+        positions = null;
+        indexObstacles();
     }
 
     Position getStart() {
@@ -36,11 +172,407 @@ class Grid {
         this.end = end;
     }
 
+    /**
+     * This method returns the obstacles of the grid. Grids that were loaded straight into the
+     * occupancy bitset have no obstacle array, so one is created from the bitset the first time
+     * it is asked for, listing the obstacles row by row.
+     *
+     * @return positions of all obstacles
+     */
     Position[] getObstacles() {
+        if(obstacles == null && occupancy.wordCount() > 0) {
+            obstacles = listObstacles();
+        }
         return obstacles;
     }
 
+    private Position[] listObstacles() {
+        int count = 0;
+        int words = occupancy.wordCount();
+        for(int wordIndex = 0; wordIndex < words; wordIndex++) {
+            count += Long.bitCount(occupancy.word(wordIndex));
+        }
+        Position[] list = new Position[count];
+        int next = 0;
+        for(int wordIndex = 0; wordIndex < words; wordIndex++) {
+            long word = occupancy.word(wordIndex);
+            while(word != 0) {
+                int cell = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                list[next++] = new Position(cell % dimension, cell / dimension);
+                word &= word - 1;
+            }
+        }
+        return list;
+    }
+
     void setObstacles(Position[] obstacles) {
         this.obstacles = obstacles;
+        indexObstacles();
+    }
+
+    Query[] getQueries() {
+        return queries;
+    }
+
+    void setQueries(Query[] queries) {
+        this.queries = queries;
+    }
+
+    /**
+     * This method checks whether there is an obstacle at a position by looking it up in the
+     * occupancy bitset, so it takes the same time no matter how many obstacles the grid has.
+     * The position must lie inside the grid.
+     *
+     * @param x x coordinate of the position
+     * @param y y coordinate of the position
+     * @return true if there is an obstacle at the position and false if there is not
+     */
+    boolean isBlocked(int x, int y) {
+        return occupancy.isBlocked(x, y, dimension);
+    }
+
+    /**
+     * This method adds or removes an obstacle. A grid that views a memory mapped file is copied
+     * into memory first, since the file is only mapped for reading. The connected regions are
+     * updated to match if they have already been labelled.
+     *
+     * Changing obstacles while other threads are searching the grid is not safe, see ConcurrentGrid
+     * for grids that change while they are searched. Its snapshots cannot be changed, and neither
+     * can paged grids, which would have to be copied into memory whole.
+     *
+     * @param x x coordinate of the position
+     * @param y y coordinate of the position
+     * @param blocked true to add an obstacle and false to remove it
+     */
+    void setBlocked(int x, int y, boolean blocked) {
+        if(x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            throw new IllegalArgumentException("Position x=" + x + ", y=" + y + " is outside the grid");
+        }
+        if(snapshot) {
+            throw new IllegalStateException("A snapshot of a ConcurrentGrid cannot be changed");
+        }
+        if(isPaged()) {
+            throw new IllegalStateException("A paged grid cannot be changed");
+        }
+        if(isBlocked(x, y) == blocked) {
+            return;
+        }
+        if(!(occupancy instanceof FlatOccupancy) || !((FlatOccupancy) occupancy).isWritable()) {
+            occupancy = FlatOccupancy.copyOf(occupancy);
+        }
+        ((FlatOccupancy) occupancy).flip(y*dimension + x);
+        version++;
+        obstacles = null; //listed again from the bitset when asked for
+        clusterGraph = null;
+        flowFields = null;
+        landmarks = null;
+        ComponentIndex index = components;
+        if(index != null) {
+            if(blocked) {
+                index.cellBlocked(x, y);
+            }
+            else {
+                index.cellFreed(x, y);
+            }
+        }
+    }
+
+    /**
+     * This method checks whether a path can exist between two positions inside the grid without
+     * searching for it, using the connected regions of the grid if they have been labelled, see
+     * components(). The labels take an int per cell, 32 times the obstacle bitset, so they are
+     * only made when asked for or when the grid is kept for many queries, see
+     * labelRegionsUpFront(). Without them it only turns down queries whose end is blocked.
+     *
+     * @param startX x coordinate of the starting position
+     * @param startY y coordinate of the starting position
+     * @param endX x coordinate of the ending position
+     * @param endY y coordinate of the ending position
+     * @return false if no path can join the positions
+     */
+    boolean connected(int startX, int startY, int endX, int endY) {
+        ComponentIndex index = components;
+        if(index == null) {
+            return (startX == endX && startY == endY) || !isBlocked(endX, endY);
+        }
+        return index.connected(startX, startY, endX, endY);
+    }
+
+    /**
+     * This method returns the connected regions of the grid's free cells, labelling them the first
+     * time it is called. From then on queries between positions that no path connects are turned
+     * down without searching, see connected() and ComponentIndex. The labels take 4 bytes per cell.
+     *
+     * @return connected regions of the grid
+     * @throws IllegalStateException if the grid is paged
+     */
+    ComponentIndex components() {
+        ComponentIndex index = components;
+        if(index == null) {
+            requireInMemory("connected regions");
+            synchronized(this) {
+                index = components;
+                if(index == null) {
+                    index = new ComponentIndex(this);
+                    components = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * This method labels the connected regions of a grid that many queries are about to be
+     * searched on, see components(). Labelling costs about as much as one search that floods the
+     * whole grid, which every query whose end is walled off from its start would otherwise do.
+     * Paged grids and the snapshots of a ConcurrentGrid are left unlabelled, since labelling would
+     * read every tile or be done again for every snapshot.
+     */
+    void labelRegionsUpFront() {
+        if(!snapshot && !isPaged()) {
+            components();
+        }
+    }
+
+    /**
+     * This method returns the cluster graph of the grid for a cluster size, building it the first
+     * time it is asked for. Only the graph for the last cluster size asked for is kept, and it is
+     * built again after the obstacles change.
+     *
+     * @param clusterSize width and height of the clusters
+     * @return abstract graph of the grid's clusters, see ClusterGraph
+     * @throws IllegalStateException if the grid is paged
+     */
+    ClusterGraph clusterGraph(int clusterSize) {
+        ClusterGraph graph = clusterGraph;
+        if(graph == null || graph.getClusterSize() != clusterSize) {
+            requireInMemory("cluster graph");
+            synchronized(this) {
+                graph = clusterGraph;
+                if(graph == null || graph.getClusterSize() != clusterSize) {
+                    graph = new ClusterGraph(this, clusterSize);
+                    clusterGraph = graph;
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * This method returns the flow field towards a target, building it the first time it is asked
+     * for. The fields of the last FLOW_FIELDS_KEPT targets are kept until the obstacles change.
+     *
+     * @param x x coordinate of the target, inside the grid
+     * @param y y coordinate of the target, inside the grid
+     * @return distances and directions from every cell to the target, see FlowField
+     * @throws IllegalStateException if the grid is paged
+     */
+    FlowField flowField(int x, int y) {
+        int target = y*dimension + x;
+        FlowField field = findFlowField(flowFields, target);
+        if(field == null) {
+            requireInMemory("flow field");
+            synchronized(this) {
+                FlowField[] fields = flowFields;
+                field = findFlowField(fields, target);
+                if(field == null) {
+                    field = new FlowField(this, x, y);
+                    FlowField[] kept = new FlowField[FLOW_FIELDS_KEPT];
+                    kept[0] = field;
+                    if(fields != null) {
+                        System.arraycopy(fields, 0, kept, 1, FLOW_FIELDS_KEPT - 1);
+                    }
+                    flowFields = kept;
+                }
+            }
+        }
+        return field;
+    }
+
+    /**
+     * This method returns the landmark distance tables of the grid, building them with
+     * LandmarkIndex.DEFAULT_COUNT landmarks the first time they are asked for unless they have been
+     * set. They are dropped when the obstacles change.
+     *
+     * @return landmark distance tables for the ALT mode, see LandmarkIndex
+     * @throws IllegalStateException if the grid is paged
+     */
+    LandmarkIndex landmarks() {
+        LandmarkIndex index = landmarks;
+        if(index == null) {
+            requireInMemory("landmarks");
+            synchronized(this) {
+                index = landmarks;
+                if(index == null) {
+                    index = LandmarkIndex.build(this, LandmarkIndex.DEFAULT_COUNT);
+                    landmarks = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * This method sets landmark distance tables built or loaded earlier, see LandmarkIndex.load(),
+     * so that the ALT mode does not have to build them again.
+     *
+     * @param index landmark distance tables for the grid's current obstacles
+     * @throws IllegalArgumentException if the tables were built for other obstacles
+     */
+    void setLandmarks(LandmarkIndex index) {
+        if(!index.matches(this)) {
+            throw new IllegalArgumentException("The landmarks were built for a grid with other obstacles");
+        }
+        landmarks = index;
+    }
+
+    /**
+     * This method turns down building a table with an entry for every cell of a paged grid, which
+     * would have to read every tile of the grid and may not fit in memory.
+     *
+     * @param table name of the table, for the message of the exception
+     * @throws IllegalStateException if the grid is paged
+     */
+    void requireInMemory(String table) {
+        if(isPaged()) {
+            throw new IllegalStateException("The " + table + " of a paged grid would need every cell in memory");
+        }
+    }
+
+    private static FlowField findFlowField(FlowField[] fields, int target) {
+        if(fields != null) {
+            for(FlowField field : fields) {
+                if(field != null && field.getTarget() == target) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method returns the canonical Position object for a cell of the grid, so that callers
+     * looking at the same cells over and over do not allocate a new position each time.
+     *
+     * @param x x coordinate of the position
+     * @param y y coordinate of the position
+     * @return shared position with those coordinates
+     */
+    Position position(int x, int y) {
+        PositionCache cache = positions;
+        if(cache == null) {
+            cache = new PositionCache(dimension);
+            positions = cache;
+        }
+        return cache.get(x, y);
+    }
+
+    /**
+     * This method returns the calling thread's A* search engine for this grid, see pathFinder().
+     *
+     * @return search engine that only the calling thread uses
+     * @throws IllegalStateException if the grid is paged, which is searched by PagedSearch instead
+     */
+    SearchEngine searchEngine() {
+        requireInMemory("search engine");
+        return (SearchEngine) pathFinder(SearchMode.ASTAR);
+    }
+
+    /**
+     * This method returns the calling thread's path finder of a kind for this grid, creating it on
+     * the thread's first query. The path finder keeps its arrays and heap between queries, so repeated
+     * searches on the same grid do not have to allocate them again.
+     *
+     * @param mode kind of search
+     * @return path finder that only the calling thread uses
+     */
+    PathFinder pathFinder(SearchMode mode) {
+        PathFinder[] finders = pathFinders.get();
+        if(finders == null) {
+            finders = new PathFinder[SearchMode.values().length];
+            pathFinders.set(finders);
+        }
+        PathFinder finder = finders[mode.ordinal()];
+        if(finder == null || finder.getDimension() != dimension
+                || (finder.getGrid() != this && !finder.useGrid(this))) {
+            finder = mode.create(this);
+            finders[mode.ordinal()] = finder;
+        }
+        return finder;
+    }
+
+    /**
+     * This method rebuilds the occupancy bitset from the obstacle array. It has to be called once
+     * after gson creates the grid, since gson fills in the fields without going through the setters.
+     * Obstacles that lie outside of the grid are ignored.
+     */
+    void indexObstacles() {
+        long cells = (long) dimension*dimension;
+        long[] index = new long[(int) ((cells + 63) >>> 6)];
+        if(obstacles != null) {
+            for(Position obstacle : obstacles) {
+                int x = obstacle.getX();
+                int y = obstacle.getY();
+                if(x >= 0 && y >= 0 && x < dimension && y < dimension) {
+                    int cell = y*dimension + x;
+                    index[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        occupancy = new FlatOccupancy(LongBuffer.wrap(index));
+        version++;
+        components = null;
+        clusterGraph = null;
+        flowFields = null;
+        landmarks = null;
+    }
+
+    /**
+     * This method gives access to the occupancy bitset, for example to save it to a file. It must
+     * not be changed through a cast.
+     *
+     * @return obstacles of the grid
+     */
+    Occupancy getOccupancy() {
+        return occupancy;
+    }
+
+    MovementModel getMovementModel() {
+        return movementModel;
+    }
+
+    /**
+     * This method sets the moves and costs WeightedSearch uses on the grid. Since it changes the
+     * paths found, the version goes up as it does when the obstacles change.
+     *
+     * @param movementModel moves and costs to use
+     * @throws IllegalArgumentException if the model's terrain does not have one cost per cell
+     * @throws IllegalStateException if the grid is a snapshot of a ConcurrentGrid, or is paged
+     *                               and the model moves diagonally or has terrain
+     */
+    void setMovementModel(MovementModel movementModel) {
+        if(isPaged() && (movementModel.isEightConnected() || movementModel.getTerrain() != null)) {
+            throw new IllegalStateException("A paged grid is only searched four connected without terrain");
+        }
+        byte[] terrain = movementModel.getTerrain();
+        if(terrain != null && terrain.length != dimension*dimension) {
+            throw new IllegalArgumentException("Terrain has " + terrain.length + " costs for "
+                    + dimension*dimension + " cells");
+        }
+        if(snapshot) {
+            throw new IllegalStateException("A snapshot of a ConcurrentGrid cannot be changed");
+        }
+        this.movementModel = movementModel;
+        version++;
+    }
+
+    /**
+     * This method returns the number of times the obstacles or the movement model have changed.
+     * Results worked out for the grid are only valid while the version stays the same.
+     *
+     * @return version of the obstacles and movement model
+     */
+    long getVersion() {
+        return version;
     }
 }
@@ -0,0 +1,230 @@
+package grid;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * GridLoader - class that reads a json grid file as a stream of tokens and writes every obstacle
+ * straight into the grid's occupancy bitset. The file is never held in memory as a whole and no
+ * Position objects are created for obstacles, so large obstacle files load quickly and with a heap
+ * footprint close to one bit per cell.
+ *
+ * The json file holds the same fields that gson used to read: dimension, start, end, obstacles
+ * and optionally queries. Fields may come in any order and unknown fields are skipped. The
+ * dimension may only be given once, since the obstacles are written into a bitset of its size.
+ *
+ * @author Danielle Plecki
+ */
+class GridLoader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private int dimension = -1;
+    private Position start;
+    private Position end;
+    private Query[] queries;
+    private long[] occupancy;
+    //Obstacles read before the dimension is known, as x, y pairs
+    private int[] pending = new int[0];
+    private int pendingCount;
+
+    private GridLoader(){}
+
+    /**
+     * This method loads a json grid file.
+     *
+     * @param filePath location of the json grid
+     * @return Grid object that contains all information needed for the search
+     * @throws IOException throws exception if the file cannot be read or is not a valid grid
+     */
+    static Grid load(Path filePath) throws IOException{
+        try(FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ);
+            Reader reader = new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8)){
+            return load(reader);
+        }
+    }
+
+    /**
+     * This method loads a json grid from a reader, which it buffers itself.
+     *
+     * @param reader source of the json grid
+     * @return Grid object that contains all information needed for the search
+     * @throws IOException throws exception if the json cannot be read or is not a valid grid
+     */
+    static Grid load(Reader reader) throws IOException{
+        JsonReader json = new JsonReader(new BufferedReader(reader, BUFFER_SIZE));
+        GridLoader loader = new GridLoader();
+        loader.readGrid(json);
+        return loader.toGrid();
+    }
+
+    private void readGrid(JsonReader json) throws IOException{
+        json.beginObject();
+        while(json.hasNext()){
+            switch(json.nextName()){
+                case "dimension":
+                    setDimension(json.nextInt());
+                    break;
+                case "start":
+                    start = readPosition(json);
+                    break;
+                case "end":
+                    end = readPosition(json);
+                    break;
+                case "obstacles":
+                    readObstacles(json);
+                    break;
+                case "queries":
+                    readQueries(json);
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    private void setDimension(int newDimension) throws IOException{
+        if(dimension >= 0){
+            throw new IOException("The grid dimension is given more than once");
+        }
+        if(newDimension < 0 || (long) newDimension*newDimension > Integer.MAX_VALUE){
+            throw new IOException("Unsupported grid dimension " + newDimension);
+        }
+        dimension = newDimension;
+        long cells = (long) dimension*dimension;
+        occupancy = new long[(int) ((cells + 63) >>> 6)];
+        for(int i = 0; i < pendingCount; i += 2){
+            markObstacle(pending[i], pending[i + 1]);
+        }
+        pending = null;
+        pendingCount = 0;
+    }
+
+    private void readObstacles(JsonReader json) throws IOException{
+        if(json.peek() == JsonToken.NULL){
+            json.nextNull();
+            return;
+        }
+        json.beginArray();
+        while(json.hasNext()){
+            int x = 0;
+            int y = 0;
+            json.beginObject();
+            while(json.hasNext()){
+                switch(json.nextName()){
+                    case "x":
+                        x = json.nextInt();
+                        break;
+                    case "y":
+                        y = json.nextInt();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            if(occupancy != null){
+                markObstacle(x, y);
+            }
+            else {
+                addPending(x, y);
+            }
+        }
+        json.endArray();
+    }
+
+    /**
+     * This method sets the bit of an obstacle, ignoring obstacles that lie outside of the grid.
+     */
+    private void markObstacle(int x, int y){
+        if(x >= 0 && y >= 0 && x < dimension && y < dimension){
+            int cell = y*dimension + x;
+            occupancy[cell >>> 6] |= 1L << cell;
+        }
+    }
+
+    private void addPending(int x, int y){
+        if(pendingCount + 2 > pending.length){
+            pending = Arrays.copyOf(pending, Math.max(64, pending.length*2));
+        }
+        pending[pendingCount++] = x;
+        pending[pendingCount++] = y;
+    }
+
+    private void readQueries(JsonReader json) throws IOException{
+        if(json.peek() == JsonToken.NULL){
+            json.nextNull();
+            return;
+        }
+        ArrayList<Query> list = new ArrayList<>();
+        json.beginArray();
+        while(json.hasNext()){
+            Position queryStart = null;
+            Position queryEnd = null;
+            json.beginObject();
+            while(json.hasNext()){
+                switch(json.nextName()){
+                    case "start":
+                        queryStart = readPosition(json);
+                        break;
+                    case "end":
+                        queryEnd = readPosition(json);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            list.add(new Query(queryStart, queryEnd));
+        }
+        json.endArray();
+        queries = list.toArray(new Query[0]);
+    }
+
+    private static Position readPosition(JsonReader json) throws IOException{
+        if(json.peek() == JsonToken.NULL){
+            json.nextNull();
+            return null;
+        }
+        int x = 0;
+        int y = 0;
+        json.beginObject();
+        while(json.hasNext()){
+            switch(json.nextName()){
+                case "x":
+                    x = json.nextInt();
+                    break;
+                case "y":
+                    y = json.nextInt();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new Position(x, y);
+    }
+
+    private Grid toGrid() throws IOException{
+        if(occupancy == null){
+            setDimension(0);
+        }
+        Grid grid = new Grid(dimension, occupancy);
+        grid.setStart(start);
+        grid.setEnd(end);
+        grid.setQueries(queries);
+        return grid;
+    }
+}
@@ -0,0 +1,103 @@
+package grid;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * GridPath - class that holds a path found on a grid. The coordinates of the positions are
+ * packed into one int array as x0, y0, x1, y1, ... in order from the starting position to
+ * the ending position, so a path costs two ints per position no matter how long it is.
+ *
+ * @author Danielle Plecki
+ */
+class GridPath implements Iterable<Position> {
+    private final int[] coordinates;
+    private final double cost;
+
+    /**
+     * @param coordinates packed x and y coordinates from starting position to ending position,
+     *                    which the path takes ownership of
+     * @param cost total movement cost of the path
+     */
+    GridPath(int[] coordinates, double cost){
+        this.coordinates = coordinates;
+        this.cost = cost;
+    }
+
+    /**
+     * @return number of positions on the path, including the starting and ending positions
+     */
+    int length(){
+        return coordinates.length / 2;
+    }
+
+    /**
+     * @return total movement cost of moving along the path from start to end
+     */
+    double cost(){
+        return cost;
+    }
+
+    int getX(int index){
+        return coordinates[2*index];
+    }
+
+    int getY(int index){
+        return coordinates[2*index + 1];
+    }
+
+    /**
+     * This method creates a Position for one step of the path. Callers that only need the
+     * coordinates should use getX() and getY() instead.
+     *
+     * @param index step of the path, 0 being the starting position
+     * @return position at that step
+     */
+    Position get(int index){
+        return new Position(getX(index), getY(index));
+    }
+
+    Position getStart(){
+        return get(0);
+    }
+
+    Position getEnd(){
+        return get(length() - 1);
+    }
+
+    /**
+     * This method iterates over the positions of the path in order from the starting position
+     * to the ending position.
+     *
+     * @return iterator over the positions of the path
+     */
+    @Override
+    public Iterator<Position> iterator(){
+        return new Iterator<Position>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext(){
+                return next < length();
+            }
+
+            @Override
+            public Position next(){
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * This method formats the path the way AStar.algorithm always has, see PathFormatter.
+     *
+     * @return string of path from ending position to starting
+     */
+    @Override
+    public String toString(){
+        return PathFormatter.format(this);
+    }
+}
@@ -0,0 +1,106 @@
+package grid;
+
+/**
+ * HierarchicalPath - path found by HierarchicalSearch, made of waypoints where each pair of
+ * waypoints next to each other either face each other across a cluster border or lie in the
+ * same cluster. The cost is known as soon as the path is found. The cells between waypoints are
+ * filled in lazily, one pair at a time, by searching only the cluster the pair lies in, so a
+ * caller that only needs the cost or the first few steps never pays for the whole path.
+ *
+ * A path is not thread safe while it is being filled in.
+ *
+ * @author Danielle Plecki
+ */
+class HierarchicalPath {
+    private final Grid grid;
+    private final int clusterSize;
+    private final int dimension;
+    private final int[] waypoints; //cell indexes y*dimension+x, from start to end
+    private final int cost;
+    private final int[] coordinates; //packed x and y of every cell, filled in from the start
+    private int filledCells;
+    private int filledWaypoints;
+    private ClusterWindow window;
+
+    HierarchicalPath(Grid grid, int clusterSize, int[] waypoints, int cost){
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+        this.dimension = grid.getDimension();
+        this.waypoints = waypoints;
+        this.cost = cost;
+        coordinates = new int[2*(cost + 1)];
+        coordinates[0] = waypoints[0] % dimension;
+        coordinates[1] = waypoints[0] / dimension;
+        filledCells = 1;
+        filledWaypoints = 1;
+    }
+
+    /**
+     * @return number of steps from start to end
+     */
+    int cost(){
+        return cost;
+    }
+
+    int waypointCount(){
+        return waypoints.length;
+    }
+
+    Position getWaypoint(int index){
+        return new Position(waypoints[index] % dimension, waypoints[index] / dimension);
+    }
+
+    /**
+     * This method returns the beginning of the path, filling in only as many waypoints as needed.
+     *
+     * @param steps number of steps wanted
+     * @return path of the first steps from the start, or the whole path if it is shorter
+     */
+    GridPath firstSteps(int steps){
+        int cells = Math.min(steps, cost) + 1;
+        while(filledCells < cells){
+            fillNextWaypoint();
+        }
+        int[] prefix = new int[2*cells];
+        System.arraycopy(coordinates, 0, prefix, 0, prefix.length);
+        return new GridPath(prefix, cells - 1);
+    }
+
+    /**
+     * @return the whole path with every cell filled in
+     */
+    GridPath toGridPath(){
+        return firstSteps(cost);
+    }
+
+    /**
+     * This method fills in the cells from the last filled waypoint to the next one. Waypoints in
+     * different clusters face each other across a border and are one step apart, the others are
+     * joined with a search of their cluster.
+     */
+    private void fillNextWaypoint(){
+        int from = waypoints[filledWaypoints - 1];
+        int to = waypoints[filledWaypoints++];
+        int fromX = from % dimension;
+        int fromY = from / dimension;
+        int toX = to % dimension;
+        int toY = to / dimension;
+        if(from == to){
+            return;
+        }
+        if(fromX / clusterSize != toX / clusterSize || fromY / clusterSize != toY / clusterSize){
+            coordinates[2*filledCells] = toX;
+            coordinates[2*filledCells + 1] = toY;
+            filledCells++;
+            return;
+        }
+        if(window == null){
+            window = new ClusterWindow(grid, clusterSize);
+        }
+        window.search(fromX, fromY);
+        int distance = window.distance(toX, toY);
+        //The search writes the starting cell as well, over the copy already filled in
+        window.writePath(toX, toY, coordinates, filledCells - 1);
+        filledCells += distance;
+    }
+}
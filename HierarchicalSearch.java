@@ -0,0 +1,349 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * HierarchicalSearch - hierarchical path finding (HPA*) for very large grids. Instead of searching
+ * cell by cell, it searches the much smaller ClusterGraph of the grid: the starting and ending
+ * positions are joined to the nodes of their clusters with a search of just those two clusters,
+ * and A* then runs over the graph's nodes, where one step crosses a whole cluster. The result is
+ * a HierarchicalPath of waypoints whose cost is known right away; the cells between waypoints are
+ * only filled in when they are asked for.
+ *
+ * The paths are close to the shortest but not always the shortest, since they go through the
+ * chosen transitions of each entrance. Larger clusters make the graph smaller and the search
+ * faster, at the price of longer searches inside the start and end clusters.
+ *
+ * @author Danielle Plecki
+ */
+class HierarchicalSearch implements PathFinder {
+    static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+    private static final int NO_PARENT = -1;
+
+    private Grid grid;
+    private final int dimension;
+    private final int clusterSize;
+    private final ClusterWindow window;
+    private ClusterGraph graph;
+    //Search state per graph node, with two extra nodes for the starting and ending positions
+    private int startNode;
+    private int endNode;
+    private int[] gScore;
+    private int[] cameFrom;
+    private byte[] state;
+    private int[] searchStamp;
+    private int currentSearch;
+    private IndexedMinHeap openSet;
+    private int expandedNodes;
+    //Edges from the starting position to the nodes it reaches inside its cluster. The cell each
+    //edge leaves the start through is kept as well, since a blocked start can only be left
+    //through its free neighbors, which may lie in other clusters.
+    private int startEdgeCount;
+    private int[] startEdgeNode = new int[8];
+    private int[] startEdgeCost = new int[8];
+    private int[] startEdgeVia = new int[8];
+    private int startToEnd;
+    private int startToEndVia;
+    //Distances from the nodes of the ending position's cluster to the end, -1 where there is no
+    //path inside the cluster
+    private int[] endCost = new int[0];
+    private int endCluster;
+    private int endX;
+    private int endY;
+
+    HierarchicalSearch(Grid grid){
+        this(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * @param grid grid to search
+     * @param clusterSize width and height of the clusters, at least 2
+     */
+    HierarchicalSearch(Grid grid, int clusterSize){
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+        this.clusterSize = clusterSize;
+        this.window = new ClusterWindow(grid, clusterSize);
+        useGraph(grid.clusterGraph(clusterSize));
+    }
+
+    /**
+     * This method sizes the search state for a cluster graph. A new graph is built whenever the
+     * obstacles of the grid change, so the graph is looked up again before every search.
+     */
+    private void useGraph(ClusterGraph clusterGraph){
+        graph = clusterGraph;
+        int nodes = graph.nodeCount() + 2;
+        startNode = nodes - 2;
+        endNode = nodes - 1;
+        gScore = new int[nodes];
+        cameFrom = new int[nodes];
+        state = new byte[nodes];
+        searchStamp = new int[nodes];
+        currentSearch = 0;
+        openSet = new IndexedMinHeap(nodes);
+    }
+
+    @Override
+    public int getDimension(){
+        return dimension;
+    }
+
+    @Override
+    public Grid getGrid(){
+        return grid;
+    }
+
+    /**
+     * This method moves the search on to another grid of the same dimension, such as a newer
+     * snapshot of a ConcurrentGrid. Its cluster graph is looked up on the next search, as it is
+     * before every search.
+     */
+    @Override
+    public boolean useGrid(Grid grid){
+        if(grid.getDimension() != dimension){
+            return false;
+        }
+        this.grid = grid;
+        window.useGrid(grid);
+        return true;
+    }
+
+    /**
+     * @return number of graph nodes taken off the open set during the last search
+     */
+    @Override
+    public int expandedNodes(){
+        return expandedNodes;
+    }
+
+    @Override
+    public void collectStats(SearchStats stats){
+        stats.countSearch(expandedNodes, openSet);
+    }
+
+    @Override
+    public GridPath findPath(Position startPosition, Position endPosition){
+        HierarchicalPath path = findHierarchicalPath(startPosition, endPosition);
+        return path == null ? null : path.toGridPath();
+    }
+
+    /**
+     * This method searches the cluster graph for a path between two positions without filling
+     * in the cells between its waypoints.
+     *
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return path from starting position to ending, or null if there is no path
+     */
+    HierarchicalPath findHierarchicalPath(Position startPosition, Position endPosition){
+        int startX = startPosition.getX();
+        int startY = startPosition.getY();
+        endX = endPosition.getX();
+        endY = endPosition.getY();
+        expandedNodes = 0;
+        if(!inBounds(startX, startY) || !inBounds(endX, endY)
+                || !grid.connected(startX, startY, endX, endY)){
+            return null;
+        }
+        int startCell = startY*dimension + startX;
+        int endCell = endY*dimension + endX;
+        if(startCell == endCell){
+            return new HierarchicalPath(grid, clusterSize, new int[]{startCell}, 0);
+        }
+        ClusterGraph clusterGraph = grid.clusterGraph(clusterSize);
+        if(clusterGraph != graph){
+            useGraph(clusterGraph);
+        }
+        endCluster = graph.clusterOf(endCell);
+
+        //Join the start and the end to the nodes of their clusters
+        joinStart(startX, startY);
+        int first = graph.firstNode(endCluster);
+        int count = graph.endNode(endCluster) - first;
+        if(endCost.length < count){
+            endCost = new int[Math.max(count, 2*endCost.length)];
+        }
+        window.search(endX, endY);
+        for(int i = 0; i < count; i++){
+            int cell = graph.cellOf(first + i);
+            endCost[i] = window.distance(cell % dimension, cell / dimension);
+        }
+
+        if(!search()){
+            return null;
+        }
+        return new HierarchicalPath(grid, clusterSize, waypoints(startCell, endCell), gScore[endNode]);
+    }
+
+    /**
+     * This method adds the edges from the starting position. A free start is searched from
+     * directly; a blocked one is stepped off first, like the other searches do, by searching
+     * from each of its free neighbors.
+     */
+    private void joinStart(int startX, int startY){
+        startEdgeCount = 0;
+        startToEnd = -1;
+        if(!grid.isBlocked(startX, startY)){
+            joinStartThrough(startX, startY, 0);
+            return;
+        }
+        if(startY + 1 < dimension && !grid.isBlocked(startX, startY + 1)) joinStartThrough(startX, startY + 1, 1);
+        if(startY > 0 && !grid.isBlocked(startX, startY - 1)) joinStartThrough(startX, startY - 1, 1);
+        if(startX + 1 < dimension && !grid.isBlocked(startX + 1, startY)) joinStartThrough(startX + 1, startY, 1);
+        if(startX > 0 && !grid.isBlocked(startX - 1, startY)) joinStartThrough(startX - 1, startY, 1);
+    }
+
+    private void joinStartThrough(int x, int y, int steps){
+        int via = y*dimension + x;
+        int cluster = graph.clusterOf(via);
+        window.search(x, y);
+        for(int node = graph.firstNode(cluster); node < graph.endNode(cluster); node++){
+            int cell = graph.cellOf(node);
+            int distance = window.distance(cell % dimension, cell / dimension);
+            if(distance >= 0){
+                addStartEdge(node, steps + distance, via);
+            }
+        }
+        if(cluster == endCluster){
+            int distance = window.distance(endX, endY);
+            if(distance >= 0 && (startToEnd < 0 || steps + distance < startToEnd)){
+                startToEnd = steps + distance;
+                startToEndVia = via;
+            }
+        }
+    }
+
+    private void addStartEdge(int node, int cost, int via){
+        for(int i = 0; i < startEdgeCount; i++){
+            if(startEdgeNode[i] == node){
+                if(cost < startEdgeCost[i]){
+                    startEdgeCost[i] = cost;
+                    startEdgeVia[i] = via;
+                }
+                return;
+            }
+        }
+        if(startEdgeCount == startEdgeNode.length){
+            startEdgeNode = Arrays.copyOf(startEdgeNode, 2*startEdgeCount);
+            startEdgeCost = Arrays.copyOf(startEdgeCost, 2*startEdgeCount);
+            startEdgeVia = Arrays.copyOf(startEdgeVia, 2*startEdgeCount);
+        }
+        startEdgeNode[startEdgeCount] = node;
+        startEdgeCost[startEdgeCount] = cost;
+        startEdgeVia[startEdgeCount++] = via;
+    }
+
+    /**
+     * This method follows the parents back from the end and lists the cells of the nodes on the
+     * way, with the cell the start was left through after the start itself.
+     */
+    private int[] waypoints(int startCell, int endCell){
+        int nodeCount = 0;
+        for(int node = endNode; node != NO_PARENT; node = cameFrom[node]){
+            nodeCount++;
+        }
+        int[] nodes = new int[nodeCount];
+        int node = endNode;
+        for(int i = nodeCount - 1; i >= 0; i--){
+            nodes[i] = node;
+            node = cameFrom[node];
+        }
+        int via = startToEndVia;
+        for(int i = 0; i < startEdgeCount; i++){
+            if(startEdgeNode[i] == nodes[1]){
+                via = startEdgeVia[i];
+            }
+        }
+        int offset = via == startCell ? 0 : 1;
+        int[] waypoints = new int[nodeCount + offset];
+        waypoints[0] = startCell;
+        waypoints[offset] = via;
+        for(int i = 1; i < nodeCount; i++){
+            waypoints[i + offset] = nodes[i] == endNode ? endCell : graph.cellOf(nodes[i]);
+        }
+        return waypoints;
+    }
+
+    private boolean search(){
+        reset();
+        gScore[startNode] = 0;
+        cameFrom[startNode] = NO_PARENT;
+        state[startNode] = OPEN;
+        searchStamp[startNode] = currentSearch;
+        openSet.insert(startNode, 0);
+
+        while(!openSet.isEmpty()){
+            int current = openSet.poll();
+            expandedNodes++;
+            if(current == endNode){
+                return true;
+            }
+            state[current] = CLOSED;
+            int currentScore = gScore[current];
+            if(current == startNode){
+                for(int i = 0; i < startEdgeCount; i++){
+                    relax(current, startEdgeNode[i], currentScore + startEdgeCost[i]);
+                }
+                if(startToEnd >= 0){
+                    relax(current, endNode, currentScore + startToEnd);
+                }
+                continue;
+            }
+            for(int edge = graph.firstEdge(current); edge < graph.endEdge(current); edge++){
+                relax(current, graph.edgeTarget(edge), currentScore + graph.edgeCost(edge));
+            }
+            int first = graph.firstNode(endCluster);
+            if(current >= first && current < graph.endNode(endCluster) && endCost[current - first] >= 0){
+                relax(current, endNode, currentScore + endCost[current - first]);
+            }
+        }
+        return false;
+    }
+
+    private void relax(int current, int neighbor, int tentative){
+        boolean seen = searchStamp[neighbor] == currentSearch;
+        if(seen && (state[neighbor] == CLOSED || tentative >= gScore[neighbor])){
+            return;
+        }
+        gScore[neighbor] = tentative;
+        cameFrom[neighbor] = current;
+        double fScore = tentative + hEstimate(neighbor);
+        if(seen){
+            openSet.decreaseKey(neighbor, fScore);
+        }
+        else {
+            state[neighbor] = OPEN;
+            searchStamp[neighbor] = currentSearch;
+            openSet.insert(neighbor, fScore);
+        }
+    }
+
+    /**
+     * This method is the Manhattan distance from a node to the end, which never overestimates
+     * since every edge costs at least as much as the steps it covers.
+     */
+    private int hEstimate(int node){
+        if(node == endNode){
+            return 0;
+        }
+        int cell = graph.cellOf(node);
+        return Math.abs(cell % dimension - endX) + Math.abs(cell / dimension - endY);
+    }
+
+    private void reset(){
+        openSet.clear();
+        currentSearch++;
+        if(currentSearch == 0){
+            Arrays.fill(searchStamp, 0);
+            currentSearch = 1;
+        }
+    }
+
+    private boolean inBounds(int x, int y){
+        return x >= 0 && y >= 0 && x < dimension && y < dimension;
+    }
+}
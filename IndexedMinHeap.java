@@ -0,0 +1,231 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * IndexedMinHeap - binary min-heap of integer keys ordered by a double priority. Each
+ * key in the range [0, capacity) can be in the heap at most once, and its position in
+ * the heap is tracked so that membership checks are constant time and a key's priority
+ * can be lowered in place (decrease-key).
+ *
+ * Keys with equal priority are returned in the order they were first inserted.
+ *
+ * @author Danielle Plecki
+ */
+class IndexedMinHeap {
+    private static final int ABSENT = -1;
+
+    private int[] heap;        //heap[i] = key stored at heap slot i
+    private int[] slotOfKey;   //slotOfKey[key] = heap slot of key, or ABSENT
+    private double[] priority; //priority[key] = current priority of key
+    private long[] order;      //order[key] = insertion sequence, used to break ties
+    private long nextOrder;
+    private int size;
+    //Operations since the last clear(), read by SearchStats
+    private int inserts;
+    private int decreases;
+    private int polls;
+    private int peakSize;
+
+    IndexedMinHeap(int capacity){
+        heap = new int[capacity];
+        slotOfKey = new int[capacity];
+        priority = new double[capacity];
+        order = new long[capacity];
+        Arrays.fill(slotOfKey, ABSENT);
+    }
+
+    /**
+     * @return number of keys the heap can hold, the keys being 0 up to one less
+     */
+    int capacity(){
+        return slotOfKey.length;
+    }
+
+    /**
+     * This method makes room for larger keys, for searches that number their cells as they reach
+     * them and do not know in advance how many they will reach. The keys in the heap stay.
+     *
+     * @param capacity number of keys the heap must be able to hold
+     */
+    void ensureCapacity(int capacity){
+        int oldCapacity = slotOfKey.length;
+        if(capacity <= oldCapacity){
+            return;
+        }
+        heap = Arrays.copyOf(heap, capacity);
+        slotOfKey = Arrays.copyOf(slotOfKey, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        order = Arrays.copyOf(order, capacity);
+        Arrays.fill(slotOfKey, oldCapacity, capacity, ABSENT);
+    }
+
+    int size(){
+        return size;
+    }
+
+    boolean isEmpty(){
+        return size == 0;
+    }
+
+    boolean contains(int key){
+        return slotOfKey[key] != ABSENT;
+    }
+
+    /**
+     * This method returns the priority the key was last inserted or decreased with.
+     *
+     * @param key key in the heap
+     * @return current priority of the key
+     */
+    double priorityOf(int key){
+        return priority[key];
+    }
+
+    /**
+     * This method adds a key that is not currently in the heap.
+     *
+     * @param key key to add
+     * @param keyPriority priority of the key
+     */
+    void insert(int key, double keyPriority){
+        priority[key] = keyPriority;
+        order[key] = nextOrder++;
+        heap[size] = key;
+        slotOfKey[key] = size;
+        siftUp(size++);
+        inserts++;
+        if(size > peakSize){
+            peakSize = size;
+        }
+    }
+
+    /**
+     * This method lowers the priority of a key that is already in the heap. The key keeps
+     * its original insertion order for tie-breaking.
+     *
+     * @param key key in the heap
+     * @param keyPriority new priority, which must not be greater than the current one
+     */
+    void decreaseKey(int key, double keyPriority){
+        priority[key] = keyPriority;
+        siftUp(slotOfKey[key]);
+        decreases++;
+    }
+
+    /**
+     * This method returns the key with the lowest priority without removing it.
+     *
+     * @return key with the lowest priority
+     */
+    int peek(){
+        return heap[0];
+    }
+
+    /**
+     * This method removes and returns the key with the lowest priority.
+     *
+     * @return key with the lowest priority
+     */
+    int poll(){
+        int top = heap[0];
+        slotOfKey[top] = ABSENT;
+        size--;
+        polls++;
+        if(size > 0){
+            heap[0] = heap[size];
+            slotOfKey[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * This method removes every key from the heap and sets the operation counts back to zero.
+     * Only the slots that are in use are touched, so clearing a small heap with a large capacity
+     * is cheap.
+     */
+    void clear(){
+        for(int i = 0; i < size; i++){
+            slotOfKey[heap[i]] = ABSENT;
+        }
+        size = 0;
+        inserts = 0;
+        decreases = 0;
+        polls = 0;
+        peakSize = 0;
+    }
+
+    /**
+     * @return keys inserted since the last clear()
+     */
+    int insertCount(){
+        return inserts;
+    }
+
+    /**
+     * @return priorities lowered since the last clear()
+     */
+    int decreaseCount(){
+        return decreases;
+    }
+
+    /**
+     * @return keys polled since the last clear()
+     */
+    int pollCount(){
+        return polls;
+    }
+
+    /**
+     * @return most keys the heap has held at once since the last clear()
+     */
+    int peakSize(){
+        return peakSize;
+    }
+
+    private boolean less(int keyA, int keyB){
+        if(priority[keyA] != priority[keyB]){
+            return priority[keyA] < priority[keyB];
+        }
+        return order[keyA] < order[keyB];
+    }
+
+    private void siftUp(int slot){
+        int key = heap[slot];
+        while(slot > 0){
+            int parentSlot = (slot - 1) >>> 1;
+            int parentKey = heap[parentSlot];
+            if(!less(key, parentKey)){
+                break;
+            }
+            heap[slot] = parentKey;
+            slotOfKey[parentKey] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = key;
+        slotOfKey[key] = slot;
+    }
+
+    private void siftDown(int slot){
+        int key = heap[slot];
+        int half = size >>> 1;
+        while(slot < half){
+            int childSlot = 2*slot + 1;
+            int childKey = heap[childSlot];
+            int rightSlot = childSlot + 1;
+            if(rightSlot < size && less(heap[rightSlot], childKey)){
+                childSlot = rightSlot;
+                childKey = heap[rightSlot];
+            }
+            if(!less(childKey, key)){
+                break;
+            }
+            heap[slot] = childKey;
+            slotOfKey[childKey] = slot;
+            slot = childSlot;
+        }
+        heap[slot] = key;
+        slotOfKey[key] = slot;
+    }
+}
@@ -0,0 +1,278 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * JumpPointSearch - Jump Point Search for grids where each step goes north, south, east or west
+ * and costs 1. Instead of adding every neighbor to the open set, the search jumps along straight
+ * lines and only stops at jump points: the end position, cells next to an obstacle corner where
+ * the path may have to turn (forced neighbors), and, when moving vertically, cells from which a
+ * horizontal jump reaches such a point. Paths that only differ in the order of their moves are
+ * pruned this way, so open areas are crossed with a handful of expansions.
+ *
+ * The paths have the same optimal length as the ones SearchEngine finds, but where several shortest
+ * paths exist a different one of them may be returned. Like SearchEngine, the state lives in flat
+ * arrays indexed by y*dimension+x that are stamped with a search number instead of being cleared.
+ *
+ * @author Danielle Plecki
+ */
+class JumpPointSearch implements PathFinder {
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+    private static final int NO_PARENT = -1;
+    private static final int NONE = -1;
+
+    private Grid grid;
+    private final int dimension;
+    private final int[] gScore;
+    private final int[] cameFrom;
+    private final byte[] state;
+    private final int[] searchStamp;
+    private int currentSearch;
+    private final IndexedMinHeap openSet;
+    private int expandedNodes;
+    private int endCell;
+
+    JumpPointSearch(Grid grid){
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+        int cells = dimension*dimension;
+        gScore = new int[cells];
+        cameFrom = new int[cells];
+        state = new byte[cells];
+        searchStamp = new int[cells];
+        openSet = new IndexedMinHeap(cells);
+    }
+
+    @Override
+    public int getDimension(){
+        return dimension;
+    }
+
+    @Override
+    public Grid getGrid(){
+        return grid;
+    }
+
+    @Override
+    public boolean useGrid(Grid grid){
+        if(grid.getDimension() != dimension){
+            return false;
+        }
+        this.grid = grid;
+        return true;
+    }
+
+    @Override
+    public int expandedNodes(){
+        return expandedNodes;
+    }
+
+    @Override
+    public void collectStats(SearchStats stats){
+        stats.countSearch(expandedNodes, openSet);
+    }
+
+    @Override
+    public void traceExpanded(SearchTrace trace){
+        trace.countClosed(expandedNodes, searchStamp, currentSearch, state, CLOSED);
+    }
+
+    @Override
+    public GridPath findPath(Position startPosition, Position endPosition){
+        if(!inBounds(startPosition.getX(), startPosition.getY())
+                || !inBounds(endPosition.getX(), endPosition.getY())){
+            return null;
+        }
+        if(!grid.connected(startPosition.getX(), startPosition.getY(),
+                endPosition.getX(), endPosition.getY())){
+            expandedNodes = 0;
+            return null; //No path joins the two regions, so there is nothing to search
+        }
+        int startCell = startPosition.getY()*dimension + startPosition.getX();
+        endCell = endPosition.getY()*dimension + endPosition.getX();
+        if(!search(startCell)){
+            return null;
+        }
+        return constructShortestPath();
+    }
+
+    private boolean search(int startCell){
+        reset();
+        gScore[startCell] = 0;
+        cameFrom[startCell] = NO_PARENT;
+        state[startCell] = OPEN;
+        searchStamp[startCell] = currentSearch;
+        openSet.insert(startCell, hEstimate(startCell));
+
+        while(!openSet.isEmpty()){
+            int currentCell = openSet.poll();
+            expandedNodes++;
+            if(currentCell == endCell){
+                return true;
+            }
+            state[currentCell] = CLOSED;
+            int x = currentCell % dimension;
+            int y = currentCell / dimension;
+            int parent = cameFrom[currentCell];
+            if(parent == NO_PARENT){
+                addJumpPoint(currentCell, jumpVertical(x, y, 1));
+                addJumpPoint(currentCell, jumpVertical(x, y, -1));
+                addJumpPoint(currentCell, jumpHorizontal(x, y, 1));
+                addJumpPoint(currentCell, jumpHorizontal(x, y, -1));
+            }
+            else if(parent / dimension == y){
+                //Arrived moving horizontally: keep going, or turn north or south
+                int dx = x > parent % dimension ? 1 : -1;
+                addJumpPoint(currentCell, jumpHorizontal(x, y, dx));
+                addJumpPoint(currentCell, jumpVertical(x, y, 1));
+                addJumpPoint(currentCell, jumpVertical(x, y, -1));
+            }
+            else {
+                //Arrived moving vertically: keep going, or turn east or west
+                int dy = y > parent / dimension ? 1 : -1;
+                addJumpPoint(currentCell, jumpVertical(x, y, dy));
+                addJumpPoint(currentCell, jumpHorizontal(x, y, 1));
+                addJumpPoint(currentCell, jumpHorizontal(x, y, -1));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method adds a jump point found from the current cell to the open set, or lowers its
+     * G score if it is already there. The cost of the jump is the number of cells moved, since
+     * jumps go in a straight line.
+     */
+    private void addJumpPoint(int currentCell, int jumpCell){
+        if(jumpCell == NONE){
+            return;
+        }
+        boolean seen = searchStamp[jumpCell] == currentSearch;
+        if(seen && state[jumpCell] == CLOSED){
+            return;
+        }
+        int distance = Math.abs(jumpCell % dimension - currentCell % dimension)
+                + Math.abs(jumpCell / dimension - currentCell / dimension);
+        int tentative = gScore[currentCell] + distance;
+        if(seen && tentative >= gScore[jumpCell]){
+            return;
+        }
+        gScore[jumpCell] = tentative;
+        cameFrom[jumpCell] = currentCell;
+        double fScore = tentative + hEstimate(jumpCell);
+        if(seen){
+            openSet.decreaseKey(jumpCell, fScore);
+        }
+        else {
+            state[jumpCell] = OPEN;
+            searchStamp[jumpCell] = currentSearch;
+            openSet.insert(jumpCell, fScore);
+        }
+    }
+
+    /**
+     * This method moves from a cell east (dx = 1) or west (dx = -1) until it reaches the end, a
+     * cell with a forced neighbor to the north or south, or an obstacle.
+     *
+     * @return cell index of the jump point, or NONE if the line runs into an obstacle or the edge
+     */
+    private int jumpHorizontal(int x, int y, int dx){
+        while(true){
+            x += dx;
+            if(!isFree(x, y)){
+                return NONE;
+            }
+            int cell = y*dimension + x;
+            if(cell == endCell){
+                return cell;
+            }
+            if((isFree(x, y - 1) && !isFree(x - dx, y - 1)) || (isFree(x, y + 1) && !isFree(x - dx, y + 1))){
+                return cell;
+            }
+        }
+    }
+
+    /**
+     * This method moves from a cell north (dy = 1) or south (dy = -1) until it reaches the end, a
+     * cell with a forced neighbor to the east or west, a cell from which a horizontal jump finds a
+     * jump point, or an obstacle.
+     *
+     * @return cell index of the jump point, or NONE if the line runs into an obstacle or the edge
+     */
+    private int jumpVertical(int x, int y, int dy){
+        while(true){
+            y += dy;
+            if(!isFree(x, y)){
+                return NONE;
+            }
+            int cell = y*dimension + x;
+            if(cell == endCell){
+                return cell;
+            }
+            if((isFree(x - 1, y) && !isFree(x - 1, y - dy)) || (isFree(x + 1, y) && !isFree(x + 1, y - dy))){
+                return cell;
+            }
+            if(jumpHorizontal(x, y, 1) != NONE || jumpHorizontal(x, y, -1) != NONE){
+                return cell;
+            }
+        }
+    }
+
+    private boolean isFree(int x, int y){
+        return inBounds(x, y) && !grid.isBlocked(x, y);
+    }
+
+    private boolean inBounds(int x, int y){
+        return x >= 0 && y >= 0 && x < dimension && y < dimension;
+    }
+
+    /**
+     * This method is the Manhattan distance to the end, which never overestimates when every
+     * step is north, south, east or west.
+     */
+    private int hEstimate(int cell){
+        return Math.abs(cell % dimension - endCell % dimension) + Math.abs(cell / dimension - endCell / dimension);
+    }
+
+    private void reset(){
+        openSet.clear();
+        expandedNodes = 0;
+        currentSearch++;
+        if(currentSearch == 0){
+            Arrays.fill(searchStamp, 0);
+            currentSearch = 1;
+        }
+    }
+
+    /**
+     * This method follows the jump points back from the end to the start and fills in the
+     * straight lines between them, so the path lists every cell it moves through.
+     */
+    private GridPath constructShortestPath(){
+        int length = gScore[endCell] + 1;
+        int[] coordinates = new int[2*length];
+        int index = length - 1;
+        int cell = endCell;
+        int x = cell % dimension;
+        int y = cell / dimension;
+        coordinates[2*index] = x;
+        coordinates[2*index + 1] = y;
+        while(cameFrom[cell] != NO_PARENT){
+            int parent = cameFrom[cell];
+            int parentX = parent % dimension;
+            int parentY = parent / dimension;
+            int stepX = Integer.signum(parentX - x);
+            int stepY = Integer.signum(parentY - y);
+            while(x != parentX || y != parentY){
+                x += stepX;
+                y += stepY;
+                index--;
+                coordinates[2*index] = x;
+                coordinates[2*index + 1] = y;
+            }
+            cell = parent;
+        }
+        return new GridPath(coordinates, gScore[endCell]);
+    }
+}
@@ -0,0 +1,381 @@
+package grid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * LandmarkIndex - exact distances from a few landmark cells to every cell of a grid, used by the
+ * ALT search mode (A*, Landmarks and the Triangle inequality). For any landmark L the triangle
+ * inequality gives
+ *
+ *  distance(cell, end) >= |distance(L, end) - distance(L, cell)|
+ *
+ * so the largest of these over all landmarks is a lower bound on the length of the path, and a
+ * consistent heuristic. On maps full of obstacles it is far closer to the real distance than the
+ * straight line distance, which knows nothing about the walls in the way, so A* expands far fewer
+ * cells.
+ *
+ * The landmarks are picked by farthest point selection among the cells of the grid's largest
+ * region: the first is the cell farthest from the middle of the grid and each next one the cell
+ * farthest from all landmarks picked so far, measured by Manhattan distance. Landmarks spread out
+ * towards the edges of the map like this give the best bounds. Since the picking does not need
+ * the distance tables, the table of each landmark is then built by its own breadth first search,
+ * all of them in parallel. Cells a landmark cannot reach have a distance of UNREACHED in its
+ * table and get no bound from it.
+ *
+ * The tables are kept in one int array, cell by cell, holding the distances of a cell to every
+ * landmark next to each other. A search looks up all of them for each cell it reaches, which this
+ * way costs one cache line instead of one per landmark.
+ *
+ * An index only describes the obstacles it was built for. The grid drops it when they change,
+ * and a saved index is only loaded for a grid with the same obstacles. The tables take
+ * 4*count*dimension*dimension bytes, twice that while they are built, and the file the same plus
+ * a header, so building them is only paid for once per map.
+ *
+ * @author Danielle Plecki
+ */
+class LandmarkIndex {
+    static final int DEFAULT_COUNT = 8;
+    static final int UNREACHED = -1;
+    static final int MAGIC = 0x4B524D4C; //"LMRK" in little endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+
+    private final int dimension;
+    private final long obstacleHash;
+    private final int[] landmarks; //cell index y*dimension+x of each landmark
+    private final int[] distances; //distances[cell*count + i] is the distance from landmark i to cell
+
+    private LandmarkIndex(int dimension, long obstacleHash, int[] landmarks, int[] distances){
+        this.dimension = dimension;
+        this.obstacleHash = obstacleHash;
+        this.landmarks = landmarks;
+        this.distances = distances;
+    }
+
+    /**
+     * This method picks landmarks on a grid and builds their distance tables. A grid with fewer
+     * free cells in its largest region than the count asked for gets one landmark per cell.
+     *
+     * @param grid grid to build the index for
+     * @param count number of landmarks
+     * @return index of the landmarks
+     * @throws IllegalArgumentException if the count is below 1 or the tables would not fit in an array
+     */
+    static LandmarkIndex build(Grid grid, int count){
+        int dimension = grid.getDimension();
+        if(count < 1 || (long) count*dimension*dimension > Integer.MAX_VALUE - 8){
+            throw new IllegalArgumentException("Cannot build " + count + " landmarks for a grid of dimension " + dimension);
+        }
+        int[] landmarks = pickLandmarks(grid, count);
+        int[][] tables = new int[landmarks.length][];
+        IntStream.range(0, landmarks.length).parallel()
+                .forEach(i -> tables[i] = distancesFrom(grid, landmarks[i]));
+        //Interleaved row by row in parallel, rather than by each search as it goes, where the
+        //threads would keep writing to the same cache lines
+        int[] distances = new int[landmarks.length*dimension*dimension];
+        IntStream.range(0, dimension).parallel().forEach(y -> {
+            for(int cell = y*dimension; cell < (y + 1)*dimension; cell++){
+                for(int i = 0; i < tables.length; i++){
+                    distances[cell*tables.length + i] = tables[i][cell];
+                }
+            }
+        });
+        return new LandmarkIndex(dimension, obstacleHash(grid), landmarks, distances);
+    }
+
+    /**
+     * This method picks landmarks by farthest point selection in the largest region of the grid.
+     */
+    private static int[] pickLandmarks(Grid grid, int count){
+        int dimension = grid.getDimension();
+        ComponentIndex components = grid.components();
+        int region = components.largestRegion();
+        if(region == 0){
+            return new int[0];
+        }
+        //Manhattan distance from each cell of the region to the nearest landmark so far, -1 elsewhere
+        int[] nearest = new int[dimension*dimension];
+        int middle = dimension / 2;
+        for(int y = 0; y < dimension; y++){
+            for(int x = 0; x < dimension; x++){
+                nearest[y*dimension + x] = components.regionOf(x, y) == region
+                        ? Math.abs(x - middle) + Math.abs(y - middle) : -1;
+            }
+        }
+        int[] landmarks = new int[count];
+        int picked = 0;
+        while(picked < count){
+            int farthest = 0;
+            for(int cell = 1; cell < nearest.length; cell++){
+                if(nearest[cell] > nearest[farthest]){
+                    farthest = cell;
+                }
+            }
+            if(nearest[farthest] <= 0 && picked > 0){
+                break; //every cell of the region is a landmark
+            }
+            landmarks[picked++] = farthest;
+            int landmarkX = farthest % dimension;
+            int landmarkY = farthest / dimension;
+            for(int y = 0; y < dimension; y++){
+                for(int x = 0, cell = y*dimension; x < dimension; x++, cell++){
+                    if(nearest[cell] >= 0){
+                        int distance = Math.abs(x - landmarkX) + Math.abs(y - landmarkY);
+                        nearest[cell] = picked == 1 ? distance : Math.min(distance, nearest[cell]);
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(landmarks, picked);
+    }
+
+    /**
+     * This method finds the distance from a landmark to every cell with a breadth first search.
+     */
+    private static int[] distancesFrom(Grid grid, int landmark){
+        int dimension = grid.getDimension();
+        int[] distance = new int[dimension*dimension];
+        Arrays.fill(distance, UNREACHED);
+        int[] queue = new int[distance.length];
+        int head = 0;
+        int tail = 0;
+        distance[landmark] = 0;
+        queue[tail++] = landmark;
+        while(head < tail){
+            int current = queue[head++];
+            int x = current % dimension;
+            int y = current / dimension;
+            int next = distance[current] + 1;
+            if(y + 1 < dimension) tail = reach(grid, distance, queue, tail, current + dimension, x, y + 1, next);
+            if(y > 0) tail = reach(grid, distance, queue, tail, current - dimension, x, y - 1, next);
+            if(x + 1 < dimension) tail = reach(grid, distance, queue, tail, current + 1, x + 1, y, next);
+            if(x > 0) tail = reach(grid, distance, queue, tail, current - 1, x - 1, y, next);
+        }
+        return distance;
+    }
+
+    private static int reach(Grid grid, int[] distance, int[] queue, int tail, int cell, int x, int y, int next){
+        if(distance[cell] == UNREACHED && !grid.isBlocked(x, y)){
+            distance[cell] = next;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    /**
+     * This method sums up the obstacles of a grid, so that an index can tell whether it was built
+     * for them.
+     *
+     * @param grid grid to sum up
+     * @return hash of the grid's obstacles
+     */
+    static long obstacleHash(Grid grid){
+        Occupancy occupancy = grid.getOccupancy();
+        long hash = grid.getDimension();
+        int words = occupancy.wordCount();
+        for(int i = 0; i < words; i++){
+            hash = hash*0x9E3779B97F4A7C15L + occupancy.word(i);
+        }
+        return hash;
+    }
+
+    int getDimension(){
+        return dimension;
+    }
+
+    /**
+     * @return number of landmarks
+     */
+    int count(){
+        return landmarks.length;
+    }
+
+    /**
+     * @param i number of a landmark, below count()
+     * @return cell index y*dimension+x of the landmark
+     */
+    int landmark(int i){
+        return landmarks[i];
+    }
+
+    /**
+     * @param i number of a landmark, below count()
+     * @param cell cell index y*dimension+x
+     * @return length of the shortest path from the landmark to the cell, or UNREACHED
+     */
+    int distance(int i, int cell){
+        return distances[cell*landmarks.length + i];
+    }
+
+    /**
+     * @param grid grid to check
+     * @return true if the index was built for the grid's obstacles
+     */
+    boolean matches(Grid grid){
+        return grid.getDimension() == dimension && obstacleHash(grid) == obstacleHash;
+    }
+
+    /**
+     * This method copies the distances from every landmark to a cell, so that a search can look
+     * them up once for its end instead of for every cell it reaches.
+     *
+     * @param cell cell index y*dimension+x
+     * @param into array of at least count() distances to fill in
+     */
+    void distancesTo(int cell, int[] into){
+        System.arraycopy(distances, cell*landmarks.length, into, 0, landmarks.length);
+    }
+
+    /**
+     * This method is the triangle inequality bound on the distance between a cell and an end.
+     *
+     * @param cell cell index y*dimension+x
+     * @param endDistances distances from every landmark to the end, see distancesTo()
+     * @return lower bound on the length of a path from the cell to the end
+     */
+    int lowerBound(int cell, int[] endDistances){
+        int bound = 0;
+        int count = landmarks.length;
+        int first = cell*count;
+        for(int i = 0; i < count; i++){
+            int fromLandmark = distances[first + i];
+            int toEnd = endDistances[i];
+            if(fromLandmark != UNREACHED && toEnd != UNREACHED){
+                int difference = fromLandmark > toEnd ? fromLandmark - toEnd : toEnd - fromLandmark;
+                if(difference > bound){
+                    bound = difference;
+                }
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * This method saves the index, replacing the file if it exists. The file starts with a 24 byte
+     * header of little endian values:
+     *
+     *  magic, version, dimension, landmark count (ints), obstacle hash (long)
+     *
+     * followed by the cell of each landmark and then the distances of each cell to every landmark,
+     * cell by cell, all as little endian ints.
+     *
+     * @param filePath location of the file
+     * @throws IOException throws exception if the file cannot be written
+     */
+    void write(Path filePath) throws IOException{
+        try(FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(landmarks.length).putLong(obstacleHash);
+            buffer = writeInts(channel, buffer, landmarks);
+            buffer = writeInts(channel, buffer, distances);
+            buffer.flip();
+            writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * This method loads an index saved with write() for a grid.
+     *
+     * @param filePath location of the file
+     * @param grid grid the index is loaded for
+     * @return the saved index
+     * @throws IOException throws exception if the file cannot be read, is not a landmark file, or
+     *                     was saved for a grid with other obstacles
+     */
+    static LandmarkIndex load(Path filePath, Grid grid) throws IOException{
+        try(FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)){
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(HEADER_SIZE);
+            readFully(channel, buffer, filePath);
+            buffer.flip();
+            if(buffer.getInt() != MAGIC){
+                throw new IOException(filePath + " is not a landmark file");
+            }
+            int version = buffer.getInt();
+            if(version != VERSION){
+                throw new IOException("Unsupported landmark file version " + version);
+            }
+            int dimension = buffer.getInt();
+            int count = buffer.getInt();
+            long obstacleHash = buffer.getLong();
+            if(dimension != grid.getDimension() || obstacleHash != obstacleHash(grid)){
+                throw new IOException(filePath + " was built for a grid with other obstacles");
+            }
+            long cells = (long) dimension*dimension;
+            if(count < 0 || count*cells > Integer.MAX_VALUE - 8
+                    || channel.size() != HEADER_SIZE + 4L*count*(1 + cells)){
+                throw new IOException(filePath + " is not as long as its header says");
+            }
+            buffer.clear();
+            buffer.flip();
+            int[] landmarks = new int[count];
+            buffer = readInts(channel, buffer, landmarks, filePath);
+            int[] distances = new int[count*dimension*dimension];
+            readInts(channel, buffer, distances, filePath);
+            return new LandmarkIndex(dimension, obstacleHash, landmarks, distances);
+        }
+    }
+
+    /**
+     * This method adds ints to a buffer, writing the buffer out whenever it is full.
+     */
+    private static ByteBuffer writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException{
+        int next = 0;
+        while(next < values.length){
+            int count = Math.min(values.length - next, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, next, count);
+            buffer.position(buffer.position() + count*Integer.BYTES);
+            next += count;
+            if(!buffer.hasRemaining() || buffer.remaining() < Integer.BYTES){
+                buffer.flip();
+                writeFully(channel, buffer);
+                buffer.clear();
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * This method takes ints from a buffer that is ready to be read, refilling it from the file
+     * whenever it runs out.
+     */
+    private static ByteBuffer readInts(FileChannel channel, ByteBuffer buffer, int[] values, Path filePath)
+            throws IOException{
+        int next = 0;
+        while(next < values.length){
+            if(buffer.remaining() < Integer.BYTES){
+                buffer.compact();
+                buffer.limit(Math.min(buffer.capacity(), buffer.position() + (values.length - next)*Integer.BYTES));
+                readFully(channel, buffer, filePath);
+                buffer.flip();
+            }
+            int count = Math.min(values.length - next, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().get(values, next, count);
+            buffer.position(buffer.position() + count*Integer.BYTES);
+            next += count;
+        }
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path filePath) throws IOException{
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer) < 0){
+                throw new IOException(filePath + " ends too early");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException{
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * LongKeyHeap - binary min-heap of integer keys ordered by a long priority. Like IndexedMinHeap,
+ * each key in the range [0, capacity) can be in the heap at most once and its slot is tracked,
+ * but a key's priority can be raised as well as lowered, and a key can be removed from the middle
+ * of the heap. DStarLite needs both when obstacles change.
+ *
+ * The long priority lets two int values be compared together, the first one deciding unless
+ * they are equal, see pack().
+ *
+ * @author Danielle Plecki
+ */
+class LongKeyHeap {
+    private static final int ABSENT = -1;
+
+    private final int[] heap;        //heap[i] = key stored at heap slot i
+    private final int[] slotOfKey;   //slotOfKey[key] = heap slot of key, or ABSENT
+    private final long[] priority;   //priority[key] = current priority of key
+    private int size;
+
+    LongKeyHeap(int capacity){
+        heap = new int[capacity];
+        slotOfKey = new int[capacity];
+        priority = new long[capacity];
+        Arrays.fill(slotOfKey, ABSENT);
+    }
+
+    /**
+     * This method packs two non-negative ints into one priority that orders by the first and
+     * then by the second.
+     *
+     * @param first value compared first
+     * @param second value compared when the first ones are equal
+     * @return priority ordering the pair
+     */
+    static long pack(int first, int second){
+        return ((long) first << 32) | second;
+    }
+
+    int size(){
+        return size;
+    }
+
+    boolean isEmpty(){
+        return size == 0;
+    }
+
+    boolean contains(int key){
+        return slotOfKey[key] != ABSENT;
+    }
+
+    /**
+     * This method adds a key that is not currently in the heap.
+     *
+     * @param key key to add
+     * @param keyPriority priority of the key
+     */
+    void insert(int key, long keyPriority){
+        priority[key] = keyPriority;
+        heap[size] = key;
+        slotOfKey[key] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * This method changes the priority of a key that is already in the heap, in either direction.
+     *
+     * @param key key in the heap
+     * @param keyPriority new priority
+     */
+    void update(int key, long keyPriority){
+        long old = priority[key];
+        priority[key] = keyPriority;
+        if(keyPriority < old){
+            siftUp(slotOfKey[key]);
+        }
+        else {
+            siftDown(slotOfKey[key]);
+        }
+    }
+
+    /**
+     * This method removes a key from anywhere in the heap.
+     *
+     * @param key key in the heap
+     */
+    void remove(int key){
+        int slot = slotOfKey[key];
+        slotOfKey[key] = ABSENT;
+        size--;
+        if(slot == size){
+            return;
+        }
+        int last = heap[size];
+        heap[slot] = last;
+        slotOfKey[last] = slot;
+        if(slot > 0 && priority[last] < priority[heap[(slot - 1) >>> 1]]){
+            siftUp(slot);
+        }
+        else {
+            siftDown(slot);
+        }
+    }
+
+    /**
+     * @return key with the lowest priority, without removing it
+     */
+    int peek(){
+        return heap[0];
+    }
+
+    /**
+     * @return lowest priority in the heap, or Long.MAX_VALUE if the heap is empty
+     */
+    long peekPriority(){
+        return size == 0 ? Long.MAX_VALUE : priority[heap[0]];
+    }
+
+    /**
+     * This method removes and returns the key with the lowest priority.
+     *
+     * @return key with the lowest priority
+     */
+    int poll(){
+        int top = heap[0];
+        remove(top);
+        return top;
+    }
+
+    /**
+     * This method removes every key from the heap, touching only the slots in use.
+     */
+    void clear(){
+        for(int i = 0; i < size; i++){
+            slotOfKey[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot){
+        int key = heap[slot];
+        long keyPriority = priority[key];
+        while(slot > 0){
+            int parentSlot = (slot - 1) >>> 1;
+            int parentKey = heap[parentSlot];
+            if(keyPriority >= priority[parentKey]){
+                break;
+            }
+            heap[slot] = parentKey;
+            slotOfKey[parentKey] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = key;
+        slotOfKey[key] = slot;
+    }
+
+    private void siftDown(int slot){
+        int key = heap[slot];
+        long keyPriority = priority[key];
+        int half = size >>> 1;
+        while(slot < half){
+            int childSlot = 2*slot + 1;
+            int childKey = heap[childSlot];
+            int rightSlot = childSlot + 1;
+            if(rightSlot < size && priority[heap[rightSlot]] < priority[childKey]){
+                childSlot = rightSlot;
+                childKey = heap[rightSlot];
+            }
+            if(priority[childKey] >= keyPriority){
+                break;
+            }
+            heap[slot] = childKey;
+            slotOfKey[childKey] = slot;
+            slot = childSlot;
+        }
+        heap[slot] = key;
+        slotOfKey[key] = slot;
+    }
+}
@@ -1,9 +1,13 @@
 package grid;
-import com.google.gson.Gson;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Main - program to find shortest path between two positions on a grid
@@ -18,35 +22,246 @@ public class Main {
      * as well as all start and end positions. The method receives and prints a string from
      * the A* algorithm that lists the shortest path from end position to start position.
      *
-     * @param args array of strings that accepts file location of json grid
+     * If the json file also has a queries array, every query in it is searched in parallel
+     * and the paths are printed in the order of the queries, separated by empty lines. The
+     * number of threads used for the queries can be given after the file location, by default
+     * one thread per core is used.
+     *
+     * The kind of search can be chosen with --mode followed by one of the SearchMode names,
+     * such as --mode JUMP_POINT. A* is used by default.
+     *
+     * The WEIGHTED mode moves by the grid's MovementModel, which is set with --moves 4 or 8,
+     * --heuristic followed by EUCLIDEAN, MANHATTAN or OCTILE, and --weight followed by a factor of
+     * at least 1. Giving any of them without --mode picks the WEIGHTED mode.
+     *
+     * The ALT mode is guided by landmark distance tables, see LandmarkIndex. With --landmarks
+     * followed by a file the tables are loaded from the file if it exists, and otherwise built and
+     * saved to it, so they are only built once per map. --landmark-count sets how many landmarks
+     * are built. Giving either without --mode picks the ALT mode.
+     *
+     * With --regions the connected regions of the grid are labelled before searching, so that
+     * queries between regions are answered unreachable without a search, see ComponentIndex. The
+     * labels take 4 bytes per cell, so without --regions they are only made with --serve and for
+     * batches of at least BatchSearch.LABEL_REGIONS_QUERIES queries, and never for tiled grid
+     * files.
+     *
+     * With --stats the cost of every query is printed to standard error, see SearchStats, and with
+     * --trace followed by a file the cells expanded by all queries are written to it as a heatmap,
+     * a PGM image if the file name ends in .pgm and text otherwise, see SearchTrace. The heatmap
+     * has an entry for every cell, so tiled grid files cannot be traced.
+     *
+     * With --serve followed by a port the grid is loaded once and kept, and queries are answered
+     * over TCP on the loopback address until the program is stopped, see PathServer. The number of
+     * threads is then the number of threads searching.
+     *
+     * Called as --convert grid.json grid.bin, the json grid is converted to a binary grid file
+     * instead, which can be given to the program in place of the json file and loads much faster.
+     * If the new file's name ends in .tiles it is written as a tiled grid file, whose tiles are
+     * read as the searches need them, see PagedGridFormat. Tiled grid files are searched by
+     * PagedSearch whatever the mode.
+     *
+     * @param args array of strings that accepts file location of json or binary grid and optionally
+     *             the number of threads for the queries, the search mode and the metrics options
      * @throws IOException throws exception while parsing json
      */
     public static void main(String[] args) throws IOException{
+        if(args[0].equals("--convert")){
+            Path converted = Paths.get(args[2]);
+            if(converted.toString().endsWith(".tiles")){
+                PagedGridFormat.write(setGrid(Paths.get(args[1])), converted);
+            }
+            else {
+                BinaryGridFormat.write(setGrid(Paths.get(args[1])), converted);
+            }
+            return;
+        }
         Path filePath = Paths.get(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        SearchMode mode = null;
+        boolean eightConnected = false;
+        MovementModel.Heuristic heuristic = null;
+        double weight = 1;
+        boolean modelGiven = false;
+        boolean regions = false;
+        boolean stats = false;
+        Path tracePath = null;
+        int servePort = -1;
+        Path landmarksPath = null;
+        int landmarkCount = LandmarkIndex.DEFAULT_COUNT;
+        boolean landmarksGiven = false;
+        for(int i = 1; i < args.length; i++){
+            if(args[i].equals("--mode")){
+                mode = SearchMode.valueOf(args[++i].toUpperCase());
+            }
+            else if(args[i].equals("--moves")){
+                eightConnected = args[++i].equals("8");
+                modelGiven = true;
+            }
+            else if(args[i].equals("--heuristic")){
+                heuristic = MovementModel.Heuristic.valueOf(args[++i].toUpperCase());
+                modelGiven = true;
+            }
+            else if(args[i].equals("--weight")){
+                weight = Double.parseDouble(args[++i]);
+                modelGiven = true;
+            }
+            else if(args[i].equals("--regions")){
+                regions = true;
+            }
+            else if(args[i].equals("--stats")){
+                stats = true;
+            }
+            else if(args[i].equals("--trace")){
+                tracePath = Paths.get(args[++i]);
+            }
+            else if(args[i].equals("--landmarks")){
+                landmarksPath = Paths.get(args[++i]);
+                landmarksGiven = true;
+            }
+            else if(args[i].equals("--landmark-count")){
+                landmarkCount = Integer.parseInt(args[++i]);
+                landmarksGiven = true;
+            }
+            else if(args[i].equals("--serve")){
+                servePort = Integer.parseInt(args[++i]);
+            }
+            else {
+                threads = Integer.parseInt(args[i]);
+            }
+        }
+        if(mode == null){
+            mode = modelGiven ? SearchMode.WEIGHTED : landmarksGiven ? SearchMode.ALT : SearchMode.ASTAR;
+        }
         Grid grid = setGrid(filePath);
+        if(tracePath != null && grid.isPaged()){
+            throw new IllegalArgumentException("The heatmap of --trace has an entry for every cell, so tiled grid files cannot be traced");
+        }
+        MovementModel model = eightConnected ? MovementModel.eightConnected() : MovementModel.fourConnected();
+        if(heuristic != null){
+            model = model.withHeuristic(heuristic);
+        }
+        grid.setMovementModel(model.withWeight(weight));
+        //Paged grids are searched by PagedSearch in every mode, which needs neither regions nor landmarks
+        if(regions && !grid.isPaged()){
+            grid.components();
+        }
+        if(mode == SearchMode.ALT && !grid.isPaged()){
+            grid.setLandmarks(landmarks(grid, landmarksPath, landmarkCount));
+        }
         Position startPosition = grid.getStart();
         Position endPosition = grid.getEnd();
+        if(stats){
+            SearchMetrics.addListener(System.err::println);
+        }
+        SearchTrace trace = tracePath == null ? null : new SearchTrace(grid);
+        SearchMetrics.setTrace(trace);
+        if(servePort >= 0){
+            PathServer server = new PathServer(grid, mode, PathServer.DEFAULT_IO_THREADS, threads);
+            InetSocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), servePort));
+            System.out.println("Serving " + mode + " paths on " + address.getHostString() + ":" + address.getPort());
+            return;
+        }
+        search(grid, startPosition, endPosition, threads, mode);
+        if(trace != null){
+            writeTrace(trace, tracePath);
+        }
+    }
+
+    /**
+     * This method searches the queries of the grid in parallel if it has any, or else the path
+     * between its start and end, and prints the paths.
+     */
+    private static void search(Grid grid, Position startPosition, Position endPosition, int threads,
+                               SearchMode mode) throws IOException{
+        Query[] queries = grid.getQueries();
+        if(queries != null && queries.length > 0){
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                GridPath[] paths = BatchSearch.run(grid, queries, pool, mode);
+                for(int i = 0; i < paths.length; i++){
+                    if(i > 0){
+                        System.out.println();
+                    }
+                    printPath(paths[i]);
+                }
+            }
+            finally {
+                pool.shutdown();
+            }
+            return;
+        }
 
+        //Calls the A* algorithm to find the shortest path and prints it in order from end to start
+        printPath(AStar.findPath(grid, startPosition, endPosition, mode));
+    }
 
-        //Calls the A* algorithm to return the shortest path in order from end to start
-        String path = AStar.algorithm(grid, startPosition, endPosition);
-        System.out.println(path);
+    /**
+     * This method loads the landmark distance tables of a grid from a file, or builds them and
+     * saves them to the file if it does not exist yet.
+     *
+     * @param grid grid the tables are for
+     * @param landmarksPath file of the tables, or null to build them without saving
+     * @param count number of landmarks to build
+     * @return landmark distance tables of the grid
+     * @throws IOException throws exception if the file cannot be read or written, or belongs to another grid
+     */
+    private static LandmarkIndex landmarks(Grid grid, Path landmarksPath, int count) throws IOException{
+        if(landmarksPath != null && Files.exists(landmarksPath)){
+            return LandmarkIndex.load(landmarksPath, grid);
+        }
+        LandmarkIndex index = LandmarkIndex.build(grid, count);
+        if(landmarksPath != null){
+            index.write(landmarksPath);
+        }
+        return index;
+    }
 
+    private static void writeTrace(SearchTrace trace, Path tracePath) throws IOException{
+        if(tracePath.toString().endsWith(".pgm")){
+            try(OutputStream out = Files.newOutputStream(tracePath)){
+                trace.writePgm(out);
+            }
+        }
+        else {
+            Files.write(tracePath, trace.toText().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * This method prints a path in order from end to start, or "unreachable" if there is no path.
+     *
+     * @param path path to print, or null
+     * @throws IOException throws exception if the path cannot be written out
+     */
+    private static void printPath(GridPath path) throws IOException{
+        if(path == null){
+            System.out.println("unreachable");
+        }
+        else {
+            PathFormatter.write(path, System.out);
+        }
     }
 
     /**
-     * This is a method used to take the file path from the user and retrieve the json
-     * information. It then parses the json into a Grid object using Google's gson
-     * library. The grid returned contains all the info needed such as dimensions,
-     * start and end locations, and all obstacles.
+     * This is a method used to take the file path from the user and retrieve the grid
+     * information. Binary grid files are memory mapped, see BinaryGridFormat, and tiled grid
+     * files are read a tile at a time as they are searched, see PagedGridFormat. Anything
+     * else is read as json by GridLoader, which streams the obstacles straight into the
+     * grid's occupancy bitset instead of creating an object for each of them. The grid
+     * returned contains all the info needed such as dimensions, start and end locations,
+     * and all obstacles.
      *
-     * @param filePath path entered by user as json grid location
+     * @param filePath path entered by user as json or binary grid location
      * @return Grid object that contains all information needed for the search
      * @throws IOException throws exception from parsing into Grid object
      */
     static Grid setGrid(Path filePath) throws IOException{
-        String content = new String(Files.readAllBytes(filePath));
-        Gson gson = new Gson();
-        return gson.fromJson(content, Grid.class);
+        if(BinaryGridFormat.isBinaryGrid(filePath)){
+            return BinaryGridFormat.load(filePath);
+        }
+        if(PagedGridFormat.isPagedGrid(filePath)){
+            return PagedGridFormat.load(filePath);
+        }
+        return GridLoader.load(filePath);
     }
 }
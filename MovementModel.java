@@ -0,0 +1,139 @@
+package grid;
+
+/**
+ * MovementModel - how WeightedSearch moves over a grid: whether diagonal steps are allowed, what
+ * entering each cell costs, which heuristic guides the search and by how much it is weighted.
+ * A model never changes; the with methods return changed copies.
+ *
+ *  - Four connected: steps go north, south, east and west.
+ *  - Eight connected: diagonal steps are added, costing sqrt(2) times a straight step. A diagonal
+ *    step may not cut the corner of an obstacle, so both cells beside it have to be free. That
+ *    also means two cells joined by diagonal steps are joined by straight ones, so the connected
+ *    regions of the grid, see ComponentIndex, are the same for both.
+ *  - Terrain: one byte per cell, indexed by y*dimension+x, holding the cost from 1 to 255 of
+ *    stepping into the cell. Without terrain every step into a free cell costs 1.
+ *  - Heuristic: MANHATTAN is the exact distance of four connected moves on an open grid and
+ *    OCTILE that of eight connected moves, so each is the tightest admissible heuristic for its
+ *    connectivity. EUCLIDEAN, which AStar has always used, is admissible for both but weaker.
+ *    Every heuristic is multiplied by the cheapest terrain cost, so that it stays admissible.
+ *  - Weight: the heuristic is multiplied by a weight of at least 1 (weighted A*). A larger
+ *    weight expands fewer cells and returns a path costing at most weight times the shortest.
+ *
+ * @author Danielle Plecki
+ */
+class MovementModel {
+    /**
+     * Heuristic - the distance estimates WeightedSearch can be guided by.
+     */
+    enum Heuristic {
+        EUCLIDEAN, MANHATTAN, OCTILE
+    }
+
+    /**
+     * Four connected moves costing 1 each, guided by the Manhattan distance.
+     */
+    static final MovementModel DEFAULT = new MovementModel(false, null, 1, Heuristic.MANHATTAN, 1);
+
+    private final boolean eightConnected;
+    private final byte[] terrain;
+    private final int cheapestTerrain;
+    private final Heuristic heuristic;
+    private final double weight;
+
+    private MovementModel(boolean eightConnected, byte[] terrain, int cheapestTerrain, Heuristic heuristic,
+                          double weight){
+        this.eightConnected = eightConnected;
+        this.terrain = terrain;
+        this.cheapestTerrain = cheapestTerrain;
+        this.heuristic = heuristic;
+        this.weight = weight;
+    }
+
+    /**
+     * @return four connected moves costing 1 each, guided by the Manhattan distance
+     */
+    static MovementModel fourConnected(){
+        return DEFAULT;
+    }
+
+    /**
+     * @return eight connected moves without corner cutting, guided by the octile distance
+     */
+    static MovementModel eightConnected(){
+        return new MovementModel(true, null, 1, Heuristic.OCTILE, 1);
+    }
+
+    /**
+     * This method returns a copy of the model with a cost for stepping into each cell. The array
+     * is used as it is, so it must not be changed while the model is in use.
+     *
+     * @param cellCosts cost of each cell from 1 to 255 as an unsigned byte, indexed by y*dimension+x,
+     *                  or null for a cost of 1 everywhere
+     * @return model with the terrain
+     * @throws IllegalArgumentException if a cost is 0
+     */
+    MovementModel withTerrain(byte[] cellCosts){
+        if(cellCosts == null){
+            return new MovementModel(eightConnected, null, 1, heuristic, weight);
+        }
+        int cheapest = 255;
+        for(byte cost : cellCosts){
+            if(cost == 0){
+                throw new IllegalArgumentException("Terrain costs must be from 1 to 255");
+            }
+            cheapest = Math.min(cheapest, cost & 0xFF);
+        }
+        return new MovementModel(eightConnected, cellCosts, cheapest, heuristic, weight);
+    }
+
+    /**
+     * @param estimate heuristic to guide the search with
+     * @return model with the heuristic
+     * @throws IllegalArgumentException for MANHATTAN with eight connected moves, where it overestimates
+     */
+    MovementModel withHeuristic(Heuristic estimate){
+        if(eightConnected && estimate == Heuristic.MANHATTAN){
+            throw new IllegalArgumentException("The Manhattan distance is not admissible with diagonal moves");
+        }
+        return new MovementModel(eightConnected, terrain, cheapestTerrain, estimate, weight);
+    }
+
+    /**
+     * @param heuristicWeight factor of at least 1 the heuristic is multiplied by, which is also the
+     *                        most the paths found may cost over the shortest
+     * @return model with the weight
+     * @throws IllegalArgumentException if the weight is below 1
+     */
+    MovementModel withWeight(double heuristicWeight){
+        if(!(heuristicWeight >= 1)){
+            throw new IllegalArgumentException("The heuristic weight must be at least 1");
+        }
+        return new MovementModel(eightConnected, terrain, cheapestTerrain, heuristic, heuristicWeight);
+    }
+
+    boolean isEightConnected(){
+        return eightConnected;
+    }
+
+    /**
+     * @return cost of each cell as an unsigned byte, or null if every cell costs 1
+     */
+    byte[] getTerrain(){
+        return terrain;
+    }
+
+    /**
+     * @return lowest cost of any cell
+     */
+    int getCheapestTerrain(){
+        return cheapestTerrain;
+    }
+
+    Heuristic getHeuristic(){
+        return heuristic;
+    }
+
+    double getWeight(){
+        return weight;
+    }
+}
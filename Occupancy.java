@@ -0,0 +1,42 @@
+package grid;
+
+/**
+ * Occupancy - the obstacles of a grid as a bitset, one bit per cell indexed by y*dimension+x and
+ * set when the cell holds an obstacle. Grid reads its obstacles through this interface, so the
+ * bits can live in one flat array or file mapping (FlatOccupancy), in separately copied tiles
+ * (TiledOccupancy) or in tiles read from a file as they are needed (PagedOccupancy).
+ *
+ * @author Danielle Plecki
+ */
+interface Occupancy {
+
+    /**
+     * @param cell cell index y*dimension+x inside the grid
+     * @return true if there is an obstacle in the cell
+     */
+    boolean isBlocked(int cell);
+
+    /**
+     * This method is the same as isBlocked(y*dimension + x). Grid calls this one, so that an
+     * occupancy that stores cells by their coordinates does not have to divide the index again.
+     *
+     * @param x x coordinate of the cell
+     * @param y y coordinate of the cell
+     * @param dimension width and height of the grid
+     * @return true if there is an obstacle in the cell
+     */
+    default boolean isBlocked(int x, int y, int dimension){
+        return isBlocked(y*dimension + x);
+    }
+
+    /**
+     * @return number of 64 bit words in the bitset
+     */
+    int wordCount();
+
+    /**
+     * @param index index of a word, below wordCount()
+     * @return bits of cells 64*index up to 64*index+63, lowest bit first
+     */
+    long word(int index);
+}
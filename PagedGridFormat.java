@@ -0,0 +1,218 @@
+package grid;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PagedGridFormat - tiled grid file for grids too large to load into memory, which are searched
+ * through a PagedOccupancy that reads the tiles as they are needed. The file starts with a 40 byte
+ * header of little endian ints:
+ *
+ *  magic, version, width, height, tile size, start x, start y, end x, end y, flags
+ *
+ * where the flags are those of BinaryGridFormat. The header is followed by the tiles, row of tiles
+ * by row of tiles starting at y = 0, each holding TILE_SIZE x TILE_SIZE cells as one little endian
+ * long per row of cells, lowest row first, with the lowest bit for the leftmost cell and set for
+ * obstacles. Cells of the tiles on the right and top edges that lie outside the grid are zero.
+ *
+ * Unlike the other formats the width and height may differ, and the grid may hold more cells
+ * than an int can number, up to Integer.MAX_VALUE tiles. Queries are not stored.
+ *
+ * @author Danielle Plecki
+ */
+class PagedGridFormat {
+    static final int MAGIC = 0x44524754; //"TGRD" in little endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    private static final int HAS_START = 1;
+    private static final int HAS_END = 2;
+    //Largest array length every JVM allows
+    private static final long MAX_TILES = Integer.MAX_VALUE - 8;
+
+    private PagedGridFormat(){} //only static methods
+
+    /**
+     * This method checks the first bytes of a file to see whether it is a tiled grid file.
+     *
+     * @param filePath file to check
+     * @return true if the file starts with the tiled grid magic number
+     * @throws IOException throws exception if the file cannot be read
+     */
+    static boolean isPagedGrid(Path filePath) throws IOException{
+        try(FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)){
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while(magic.hasRemaining() && channel.read(magic) >= 0){
+                //keep reading until the magic number is complete or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * This method writes the whole of a grid to a tiled grid file, replacing the file if it exists.
+     *
+     * @param grid grid to save
+     * @param filePath location of the tiled grid file
+     * @throws IOException throws exception if the file cannot be written
+     */
+    static void write(Grid grid, Path filePath) throws IOException{
+        write(grid, grid.getWidth(), grid.getHeight(), filePath);
+    }
+
+    /**
+     * This method writes the cells of a grid with x below width and y below height to a tiled grid
+     * file, replacing the file if it exists. The grid is read one row of tiles at a time, so it may
+     * itself be a paged grid.
+     *
+     * @param grid grid to save
+     * @param width number of columns to save, at most the grid's width
+     * @param height number of rows to save, at most the grid's height
+     * @param filePath location of the tiled grid file
+     * @throws IOException throws exception if the file cannot be written
+     */
+    static void write(Grid grid, int width, int height, Path filePath) throws IOException{
+        if(width < 1 || height < 1 || width > grid.getWidth() || height > grid.getHeight()){
+            throw new IllegalArgumentException("Cannot save " + width + "x" + height + " cells of a "
+                    + grid.getWidth() + "x" + grid.getHeight() + " grid");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        Position start = grid.getStart();
+        Position end = grid.getEnd();
+        header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(PagedOccupancy.TILE_SIZE);
+        header.putInt(start == null ? 0 : start.getX()).putInt(start == null ? 0 : start.getY());
+        header.putInt(end == null ? 0 : end.getX()).putInt(end == null ? 0 : end.getY());
+        header.putInt((start == null ? 0 : HAS_START) | (end == null ? 0 : HAS_END));
+        header.flip();
+        int tilesAcross = PagedOccupancy.tilesAlong(width);
+        int tilesUp = PagedOccupancy.tilesAlong(height);
+        try(FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            writeFully(channel, header);
+            ByteBuffer tileRow = ByteBuffer.allocate(tilesAcross*PagedOccupancy.TILE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for(int tileY = 0; tileY < tilesUp; tileY++){
+                for(int tileX = 0; tileX < tilesAcross; tileX++){
+                    for(int row = 0; row < PagedOccupancy.TILE_SIZE; row++){
+                        int y = (tileY << PagedOccupancy.TILE_SHIFT) + row;
+                        long word = 0;
+                        for(int bit = 0; bit < PagedOccupancy.TILE_SIZE && y < height; bit++){
+                            int x = (tileX << PagedOccupancy.TILE_SHIFT) + bit;
+                            if(x < width && grid.isBlocked(x, y)){
+                                word |= 1L << bit;
+                            }
+                        }
+                        tileRow.putLong(word);
+                    }
+                }
+                tileRow.flip();
+                writeFully(channel, tileRow);
+                tileRow.clear();
+            }
+        }
+    }
+
+    /**
+     * This method writes a tiled grid file of a grid without any obstacles, replacing the file if
+     * it exists. Only the header is written and the file is then extended to its full length,
+     * which the file system fills with zeros, so a file of any size takes no time to write and
+     * little disk space where the file system supports sparse files.
+     *
+     * @param filePath location of the tiled grid file
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid
+     * @throws IOException throws exception if the file cannot be written
+     */
+    static void writeOpen(Path filePath, int width, int height) throws IOException{
+        if(width < 1 || height < 1){
+            throw new IllegalArgumentException("Cannot save a " + width + "x" + height + " grid");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(PagedOccupancy.TILE_SIZE);
+        header.putInt(0).putInt(0).putInt(0).putInt(0).putInt(0);
+        header.flip();
+        long tiles = (long) PagedOccupancy.tilesAlong(width)*PagedOccupancy.tilesAlong(height);
+        try(RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "rw")){
+            file.setLength(0);
+            file.write(header.array());
+            file.setLength(HEADER_SIZE + tiles*PagedOccupancy.TILE_BYTES);
+        }
+    }
+
+    /**
+     * This method loads a tiled grid file keeping the default number of tiles resident, see load().
+     *
+     * @param filePath location of the tiled grid file
+     * @return Grid object that reads its tiles from the file
+     * @throws IOException throws exception if the file cannot be read or is not a tiled grid file
+     */
+    static Grid load(Path filePath) throws IOException{
+        return load(filePath, PagedOccupancy.DEFAULT_RESIDENT_TILES);
+    }
+
+    /**
+     * This method opens a tiled grid file and creates a grid that reads its tiles from it as they
+     * are needed. Only the header is read here. The file stays open until the grid's occupancy,
+     * a PagedOccupancy, is closed.
+     *
+     * @param filePath location of the tiled grid file
+     * @param maxResidentTiles most tiles kept in memory at once
+     * @return Grid object that reads its tiles from the file
+     * @throws IOException throws exception if the file cannot be read or is not a tiled grid file
+     */
+    static Grid load(Path filePath, int maxResidentTiles) throws IOException{
+        RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "r");
+        try {
+            byte[] bytes = new byte[HEADER_SIZE];
+            if(file.length() < HEADER_SIZE){
+                throw new IOException(filePath + " is not a tiled grid file");
+            }
+            file.readFully(bytes);
+            ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            if(header.getInt(0) != MAGIC){
+                throw new IOException(filePath + " is not a tiled grid file");
+            }
+            if(header.getInt(4) != VERSION){
+                throw new IOException("Unsupported tiled grid version " + header.getInt(4));
+            }
+            int width = header.getInt(8);
+            int height = header.getInt(12);
+            if(header.getInt(16) != PagedOccupancy.TILE_SIZE){
+                throw new IOException("Unsupported tile size " + header.getInt(16));
+            }
+            if(width < 1 || height < 1){
+                throw new IOException("Unsupported grid size " + width + "x" + height);
+            }
+            //PagedOccupancy keeps a reference and a clock bit for every tile
+            long tiles = (long) PagedOccupancy.tilesAlong(width)*PagedOccupancy.tilesAlong(height);
+            if(tiles > MAX_TILES){
+                throw new IOException("Unsupported grid size " + width + "x" + height);
+            }
+            if(file.length() - HEADER_SIZE < tiles*PagedOccupancy.TILE_BYTES){
+                throw new IOException(filePath + " is shorter than its header says");
+            }
+            int flags = header.getInt(36);
+            Grid grid = new Grid(width, height, new PagedOccupancy(file, HEADER_SIZE, width, height, maxResidentTiles));
+            if((flags & HAS_START) != 0){
+                grid.setStart(new Position(header.getInt(20), header.getInt(24)));
+            }
+            if((flags & HAS_END) != 0){
+                grid.setEnd(new Position(header.getInt(28), header.getInt(32)));
+            }
+            return grid;
+        }
+        catch(IOException | RuntimeException e){
+            file.close();
+            throw e;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException{
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+    }
+}
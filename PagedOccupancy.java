@@ -0,0 +1,258 @@
+package grid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * PagedOccupancy - occupancy bitset of a grid too large to keep in memory, read from a tiled grid
+ * file (see PagedGridFormat) one square tile of TILE_SIZE x TILE_SIZE cells at a time. A tile is
+ * read the first time one of its cells is looked at (a tile fault) and then kept, up to a fixed
+ * number of resident tiles. Once that many are resident, a tile that has not been looked at
+ * recently is dropped to make room, chosen by the clock algorithm: every resident tile has a bit
+ * that is set when it is looked at, and a hand going round the tiles clears the bits it passes
+ * and drops the first tile whose bit is already clear. This evicts nearly the same tiles as
+ * dropping the least recently used one, but looking at a cell never takes a lock.
+ *
+ * Square tiles suit searches, which spread out from the start in every direction, so a search
+ * only reads the tiles around the cells it reaches. The grid may be wider than it is high or the
+ * other way round, and may hold more cells than an int can number as long as its tiles can be,
+ * see PagedSearch. Cells are looked up by their coordinates. Callers that number cells by
+ * y*dimension+x, with the larger side as the dimension, see the cells outside the map as
+ * blocked without a tile being read for them, but only grids whose square of cells fits an int
+ * can be looked at that way.
+ *
+ * Tiles never change once read, so a thread may keep reading a tile that has just been dropped.
+ * Any number of threads may search the grid at once. Tiles are read one at a time with a
+ * RandomAccessFile rather than a FileChannel, since a FileChannel is closed for every thread when
+ * a thread reading from it is interrupted. A tile that cannot be read throws an
+ * UncheckedIOException from the search that needed it.
+ *
+ * @author Danielle Plecki
+ */
+class PagedOccupancy implements Occupancy, Closeable {
+    static final int TILE_SHIFT = 6;
+    static final int TILE_SIZE = 1 << TILE_SHIFT;
+    static final int TILE_BYTES = TILE_SIZE*Long.BYTES;
+    static final int DEFAULT_RESIDENT_TILES = 4096;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    //Tile faults taken by each thread, so that SearchMetrics can tell the faults of one query
+    private static final ThreadLocal<long[]> THREAD_FAULTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final RandomAccessFile file;
+    private final long tilesOffset;
+    private final int width;
+    private final int height;
+    private final int dimension;
+    private final int tilesAcross;
+    //Rows of each resident tile, one word per row with the lowest bit for the leftmost cell,
+    //or null for tiles that are not resident
+    private final AtomicReferenceArray<long[]> tiles;
+    //Clock bit of each tile, set without a lock when the tile is looked at
+    private final byte[] referenced;
+    //Tiles resident in each slot of the clock, guarded by this like the fields below
+    private final int[] slots;
+    private final byte[] readBuffer = new byte[TILE_BYTES];
+    private int residentTiles;
+    private int hand;
+    private long faults;
+    private long evictions;
+
+    /**
+     * @param file open tiled grid file, which the occupancy closes when it is closed
+     * @param tilesOffset position of the first tile in the file
+     * @param width number of columns of the grid
+     * @param height number of rows of the grid
+     * @param maxResidentTiles most tiles kept in memory at once
+     */
+    PagedOccupancy(RandomAccessFile file, long tilesOffset, int width, int height, int maxResidentTiles){
+        if(maxResidentTiles < 1){
+            throw new IllegalArgumentException("At least one tile has to be resident");
+        }
+        this.file = file;
+        this.tilesOffset = tilesOffset;
+        this.width = width;
+        this.height = height;
+        this.dimension = Math.max(width, height);
+        this.tilesAcross = tilesAlong(width);
+        int tileCount = tilesAcross*tilesAlong(height);
+        tiles = new AtomicReferenceArray<>(tileCount);
+        referenced = new byte[tileCount];
+        slots = new int[Math.min(maxResidentTiles, tileCount)];
+    }
+
+    /**
+     * @param cells number of cells along one side of a grid
+     * @return number of tiles needed to cover them
+     */
+    static int tilesAlong(int cells){
+        return (cells + TILE_MASK) >>> TILE_SHIFT;
+    }
+
+    /**
+     * This method returns the tile faults taken so far by the calling thread on any paged
+     * occupancy, so that the faults of one query can be told by the difference.
+     *
+     * @return tile faults of the calling thread
+     */
+    static long threadFaults(){
+        return THREAD_FAULTS.get()[0];
+    }
+
+    @Override
+    public boolean isBlocked(int cell){
+        int y = cell / dimension;
+        return isBlocked(cell - y*dimension, y, dimension);
+    }
+
+    @Override
+    public boolean isBlocked(int x, int y, int gridDimension){
+        if(x >= width || y >= height){
+            return true;
+        }
+        int tile = (y >>> TILE_SHIFT)*tilesAcross + (x >>> TILE_SHIFT);
+        long[] rows = tiles.get(tile);
+        if(rows == null){
+            rows = fault(tile);
+        }
+        if(referenced[tile] == 0){
+            referenced[tile] = 1;
+        }
+        return (rows[y & TILE_MASK] & (1L << x)) != 0;
+    }
+
+    /**
+     * @throws IllegalStateException if the words of the grid cannot be numbered by an int
+     */
+    @Override
+    public int wordCount(){
+        long words = ((long) dimension*dimension + 63) >>> 6;
+        if(words > Integer.MAX_VALUE){
+            throw new IllegalStateException("A " + width + "x" + height + " grid cannot be listed word by word");
+        }
+        return (int) words;
+    }
+
+    /**
+     * This method puts a word of the row by row bitset together from the tiles, which is slow,
+     * since it is only used to copy or list the whole grid.
+     */
+    @Override
+    public long word(int index){
+        long cells = (long) dimension*dimension;
+        long word = 0;
+        for(int bit = 0; bit < 64 && ((long) index << 6) + bit < cells; bit++){
+            long cell = ((long) index << 6) + bit;
+            if(isBlocked((int) (cell % dimension), (int) (cell / dimension), dimension)){
+                word |= 1L << bit;
+            }
+        }
+        return word;
+    }
+
+    int getWidth(){
+        return width;
+    }
+
+    int getHeight(){
+        return height;
+    }
+
+    /**
+     * @return number of tiles the grid is split into
+     */
+    int tileCount(){
+        return tiles.length();
+    }
+
+    /**
+     * @return most tiles kept in memory at once
+     */
+    int maxResidentTiles(){
+        return slots.length;
+    }
+
+    synchronized int residentTiles(){
+        return residentTiles;
+    }
+
+    /**
+     * @return number of times a tile was read from the file
+     */
+    synchronized long faults(){
+        return faults;
+    }
+
+    /**
+     * @return number of times a resident tile was dropped to make room for another
+     */
+    synchronized long evictions(){
+        return evictions;
+    }
+
+    /**
+     * This method closes the file. Looking at a tile that is not resident fails afterwards.
+     */
+    @Override
+    public void close() throws IOException{
+        file.close();
+    }
+
+    /**
+     * This method reads a tile that is not resident, unless another thread has just read it.
+     */
+    private synchronized long[] fault(int tile){
+        long[] rows = tiles.get(tile);
+        if(rows != null){
+            return rows;
+        }
+        rows = readTile(tile);
+        int slot = freeSlot();
+        slots[slot] = tile;
+        referenced[tile] = 1;
+        tiles.set(tile, rows);
+        faults++;
+        THREAD_FAULTS.get()[0]++;
+        return rows;
+    }
+
+    /**
+     * This method returns an empty slot of the clock, dropping a tile if they are all taken.
+     */
+    private int freeSlot(){
+        if(residentTiles < slots.length){
+            return residentTiles++;
+        }
+        while(true){
+            int tile = slots[hand];
+            int slot = hand;
+            hand = (hand + 1) % slots.length;
+            if(referenced[tile] != 0){
+                referenced[tile] = 0; //a second chance
+            }
+            else {
+                tiles.set(tile, null);
+                evictions++;
+                return slot;
+            }
+        }
+    }
+
+    private long[] readTile(int tile){
+        try {
+            file.seek(tilesOffset + (long) tile*TILE_BYTES);
+            file.readFully(readBuffer);
+        }
+        catch(IOException e){
+            throw new UncheckedIOException("Cannot read tile " + tile + " of the grid", e);
+        }
+        long[] rows = new long[TILE_SIZE];
+        ByteBuffer.wrap(readBuffer).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,291 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * PagedSearch - A* search for paged grids, see PagedGridFormat, which may hold more cells than an
+ * int can number. The other path finders keep arrays with an entry for every cell of the grid,
+ * which for such a grid would not fit in memory even though its obstacles never have to. This one
+ * only keeps the cells the search reaches, numbered in the order they are reached: the cell as a
+ * long y*width+x, its G score, its parent's number and its open/closed state. An open addressing
+ * hash table finds the number of a cell, and the numbers are the keys of the open set. Memory
+ * grows with the cells a query reaches, under 60 bytes each, and not with the size of the grid.
+ *
+ * Moves are four connected and cost 1, and cells outside the width and height are never looked
+ * at. The estimate is the Manhattan distance, with ties on F score broken towards the cell closer
+ * to the end, so that on open ground the search reaches little more than the cells along the
+ * path. A search that would reach more than its limit of cells stops with an
+ * IllegalStateException instead of running out of memory.
+ *
+ * Like SearchEngine, the hash table is stamped with the number of the search that filled each
+ * slot, so starting a new search does not clear it. The arrays keep the size of the largest
+ * search so far.
+ *
+ * @author Danielle Plecki
+ */
+class PagedSearch implements PathFinder {
+    static final int DEFAULT_MAX_CELLS = 1 << 21;
+    private static final int INITIAL_CELLS = 1 << 10;
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+    private static final int NOT_REACHED = -1;
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final int maxCells;
+    private final double tieBreak; //a Manhattan distance times this is under half a step
+    //Cells reached by the current search, indexed by the number they were given when reached
+    private long[] cells;
+    private int[] gScore;
+    private int[] cameFrom;
+    private byte[] state;
+    private int reached;
+    //Number of the cell in each slot, at most half of the slots are in use
+    private int[] table = new int[2*INITIAL_CELLS];
+    private int[] tableStamp = new int[2*INITIAL_CELLS]; //tableStamp[slot] == currentSearch when the slot is in use
+    private int tableShift = Long.numberOfLeadingZeros(2*INITIAL_CELLS) + 1;
+    private int currentSearch;
+    private final IndexedMinHeap openSet;
+    private int expandedNodes;
+
+    PagedSearch(Grid grid){
+        this(grid, DEFAULT_MAX_CELLS);
+    }
+
+    /**
+     * @param grid grid to search
+     * @param maxCells most cells one search may reach
+     */
+    PagedSearch(Grid grid, int maxCells){
+        if(maxCells < 1){
+            throw new IllegalArgumentException("A search has to be able to reach at least one cell");
+        }
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.maxCells = maxCells;
+        tieBreak = 0.5 / ((long) width + height);
+        int capacity = Math.min(INITIAL_CELLS, maxCells);
+        cells = new long[capacity];
+        gScore = new int[capacity];
+        cameFrom = new int[capacity];
+        state = new byte[capacity];
+        openSet = new IndexedMinHeap(capacity);
+    }
+
+    @Override
+    public Grid getGrid(){
+        return grid;
+    }
+
+    @Override
+    public int getDimension(){
+        return grid.getDimension();
+    }
+
+    @Override
+    public int expandedNodes(){
+        return expandedNodes;
+    }
+
+    @Override
+    public void collectStats(SearchStats stats){
+        stats.countSearch(expandedNodes, openSet);
+    }
+
+    /**
+     * @return number of cells the arrays have room for, which grows with the largest search so far
+     */
+    int cellCapacity(){
+        return cells.length;
+    }
+
+    /**
+     * This method finds the shortest path between two positions. Neighbors are evaluated in the
+     * order north, south, east, west as in SearchEngine.
+     *
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return path from starting position to ending, or null if there is no path
+     * @throws IllegalStateException if the search would reach more cells than its limit
+     */
+    @Override
+    public GridPath findPath(Position startPosition, Position endPosition){
+        int startX = startPosition.getX();
+        int startY = startPosition.getY();
+        int endX = endPosition.getX();
+        int endY = endPosition.getY();
+        if(!inBounds(startX, startY) || !inBounds(endX, endY)){
+            return null;
+        }
+        if(!grid.connected(startX, startY, endX, endY)){
+            expandedNodes = 0;
+            return null;
+        }
+        reset();
+        long endCell = endY*(long) width + endX;
+        int start = add(startY*(long) width + startX);
+        gScore[start] = 0;
+        cameFrom[start] = NOT_REACHED;
+        openSet.insert(start, estimate(startX, startY, endX, endY));
+
+        while(!openSet.isEmpty()){
+            int current = openSet.poll();
+            expandedNodes++;
+            long cell = cells[current];
+            if(cell == endCell){
+                return constructShortestPath(current);
+            }
+            state[current] = CLOSED;
+            int x = (int) (cell % width);
+            int y = (int) (cell / width);
+            int neighborGScore = gScore[current] + 1;
+            if(y + 1 < height){
+                relax(current, x, y + 1, neighborGScore, endX, endY);
+            }
+            if(y > 0){
+                relax(current, x, y - 1, neighborGScore, endX, endY);
+            }
+            if(x + 1 < width){
+                relax(current, x + 1, y, neighborGScore, endX, endY);
+            }
+            if(x > 0){
+                relax(current, x - 1, y, neighborGScore, endX, endY);
+            }
+        }
+        return null;
+    }
+
+    private void relax(int current, int x, int y, int neighborGScore, int endX, int endY){
+        long cell = y*(long) width + x;
+        int neighbor = find(cell);
+        if(neighbor != NOT_REACHED){
+            if(state[neighbor] == CLOSED || neighborGScore >= gScore[neighbor]){
+                return;
+            }
+            cameFrom[neighbor] = current;
+            gScore[neighbor] = neighborGScore;
+            openSet.decreaseKey(neighbor, neighborGScore + estimate(x, y, endX, endY));
+            return;
+        }
+        if(grid.isBlocked(x, y)){
+            return;
+        }
+        neighbor = add(cell);
+        cameFrom[neighbor] = current;
+        gScore[neighbor] = neighborGScore;
+        openSet.insert(neighbor, neighborGScore + estimate(x, y, endX, endY));
+    }
+
+    /**
+     * @return number of a cell reached by the current search, or NOT_REACHED
+     */
+    private int find(long cell){
+        int mask = table.length - 1;
+        for(int slot = slotOf(cell); tableStamp[slot] == currentSearch; slot = (slot + 1) & mask){
+            if(cells[table[slot]] == cell){
+                return table[slot];
+            }
+        }
+        return NOT_REACHED;
+    }
+
+    /**
+     * This method gives the next number to a cell the current search has not reached before.
+     */
+    private int add(long cell){
+        if(reached == maxCells){
+            throw new IllegalStateException("The search reached more than " + maxCells + " cells of the paged grid");
+        }
+        if(reached == cells.length){
+            int capacity = (int) Math.min(2L*cells.length, maxCells);
+            cells = Arrays.copyOf(cells, capacity);
+            gScore = Arrays.copyOf(gScore, capacity);
+            cameFrom = Arrays.copyOf(cameFrom, capacity);
+            state = Arrays.copyOf(state, capacity);
+            openSet.ensureCapacity(capacity);
+        }
+        if(2*(reached + 1) > table.length){
+            growTable();
+        }
+        int number = reached++;
+        cells[number] = cell;
+        state[number] = OPEN;
+        putInTable(number);
+        return number;
+    }
+
+    private void putInTable(int number){
+        int mask = table.length - 1;
+        int slot = slotOf(cells[number]);
+        while(tableStamp[slot] == currentSearch){
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = number;
+        tableStamp[slot] = currentSearch;
+    }
+
+    /**
+     * This method doubles the hash table and puts the cells reached so far back into it.
+     */
+    private void growTable(){
+        table = new int[2*table.length];
+        tableStamp = new int[table.length];
+        tableShift--;
+        for(int number = 0; number < reached; number++){
+            putInTable(number);
+        }
+    }
+
+    /**
+     * This method spreads the cells over the table by Fibonacci hashing, taking the top bits of
+     * the cell times the golden ratio, so that neighboring cells do not fall into one run of slots.
+     */
+    private int slotOf(long cell){
+        return (int) ((cell*0x9E3779B97F4A7C15L) >>> tableShift);
+    }
+
+    /**
+     * This method starts a new search by moving on to the next search number, which makes every
+     * slot of the table stamped by an earlier search count as empty. The table is only cleared on
+     * the rare occasion that the search number wraps around.
+     */
+    private void reset(){
+        openSet.clear();
+        expandedNodes = 0;
+        reached = 0;
+        currentSearch++;
+        if(currentSearch == 0){
+            Arrays.fill(tableStamp, 0);
+            currentSearch = 1;
+        }
+    }
+
+    private boolean inBounds(int x, int y){
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    private double estimate(int x, int y, int endX, int endY){
+        long distance = Math.abs((long) x - endX) + Math.abs((long) y - endY);
+        return distance + distance*tieBreak;
+    }
+
+    /**
+     * This method follows the parents from the ending cell back to the starting cell, filling
+     * the coordinates in from the back so that the path reads from start to end.
+     */
+    private GridPath constructShortestPath(int end){
+        int length = 0;
+        for(int number = end; number != NOT_REACHED; number = cameFrom[number]){
+            length++;
+        }
+        int[] coordinates = new int[2*length];
+        int index = coordinates.length;
+        for(int number = end; number != NOT_REACHED; number = cameFrom[number]){
+            coordinates[--index] = (int) (cells[number] / width);
+            coordinates[--index] = (int) (cells[number] % width);
+        }
+        return new GridPath(coordinates, gScore[end]);
+    }
+}
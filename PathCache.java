@@ -0,0 +1,426 @@
+package grid;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * PathCache - bounded cache of search results in front of a grid's path finders, for workloads
+ * where the same queries come back, such as many agents heading to the same few targets.
+ *
+ * Entries are kept in least recently used order and weigh one per position on their path, so
+ * the limit bounds the memory the cached paths take. A query is answered from the cache when:
+ *
+ *  - the same start and end were searched before, or
+ *  - both its start and its end lie on a cached path. Every part of a shortest path is itself a
+ *    shortest path, so the part between them is returned, reversed if the end comes first. This
+ *    is only done for search modes that find shortest paths.
+ *
+ * To find such a path, each cell leads to the first few cached paths through it, at most
+ * MAX_PATHS_PER_CELL, and each cached path can look up where on it a cell lies. So a lookup checks
+ * the paths through the start for the end, one table lookup each, and a busy cell such as a
+ * corridor that every path goes through does not make lookups slower the more paths are cached.
+ * The cells are kept as ints in open addressing tables rather than boxed in maps. Those tables
+ * take about four ints per position of the cached paths, on top of the paths themselves.
+ *
+ * Every entry belongs to the grid version it was searched on. When a newer version is queried the
+ * whole cache is dropped, and queries on an older version than the cache's are searched without
+ * it. A cache serves one grid, or the snapshots of one ConcurrentGrid. It is thread safe; the
+ * searches themselves run outside of its lock.
+ *
+ * Every query goes through SearchMetrics: the ones that are searched like any other, and the ones
+ * answered from the cache as queries that expanded no nodes.
+ *
+ * @author Danielle Plecki
+ */
+class PathCache {
+    static final int MAX_PATHS_PER_CELL = 8;
+
+    private final SearchMode mode;
+    private final long maxWeight;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    //Cells of the cached paths, each leading to some of the entries whose path goes through the cell
+    private final CellIndex cellIndex = new CellIndex();
+    private long version = -1;
+    private int dimension;
+    private long weight;
+    private long hits;
+    private long subPathHits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param mode kind of search used for queries that are not cached
+     * @param maxWeight most positions the cached paths may hold together
+     */
+    PathCache(SearchMode mode, long maxWeight){
+        this.mode = mode;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * This method finds the path between two positions, from the cache if it can be answered from
+     * there and with the calling thread's path finder otherwise.
+     *
+     * @param grid grid to search
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return path from starting position to ending, or null if there is no path
+     */
+    GridPath findPath(Grid grid, Position startPosition, Position endPosition){
+        int gridDimension = grid.getDimension();
+        int startX = startPosition.getX();
+        int startY = startPosition.getY();
+        int endX = endPosition.getX();
+        int endY = endPosition.getY();
+        if(startX < 0 || startY < 0 || endX < 0 || endY < 0 || startX >= gridDimension
+                || startY >= gridDimension || endX >= gridDimension || endY >= gridDimension){
+            return null;
+        }
+        int startCell = startY*gridDimension + startX;
+        int endCell = endY*gridDimension + endX;
+        long gridVersion = grid.getVersion();
+        //A lookup is only measured when there is a listener to tell about it
+        boolean watched = SearchMetrics.hasListeners();
+        long began = watched ? System.nanoTime() : 0;
+        long allocatedBefore = watched ? SearchMetrics.allocatedBytes() : -1;
+        boolean hit = false;
+        GridPath cached = null;
+        synchronized(this){
+            if(gridVersion > version || gridDimension != dimension){
+                clear();
+                version = gridVersion;
+                dimension = gridDimension;
+            }
+            if(gridVersion == version){
+                Entry entry = entries.get(key(startCell, endCell));
+                if(entry != null){
+                    hits++;
+                    hit = true;
+                    cached = entry.path;
+                }
+                else {
+                    cached = findSubPath(grid, startCell, endCell);
+                    if(cached != null){
+                        subPathHits++;
+                        hit = true;
+                    }
+                }
+            }
+            if(!hit){
+                misses++;
+            }
+        }
+        if(hit){
+            if(watched){
+                long allocatedAfter = SearchMetrics.allocatedBytes();
+                SearchMetrics.answered(mode, startPosition, endPosition, cached, System.nanoTime() - began,
+                        allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+            }
+            return cached;
+        }
+        GridPath path = SearchMetrics.findPath(grid.pathFinder(mode), mode, startPosition, endPosition);
+        synchronized(this){
+            if(gridVersion == version && gridDimension == dimension){
+                add(new Entry(key(startCell, endCell), path));
+            }
+        }
+        return path;
+    }
+
+    /**
+     * This method looks for a cached path that goes through both cells.
+     */
+    private GridPath findSubPath(Grid grid, int startCell, int endCell){
+        if(!mode.findsShortestPaths()){
+            return null;
+        }
+        for(Occurrence from = cellIndex.get(startCell); from != null; from = from.next){
+            int to = from.entry.indexOf(endCell);
+            if(to < 0){
+                continue;
+            }
+            GridPath path = from.entry.path;
+            //Going backwards ends on the path's first cell, which may be a blocked start
+            if(to < from.index && grid.isBlocked(path.getX(to), path.getY(to))){
+                continue;
+            }
+            entries.get(from.entry.key); //counts as a use of the entry
+            int step = to >= from.index ? 1 : -1;
+            int length = Math.abs(to - from.index) + 1;
+            int[] coordinates = new int[2*length];
+            for(int i = 0, index = from.index; i < length; i++, index += step){
+                coordinates[2*i] = path.getX(index);
+                coordinates[2*i + 1] = path.getY(index);
+            }
+            return new GridPath(coordinates, length - 1);
+        }
+        return null;
+    }
+
+    private void add(Entry entry){
+        if(entry.weight > maxWeight || entries.containsKey(entry.key)){
+            return;
+        }
+        entries.put(entry.key, entry);
+        weight += entry.weight;
+        if(entry.path != null && mode.findsShortestPaths()){
+            entry.indexCells(dimension);
+            for(int i = 0; i < entry.path.length(); i++){
+                int cell = entry.path.getY(i)*dimension + entry.path.getX(i);
+                Occurrence first = cellIndex.get(cell);
+                int paths = 0;
+                for(Occurrence occurrence = first; occurrence != null; occurrence = occurrence.next){
+                    paths++;
+                }
+                if(paths < MAX_PATHS_PER_CELL){
+                    cellIndex.put(cell, new Occurrence(entry, i, first));
+                }
+            }
+        }
+        Iterator<Entry> eldest = entries.values().iterator();
+        while(weight > maxWeight){
+            Entry evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted);
+            weight -= evicted.weight;
+            evictions++;
+        }
+    }
+
+    private void unindex(Entry entry){
+        if(entry.path == null || !mode.findsShortestPaths()){
+            return;
+        }
+        for(int i = 0; i < entry.path.length(); i++){
+            int cell = entry.path.getY(i)*dimension + entry.path.getX(i);
+            Occurrence first = cellIndex.get(cell);
+            Occurrence previous = null;
+            for(Occurrence occurrence = first; occurrence != null; occurrence = occurrence.next){
+                if(occurrence.entry != entry){
+                    previous = occurrence;
+                }
+                else if(previous == null){
+                    first = occurrence.next;
+                }
+                else {
+                    previous.next = occurrence.next;
+                }
+            }
+            if(first == null){
+                cellIndex.remove(cell);
+            }
+            else {
+                cellIndex.put(cell, first);
+            }
+        }
+    }
+
+    /**
+     * This method drops every cached path. The counters are kept.
+     */
+    synchronized void clear(){
+        entries.clear();
+        cellIndex.clear();
+        weight = 0;
+    }
+
+    private static int hash(int cell){
+        int mixed = cell*0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private static long key(int startCell, int endCell){
+        return ((long) startCell << 32) | (endCell & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return queries answered with a path cached for the same start and end
+     */
+    synchronized long hits(){
+        return hits;
+    }
+
+    /**
+     * @return queries answered with part of a cached path
+     */
+    synchronized long subPathHits(){
+        return subPathHits;
+    }
+
+    /**
+     * @return queries that had to be searched
+     */
+    synchronized long misses(){
+        return misses;
+    }
+
+    /**
+     * @return entries dropped to stay within the weight limit
+     */
+    synchronized long evictions(){
+        return evictions;
+    }
+
+    /**
+     * @return number of positions held by the cached paths
+     */
+    synchronized long weight(){
+        return weight;
+    }
+
+    synchronized int size(){
+        return entries.size();
+    }
+
+    /**
+     * Entry - result of one search, a null path meaning the end could not be reached.
+     */
+    private static class Entry {
+        final long key;
+        final GridPath path;
+        final int weight;
+        //Open addressing table of the path's cells, each followed by its index on the path. A
+        //shortest path never goes through a cell twice, so every cell has one index.
+        private int[] cellIndexes;
+
+        Entry(long key, GridPath path){
+            this.key = key;
+            this.path = path;
+            this.weight = path == null ? 1 : path.length();
+        }
+
+        /**
+         * This method builds the table of the path's cells, so that indexOf() can be used.
+         */
+        void indexCells(int dimension){
+            int slots = Integer.highestOneBit(Math.max(2, 2*path.length() - 1)) << 1;
+            cellIndexes = new int[2*slots];
+            Arrays.fill(cellIndexes, -1);
+            for(int i = 0; i < path.length(); i++){
+                int cell = path.getY(i)*dimension + path.getX(i);
+                int slot = hash(cell) & (slots - 1);
+                while(cellIndexes[2*slot] != -1){
+                    slot = (slot + 1) & (slots - 1);
+                }
+                cellIndexes[2*slot] = cell;
+                cellIndexes[2*slot + 1] = i;
+            }
+        }
+
+        /**
+         * @param cell cell index y*dimension+x
+         * @return index of the cell on the path, or -1 if the path does not go through it
+         */
+        int indexOf(int cell){
+            int slots = cellIndexes.length / 2;
+            for(int slot = hash(cell) & (slots - 1); cellIndexes[2*slot] != -1; slot = (slot + 1) & (slots - 1)){
+                if(cellIndexes[2*slot] == cell){
+                    return cellIndexes[2*slot + 1];
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * CellIndex - map from a cell to the first Occurrence of it on the cached paths, an open
+     * addressing table keyed by the int cell. Removing a cell shifts the cells after it back, so
+     * the table needs no markers for removed cells.
+     */
+    private static class CellIndex {
+        private static final int EMPTY = -1;
+        private static final int INITIAL_SLOTS = 16;
+
+        private int[] cells;
+        private Occurrence[] firsts;
+        private int size;
+
+        CellIndex(){
+            clear();
+        }
+
+        Occurrence get(int cell){
+            return firsts[slotOf(cell)];
+        }
+
+        void put(int cell, Occurrence first){
+            int slot = slotOf(cell);
+            if(cells[slot] == EMPTY){
+                if(2*(size + 1) > cells.length){
+                    grow();
+                    slot = slotOf(cell);
+                }
+                cells[slot] = cell;
+                size++;
+            }
+            firsts[slot] = first;
+        }
+
+        void remove(int cell){
+            int hole = slotOf(cell);
+            if(cells[hole] == EMPTY){
+                return;
+            }
+            int mask = cells.length - 1;
+            for(int next = (hole + 1) & mask; cells[next] != EMPTY; next = (next + 1) & mask){
+                //A cell can fill the hole unless its own slot lies between the hole and where it is
+                int home = hash(cells[next]) & mask;
+                if(((next - home) & mask) >= ((next - hole) & mask)){
+                    cells[hole] = cells[next];
+                    firsts[hole] = firsts[next];
+                    hole = next;
+                }
+            }
+            cells[hole] = EMPTY;
+            firsts[hole] = null;
+            size--;
+        }
+
+        void clear(){
+            cells = new int[INITIAL_SLOTS];
+            Arrays.fill(cells, EMPTY);
+            firsts = new Occurrence[INITIAL_SLOTS];
+            size = 0;
+        }
+
+        private int slotOf(int cell){
+            int mask = cells.length - 1;
+            int slot = hash(cell) & mask;
+            while(cells[slot] != EMPTY && cells[slot] != cell){
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow(){
+            int[] oldCells = cells;
+            Occurrence[] oldFirsts = firsts;
+            cells = new int[2*oldCells.length];
+            Arrays.fill(cells, EMPTY);
+            firsts = new Occurrence[cells.length];
+            for(int slot = 0; slot < oldCells.length; slot++){
+                if(oldCells[slot] != EMPTY){
+                    int newSlot = slotOf(oldCells[slot]);
+                    cells[newSlot] = oldCells[slot];
+                    firsts[newSlot] = oldFirsts[slot];
+                }
+            }
+        }
+    }
+
+    /**
+     * Occurrence - one position of a cached path, linked to the other paths through the same cell.
+     */
+    private static class Occurrence {
+        final Entry entry;
+        final int index;
+        Occurrence next;
+
+        Occurrence(Entry entry, int index, Occurrence next){
+            this.entry = entry;
+            this.index = index;
+            this.next = next;
+        }
+    }
+}
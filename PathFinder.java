@@ -0,0 +1,65 @@
+package grid;
+
+/**
+ * PathFinder - a search that finds shortest paths on one grid. Implementations keep scratch
+ * state between searches, so they are not thread safe; Grid.pathFinder() hands out one of
+ * each kind per thread.
+ *
+ * @author Danielle Plecki
+ */
+interface PathFinder {
+
+    /**
+     * This method finds the shortest path between two positions of the grid.
+     *
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return path from starting position to ending, or null if there is no path
+     */
+    GridPath findPath(Position startPosition, Position endPosition);
+
+    /**
+     * @return dimension of the grid the path finder was created for
+     */
+    int getDimension();
+
+    /**
+     * @return number of nodes taken off the open set during the last search
+     */
+    int expandedNodes();
+
+    /**
+     * @return grid the path finder searches
+     */
+    Grid getGrid();
+
+    /**
+     * This method moves the path finder on to another grid of the same dimension, such as a newer
+     * snapshot of a ConcurrentGrid, so that its arrays can be used again instead of allocated.
+     *
+     * @param grid grid to search from now on
+     * @return true if the path finder now searches the grid, false if it cannot switch grids
+     */
+    default boolean useGrid(Grid grid){
+        return false;
+    }
+
+    /**
+     * This method adds what the last search did to the stats of a query, see SearchMetrics. Path
+     * finders without an open set of cells only report the nodes they expanded.
+     *
+     * @param stats stats of the query the last search was for
+     */
+    default void collectStats(SearchStats stats){
+        stats.countSearch(expandedNodes());
+    }
+
+    /**
+     * This method adds the cells the last search expanded to a heatmap. Path finders that do not
+     * keep their state per cell add nothing.
+     *
+     * @param trace heatmap to add the cells to
+     */
+    default void traceExpanded(SearchTrace trace){
+    }
+}
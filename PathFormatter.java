@@ -0,0 +1,133 @@
+package grid;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * PathFormatter - class that turns a GridPath into the text output of the program. Each position
+ * is formatted as x=0, y=0 on its own line, in order from the ending position to the starting
+ * position. The exact size of the text is worked out first, so it is written into one buffer
+ * that never has to grow.
+ *
+ * @author Danielle Plecki
+ */
+class PathFormatter {
+    private static final byte[] X_PREFIX = "x=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] Y_PREFIX = ", y=".getBytes(StandardCharsets.US_ASCII);
+
+    private PathFormatter(){} //only static methods
+
+    /**
+     * @param path path to format
+     * @return string of path from ending position to starting
+     */
+    static String format(GridPath path){
+        return new String(toBytes(path), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * This method writes the formatted path followed by a line break to a stream in a single write.
+     *
+     * @param path path to format
+     * @param out stream to write to, such as System.out
+     * @throws IOException if the stream cannot be written to
+     */
+    static void write(GridPath path, OutputStream out) throws IOException{
+        byte[] text = toBytes(path);
+        byte[] line = new byte[text.length + 1];
+        System.arraycopy(text, 0, line, 0, text.length);
+        line[text.length] = '\n';
+        out.write(line);
+        out.flush();
+    }
+
+    /**
+     * This method formats the path into a byte array that is sized exactly for the text.
+     *
+     * @param path path to format
+     * @return ASCII text of the path from ending position to starting
+     */
+    static byte[] toBytes(GridPath path){
+        int length = path.length();
+        int size = length - 1; //line breaks between positions
+        for(int i = 0; i < length; i++){
+            size += X_PREFIX.length + digits(path.getX(i)) + Y_PREFIX.length + digits(path.getY(i));
+        }
+        byte[] buffer = new byte[size];
+        int offset = 0;
+        for(int i = length - 1; i >= 0; i--){
+            offset = put(X_PREFIX, buffer, offset);
+            offset = putInt(path.getX(i), buffer, offset);
+            offset = put(Y_PREFIX, buffer, offset);
+            offset = putInt(path.getY(i), buffer, offset);
+            if(i > 0){
+                buffer[offset++] = '\n';
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * This method formats a path as one compact line, used by PathServer: the number of positions
+     * followed by the x and y of each one from start to end, all separated by spaces, and a line
+     * break. A missing path is the line "0".
+     *
+     * @param path path to format, or null
+     * @return ASCII line of the path from starting position to ending
+     */
+    static byte[] toCompactLine(GridPath path){
+        int length = path == null ? 0 : path.length();
+        int size = digits(length) + 1;
+        for(int i = 0; i < length; i++){
+            size += 2 + digits(path.getX(i)) + digits(path.getY(i));
+        }
+        byte[] buffer = new byte[size];
+        int offset = putInt(length, buffer, 0);
+        for(int i = 0; i < length; i++){
+            buffer[offset++] = ' ';
+            offset = putInt(path.getX(i), buffer, offset);
+            buffer[offset++] = ' ';
+            offset = putInt(path.getY(i), buffer, offset);
+        }
+        buffer[offset] = '\n';
+        return buffer;
+    }
+
+    private static int put(byte[] text, byte[] buffer, int offset){
+        System.arraycopy(text, 0, buffer, offset, text.length);
+        return offset + text.length;
+    }
+
+    private static int putInt(int value, byte[] buffer, int offset){
+        int end = offset + digits(value);
+        long remaining = value;
+        if(remaining < 0){
+            buffer[offset] = '-';
+            remaining = -remaining;
+        }
+        int position = end;
+        do {
+            buffer[--position] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while(remaining != 0);
+        return end;
+    }
+
+    /**
+     * @return number of characters needed to print the value, including a minus sign
+     */
+    private static int digits(int value){
+        long remaining = value;
+        int count = 1;
+        if(remaining < 0){
+            count++;
+            remaining = -remaining;
+        }
+        while(remaining >= 10){
+            remaining /= 10;
+            count++;
+        }
+        return count;
+    }
+}
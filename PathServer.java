@@ -0,0 +1,407 @@
+package grid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * PathServer - keeps one grid loaded and answers path queries over TCP, so that clients do not
+ * pay for starting a JVM, warming up the JIT and loading the grid on every query.
+ *
+ * The protocol is line based ASCII. Every request is one line and gets exactly one response line,
+ * in the order the requests were sent, so a client can send many requests before reading any
+ * responses (pipelining):
+ *
+ *  - "sx sy ex ey" searches from (sx, sy) to (ex, ey). The response is the number of positions on
+ *    the path followed by the x and y of each one from start to end, see
+ *    PathFormatter.toCompactLine(), or "0" if there is no path.
+ *  - "INFO" is answered with "dimension d mode MODE".
+ *  - Anything else is answered with a line starting with "ERR".
+ *
+ * A few I/O threads, each with its own NIO selector, read and write every connection without
+ * blocking; the first one also accepts new connections and hands them out in turn. Searches are
+ * handed to a pool of worker threads, each with its own pooled path finders, see
+ * Grid.pathFinder(), and their responses are written back in request order as soon as the ones
+ * before them are done. A connection stops being read while MAX_PENDING of its requests are
+ * unanswered, so a client that never reads cannot fill the server's memory. A client may shut
+ * down its side of the connection after its last request; the server still answers every request
+ * and closes the connection after the last response.
+ *
+ * @author Danielle Plecki
+ */
+class PathServer implements Closeable {
+    static final int DEFAULT_IO_THREADS = 2;
+    static final int MAX_LINE = 256;
+    static final int MAX_PENDING = 4096;
+
+    private static final byte[] ERR_SYNTAX = "ERR expected sx sy ex ey\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Grid grid;
+    private final SearchMode mode;
+    private final ExecutorService workers;
+    private final IoLoop[] loops;
+    private final Thread[] threads;
+    private final byte[] info;
+    private ServerSocketChannel server;
+    private int nextLoop;
+    private volatile boolean running = true;
+
+    /**
+     * @param grid grid to search, which must not be changed while the server runs. Its connected
+     *             regions are labelled here, see Grid.labelRegionsUpFront()
+     * @param mode kind of search to use
+     * @param ioThreads number of threads reading and writing connections
+     * @param workerThreads number of threads searching
+     * @throws IOException if a selector cannot be opened
+     */
+    PathServer(Grid grid, SearchMode mode, int ioThreads, int workerThreads) throws IOException{
+        this.grid = grid;
+        this.mode = mode;
+        grid.labelRegionsUpFront();
+        this.workers = Executors.newFixedThreadPool(workerThreads);
+        this.info = ("dimension " + grid.getDimension() + " mode " + mode + "\n").getBytes(StandardCharsets.US_ASCII);
+        loops = new IoLoop[ioThreads];
+        threads = new Thread[ioThreads];
+        for(int i = 0; i < ioThreads; i++){
+            loops[i] = new IoLoop(Selector.open());
+            threads[i] = new Thread(loops[i], "path-server-io-" + i);
+        }
+    }
+
+    /**
+     * This method starts listening and serving. It returns straight away; the server runs on its
+     * own threads until it is closed.
+     *
+     * @param address address to listen on, with port 0 for any free port
+     * @return address the server listens on
+     * @throws IOException if the address cannot be bound
+     */
+    InetSocketAddress start(InetSocketAddress address) throws IOException{
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        for(Thread thread : threads){
+            thread.start();
+        }
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * This method stops the server, closing every connection without answering the requests that
+     * are still being searched.
+     */
+    @Override
+    public void close() throws IOException{
+        running = false;
+        for(IoLoop loop : loops){
+            loop.selector.wakeup();
+        }
+        for(Thread thread : threads){
+            try {
+                thread.join();
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.shutdownNow();
+        if(server != null){
+            server.close();
+        }
+    }
+
+    private void accept() throws IOException{
+        SocketChannel channel;
+        while((channel = server.accept()) != null){
+            IoLoop loop = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+            loop.accepted.add(channel);
+            loop.selector.wakeup();
+        }
+    }
+
+    /**
+     * This method runs one request on a worker thread.
+     */
+    private byte[] search(int[] request){
+        GridPath path = AStar.pooledFindPath(grid, new Position(request[0], request[1]),
+                new Position(request[2], request[3]), mode);
+        return PathFormatter.toCompactLine(path);
+    }
+
+    /**
+     * This method reads the four numbers of a request line.
+     *
+     * @return the numbers, or null if the line is not four numbers separated by spaces
+     */
+    private static int[] parse(byte[] line, int from, int to){
+        int[] numbers = new int[4];
+        int count = 0;
+        int i = from;
+        while(i < to){
+            if(line[i] == ' ' || line[i] == '\r' || line[i] == '\t'){
+                i++;
+                continue;
+            }
+            if(count == 4){
+                return null;
+            }
+            boolean negative = line[i] == '-';
+            if(negative){
+                i++;
+            }
+            int start = i;
+            long value = 0;
+            while(i < to && line[i] >= '0' && line[i] <= '9' && i - start < 10){
+                value = value*10 + (line[i++] - '0');
+            }
+            if(i == start || value > Integer.MAX_VALUE || (i < to && line[i] != ' ' && line[i] != '\r' && line[i] != '\t')){
+                return null;
+            }
+            numbers[count++] = (int) (negative ? -value : value);
+        }
+        return count == 4 ? numbers : null;
+    }
+
+    private static boolean isInfo(byte[] line, int from, int to){
+        while(to > from && (line[to - 1] == '\r' || line[to - 1] == ' ')){
+            to--;
+        }
+        return to - from == 4 && line[from] == 'I' && line[from + 1] == 'N' && line[from + 2] == 'F' && line[from + 3] == 'O';
+    }
+
+    /**
+     * IoLoop - one I/O thread and its selector, serving the connections handed to it.
+     */
+    private class IoLoop implements Runnable {
+        final Selector selector;
+        final ConcurrentLinkedQueue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        //Connections with responses finished by workers since the last pass
+        final ConcurrentLinkedQueue<Connection> ready = new ConcurrentLinkedQueue<>();
+
+        IoLoop(Selector selector){
+            this.selector = selector;
+        }
+
+        @Override
+        public void run(){
+            try {
+                while(running){
+                    selector.select();
+                    SocketChannel channel;
+                    while((channel = accepted.poll()) != null){
+                        channel.configureBlocking(false);
+                        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                        key.attach(new Connection(this, channel, key));
+                    }
+                    Connection connection;
+                    while((connection = ready.poll()) != null){
+                        connection.scheduled.set(false);
+                        connection.flush();
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while(keys.hasNext()){
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if(!key.isValid()){
+                            continue;
+                        }
+                        if(key.isAcceptable()){
+                            accept();
+                            continue;
+                        }
+                        connection = (Connection) key.attachment();
+                        if(key.isReadable()){
+                            connection.read();
+                        }
+                        if(key.isValid() && key.isWritable()){
+                            connection.flush();
+                        }
+                    }
+                }
+            }
+            catch(IOException e){
+                System.err.println("Path server I/O thread stopped: " + e);
+            }
+            finally {
+                for(SelectionKey key : selector.keys()){
+                    if(key.attachment() instanceof Connection){
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+                try {
+                    selector.close();
+                }
+                catch(IOException ignored){
+                }
+            }
+        }
+    }
+
+    /**
+     * Connection - the state of one client: the bytes read but not yet making up a whole line,
+     * the requests in the order they came with the responses finished so far, the responses
+     * being written, and whether the client has sent its last request.
+     */
+    private class Connection {
+        final IoLoop loop;
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(8*MAX_LINE);
+        final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        final ArrayDeque<ByteBuffer> unwritten = new ArrayDeque<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        boolean inputEnded;
+
+        Connection(IoLoop loop, SocketChannel channel, SelectionKey key){
+            this.loop = loop;
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void read(){
+            int read;
+            try {
+                read = channel.read(in);
+            }
+            catch(IOException e){
+                close();
+                return;
+            }
+            if(read < 0){
+                //The client has sent its last request, answer the pending ones before closing
+                inputEnded = true;
+                if(in.position() > 0){
+                    request(in.array(), 0, in.position()); //A last line without a line break
+                    in.clear();
+                }
+                flush();
+                return;
+            }
+            byte[] bytes = in.array();
+            int lineStart = 0;
+            for(int i = 0; i < in.position(); i++){
+                if(bytes[i] == '\n'){
+                    request(bytes, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if(lineStart == 0 && !in.hasRemaining()){
+                close(); //A line longer than any request
+                return;
+            }
+            in.flip();
+            in.position(lineStart);
+            in.compact();
+            if(pending.size() >= MAX_PENDING){
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+            flush();
+        }
+
+        private void request(byte[] bytes, int from, int to){
+            if(to == from || (to == from + 1 && bytes[from] == '\r')){
+                return;
+            }
+            Pending request = new Pending();
+            pending.add(request);
+            if(isInfo(bytes, from, to)){
+                request.response = info;
+                return;
+            }
+            int[] numbers = parse(bytes, from, to);
+            if(numbers == null){
+                request.response = ERR_SYNTAX;
+                return;
+            }
+            try {
+                workers.execute(() -> {
+                    byte[] response;
+                    try {
+                        response = search(numbers);
+                    }
+                    catch(RuntimeException e){
+                        response = ("ERR " + e + "\n").getBytes(StandardCharsets.US_ASCII);
+                    }
+                    request.response = response;
+                    if(scheduled.compareAndSet(false, true)){
+                        loop.ready.add(this);
+                        loop.selector.wakeup();
+                    }
+                });
+            }
+            catch(RejectedExecutionException e){
+                request.response = "ERR server closing\n".getBytes(StandardCharsets.US_ASCII);
+            }
+        }
+
+        /**
+         * This method writes the responses that are finished and have no unfinished ones before
+         * them, for as long as the socket takes them, and closes the connection once the client
+         * has sent its last request and every response is written.
+         */
+        void flush(){
+            if(!channel.isOpen()){
+                return;
+            }
+            while(!pending.isEmpty() && pending.peek().response != null){
+                unwritten.add(ByteBuffer.wrap(pending.poll().response));
+            }
+            try {
+                while(!unwritten.isEmpty()){
+                    channel.write(unwritten.toArray(new ByteBuffer[0]));
+                    while(!unwritten.isEmpty() && !unwritten.peek().hasRemaining()){
+                        unwritten.poll();
+                    }
+                    if(!unwritten.isEmpty()){
+                        break; //The socket is full, write the rest when it is writable again
+                    }
+                }
+            }
+            catch(IOException e){
+                close();
+                return;
+            }
+            if(inputEnded && pending.isEmpty() && unwritten.isEmpty()){
+                close();
+                return;
+            }
+            int ops = unwritten.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+            if(!inputEnded && pending.size() < MAX_PENDING){
+                ops |= SelectionKey.OP_READ;
+            }
+            key.interestOps(ops);
+        }
+
+        void close(){
+            key.cancel();
+            try {
+                channel.close();
+            }
+            catch(IOException ignored){
+            }
+        }
+    }
+
+    /**
+     * Pending - one request of a connection, waiting for its response.
+     */
+    private static class Pending {
+        volatile byte[] response;
+    }
+}
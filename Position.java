@@ -2,21 +2,15 @@ package grid;
 
 /**
  * Position - class is used to create an object that contains both the x and
- * the y coordinates of the position.
+ * the y coordinates of the position. Positions are immutable values, two positions
+ * with the same coordinates are equal and have the same hash code, so they can be
+ * used as keys in hash based sets and maps.
  *
  * @author Danielle Plecki
  */
 class Position {
-    private int x;
-    private int y;
-
-    private void setX(int x) {
-        this.x = x;
-    }
-
-    private void setY(int y) {
-        this.y = y;
-    }
+    private final int x;
+    private final int y;
 
     int getX() {
         return x;
@@ -27,12 +21,40 @@ class Position {
     }
 
     Position(int newX, int newY){
-        setX(newX);
-        setY(newY);
+        x = newX;
+        y = newY;
+    }
+
+    Position(){ //default constructor, gson fills in the coordinates afterwards
+        this(0, 0);
     }
 
-    Position(){} //default constructor
     boolean equals(Position B){
-        return (this.x == B.x && this.y==B.y);
+        return B != null && this.x == B.x && this.y == B.y;
+    }
+
+    @Override
+    public boolean equals(Object other){
+        return other instanceof Position && equals((Position) other);
+    }
+
+    /**
+     * This method mixes both coordinates into every bit of the hash, so that positions
+     * that are close together on the grid do not end up in the same hash buckets.
+     *
+     * @return hash code of the coordinates
+     */
+    @Override
+    public int hashCode(){
+        int hash = x * 0x9E3779B1 + y;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    @Override
+    public String toString(){
+        return "x="+x+", y="+y;
     }
 }
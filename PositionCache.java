@@ -0,0 +1,47 @@
+package grid;
+
+/**
+ * PositionCache - flyweight factory that hands out one canonical Position object for every
+ * cell of a grid, so that code which looks at many positions can reuse them instead of
+ * allocating new ones. Rows are only created when a position in them is first asked for,
+ * which keeps the cache small when only part of a large grid is ever visited.
+ *
+ * Two threads asking for the same new position at the same time may each create one, in
+ * which case both are equal and one of them is kept.
+ *
+ * @author Danielle Plecki
+ */
+class PositionCache {
+    private final int dimension;
+    private final Position[][] rows;
+
+    PositionCache(int dimension){
+        this.dimension = dimension;
+        this.rows = new Position[dimension][];
+    }
+
+    /**
+     * This method returns the canonical position for a cell. Positions outside of the grid are
+     * not cached and a new object is returned for them.
+     *
+     * @param x x coordinate of the position
+     * @param y y coordinate of the position
+     * @return position with those coordinates
+     */
+    Position get(int x, int y){
+        if(x < 0 || y < 0 || x >= dimension || y >= dimension){
+            return new Position(x, y);
+        }
+        Position[] row = rows[y];
+        if(row == null){
+            row = new Position[dimension];
+            rows[y] = row;
+        }
+        Position position = row[x];
+        if(position == null){
+            position = new Position(x, y);
+            row[x] = position;
+        }
+        return position;
+    }
+}
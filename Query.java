@@ -0,0 +1,27 @@
+package grid;
+
+/**
+ * Query - class that holds one start and end pair to search for. It is created by gson
+ * from the queries array of the json file, in the same format as the grid's start and end.
+ *
+ * @author Danielle Plecki
+ */
+class Query {
+    private Position start;
+    private Position end;
+
+    Query(Position start, Position end){
+        this.start = start;
+        this.end = end;
+    }
+
+    Query(){} //default constructor
+
+    Position getStart() {
+        return start;
+    }
+
+    Position getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,137 @@
+package grid;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * SearchCounters - SearchListener that adds up the stats of every query, for watching a running
+ * program from a JMX console such as jconsole. The counters are LongAdders, so threads searching
+ * at the same time do not contend on them. Queries answered by a PathCache count as queries that
+ * expanded no nodes.
+ *
+ * @author Danielle Plecki
+ */
+class SearchCounters implements SearchListener, SearchCountersMBean {
+    static final String OBJECT_NAME = "grid:type=SearchCounters";
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder pathsFound = new LongAdder();
+    private final LongAdder expandedNodes = new LongAdder();
+    private final LongAdder generatedNodes = new LongAdder();
+    private final LongAdder decreasedKeys = new LongAdder();
+    private final LongAdder heapOperations = new LongAdder();
+    private final LongAccumulator peakOpenSetSize = new LongAccumulator(Math::max, 0);
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder tileFaults = new LongAdder();
+
+    /**
+     * This method creates counters, registers them with the platform MBean server under
+     * OBJECT_NAME and starts counting every query searched through SearchMetrics.
+     *
+     * @return the registered counters
+     * @throws JMException if counters are already registered under the name
+     */
+    static SearchCounters register() throws JMException{
+        SearchCounters counters = new SearchCounters();
+        ManagementFactory.getPlatformMBeanServer().registerMBean(counters, new ObjectName(OBJECT_NAME));
+        SearchMetrics.addListener(counters);
+        return counters;
+    }
+
+    /**
+     * This method stops the counting and takes the counters off the platform MBean server.
+     *
+     * @throws JMException if the counters are not registered
+     */
+    void unregister() throws JMException{
+        SearchMetrics.removeListener(this);
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+    }
+
+    @Override
+    public void searchFinished(SearchStats stats){
+        queries.increment();
+        if(stats.isFound()){
+            pathsFound.increment();
+        }
+        expandedNodes.add(stats.getExpandedNodes());
+        generatedNodes.add(stats.getGeneratedNodes());
+        decreasedKeys.add(stats.getDecreasedKeys());
+        heapOperations.add(stats.getHeapOperations());
+        peakOpenSetSize.accumulate(stats.getPeakOpenSetSize());
+        wallNanos.add(stats.getWallNanos());
+        if(stats.getAllocatedBytes() > 0){
+            allocatedBytes.add(stats.getAllocatedBytes());
+        }
+        tileFaults.add(stats.getTileFaults());
+    }
+
+    @Override
+    public long getQueries(){
+        return queries.sum();
+    }
+
+    @Override
+    public long getPathsFound(){
+        return pathsFound.sum();
+    }
+
+    @Override
+    public long getExpandedNodes(){
+        return expandedNodes.sum();
+    }
+
+    @Override
+    public long getGeneratedNodes(){
+        return generatedNodes.sum();
+    }
+
+    @Override
+    public long getDecreasedKeys(){
+        return decreasedKeys.sum();
+    }
+
+    @Override
+    public long getHeapOperations(){
+        return heapOperations.sum();
+    }
+
+    @Override
+    public long getPeakOpenSetSize(){
+        return peakOpenSetSize.get();
+    }
+
+    @Override
+    public double getMeanWallMicros(){
+        long count = queries.sum();
+        return count == 0 ? 0 : wallNanos.sum() / 1000.0 / count;
+    }
+
+    @Override
+    public long getAllocatedBytes(){
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public long getTileFaults(){
+        return tileFaults.sum();
+    }
+
+    @Override
+    public void reset(){
+        queries.reset();
+        pathsFound.reset();
+        expandedNodes.reset();
+        generatedNodes.reset();
+        decreasedKeys.reset();
+        heapOperations.reset();
+        peakOpenSetSize.reset();
+        wallNanos.reset();
+        allocatedBytes.reset();
+        tileFaults.reset();
+    }
+}
@@ -0,0 +1,44 @@
+package grid;
+
+/**
+ * SearchCountersMBean - the attributes and operations SearchCounters shows over JMX. JMX only
+ * accepts public MBean interfaces, which is why this one is public unlike the rest of the package.
+ *
+ * @author Danielle Plecki
+ */
+public interface SearchCountersMBean {
+
+    long getQueries();
+
+    long getPathsFound();
+
+    long getExpandedNodes();
+
+    long getGeneratedNodes();
+
+    long getDecreasedKeys();
+
+    long getHeapOperations();
+
+    /**
+     * @return largest open set of any single query
+     */
+    long getPeakOpenSetSize();
+
+    double getMeanWallMicros();
+
+    /**
+     * @return bytes allocated by all queries, not counting queries whose allocations could not be measured
+     */
+    long getAllocatedBytes();
+
+    /**
+     * @return tiles of paged grids read from disk by all queries
+     */
+    long getTileFaults();
+
+    /**
+     * This operation sets every counter back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,271 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * SearchEngine - A* search over a Grid that keeps all of its state in flat primitive arrays.
+ * Every position is encoded as its cell index y*dimension+x, and the G score, F score, parent
+ * and open/closed state of a cell are stored at that index. After the engine is created a search
+ * does not allocate anything until the final path is packed into a GridPath.
+ *
+ * An engine is not thread safe, but it can be reused for any number of searches on its grid.
+ * Cells are stamped with the number of the search that last touched them, so starting a new
+ * search only bumps that number instead of clearing the arrays. Grid.searchEngine() hands out
+ * one engine per thread for repeated queries on the same grid.
+ *
+ * For the ALT mode the engine is guided by the grid's landmarks instead of the straight line
+ * distance, taking the larger of the Manhattan distance and the landmarks' triangle inequality
+ * bound, see LandmarkIndex. Both are consistent, so the paths are still shortest ones. Those
+ * bounds are often exact, which leaves many cells with the same F score, so ties are broken
+ * towards the cell with the smaller bound, the one closer to the end. The estimate is scaled up by
+ * less than half a step for that, too little to put any cell ahead of one with a smaller F score.
+ *
+ * @author Danielle Plecki
+ */
+class SearchEngine implements PathFinder {
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+    private static final int NO_PARENT = -1;
+
+    private Grid grid;
+    private final int dimension;
+    private final int[] gScore;
+    private final double[] fScore;
+    private final int[] cameFrom;
+    private final byte[] state;
+    private final int[] searchStamp; //searchStamp[cell] == currentSearch when state[cell] is valid
+    private int currentSearch;
+    private final IndexedMinHeap openSet;
+    private int expandedNodes;
+    private final boolean useLandmarks;
+    //The grid's landmarks and their distances to the end of the current search, for the ALT mode
+    private LandmarkIndex landmarks;
+    private int[] endDistances = new int[0];
+    private final double tieBreak; //a bound below dimension*dimension times this is under half a step
+
+    SearchEngine(Grid grid){
+        this(grid, false);
+    }
+
+    /**
+     * @param grid grid to search
+     * @param useLandmarks true to be guided by the grid's landmarks, see Grid.landmarks()
+     */
+    SearchEngine(Grid grid, boolean useLandmarks){
+        this.grid = grid;
+        this.useLandmarks = useLandmarks;
+        this.dimension = grid.getDimension();
+        int cells = dimension*dimension;
+        tieBreak = 0.5 / cells;
+        gScore = new int[cells];
+        fScore = new double[cells];
+        cameFrom = new int[cells];
+        state = new byte[cells];
+        searchStamp = new int[cells];
+        openSet = new IndexedMinHeap(cells);
+    }
+
+    @Override
+    public Grid getGrid(){
+        return grid;
+    }
+
+    @Override
+    public int getDimension(){
+        return dimension;
+    }
+
+    @Override
+    public boolean useGrid(Grid grid){
+        if(grid.getDimension() != dimension){
+            return false;
+        }
+        this.grid = grid;
+        return true;
+    }
+
+    @Override
+    public int expandedNodes(){
+        return expandedNodes;
+    }
+
+    @Override
+    public void collectStats(SearchStats stats){
+        stats.countSearch(expandedNodes, openSet);
+    }
+
+    @Override
+    public void traceExpanded(SearchTrace trace){
+        trace.countClosed(expandedNodes, searchStamp, currentSearch, state, CLOSED);
+    }
+
+    /**
+     * This method finds the shortest path between two positions. Neighbors are evaluated in the
+     * order north, south, east, west and ties on F score go to the cell that entered the open set
+     * first, so the path is the same one AStar.algorithm has always returned.
+     *
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return path from starting position to ending, or null if there is no path
+     */
+    @Override
+    public GridPath findPath(Position startPosition, Position endPosition){
+        if(!inBounds(startPosition.getX(), startPosition.getY())
+                || !inBounds(endPosition.getX(), endPosition.getY())){
+            return null;
+        }
+        if(!grid.connected(startPosition.getX(), startPosition.getY(),
+                endPosition.getX(), endPosition.getY())){
+            expandedNodes = 0;
+            return null; //No path joins the two regions, so there is nothing to search
+        }
+        int startCell = startPosition.getY()*dimension + startPosition.getX();
+        int endCell = endPosition.getY()*dimension + endPosition.getX();
+        if(!search(startCell, endCell)){
+            return null;
+        }
+        return constructShortestPath(endCell);
+    }
+
+    /**
+     * This method runs the A* search between two cells and leaves the G scores and parents of
+     * every evaluated cell in the engine's arrays.
+     *
+     * @param startCell cell index of the starting position
+     * @param endCell cell index of the ending position
+     * @return true if the ending cell was reached and false if it is unreachable
+     */
+    boolean search(int startCell, int endCell){
+        reset();
+        final int endX = endCell % dimension;
+        final int endY = endCell / dimension;
+        if(useLandmarks){
+            landmarks = grid.landmarks();
+            if(endDistances.length != landmarks.count()){
+                endDistances = new int[landmarks.count()];
+            }
+            landmarks.distancesTo(endCell, endDistances);
+        }
+        gScore[startCell] = 0;
+        fScore[startCell] = estimate(startCell, startCell % dimension, startCell / dimension, endX, endY);
+        cameFrom[startCell] = NO_PARENT;
+        state[startCell] = OPEN;
+        searchStamp[startCell] = currentSearch;
+        openSet.insert(startCell, fScore[startCell]);
+
+        while(!openSet.isEmpty()){
+            int currentCell = openSet.poll();
+            expandedNodes++;
+            if(currentCell == endCell){
+                return true;
+            }
+            state[currentCell] = CLOSED;
+            int currentX = currentCell % dimension;
+            int currentY = currentCell / dimension;
+            int neighborGScore = gScore[currentCell] + 1; //Distance between current and neighbor is always 1
+            if(currentY + 1 < dimension){
+                relax(currentCell, currentCell + dimension, currentX, currentY + 1, neighborGScore, endX, endY);
+            }
+            if(currentY > 0){
+                relax(currentCell, currentCell - dimension, currentX, currentY - 1, neighborGScore, endX, endY);
+            }
+            if(currentX + 1 < dimension){
+                relax(currentCell, currentCell + 1, currentX + 1, currentY, neighborGScore, endX, endY);
+            }
+            if(currentX > 0){
+                relax(currentCell, currentCell - 1, currentX - 1, currentY, neighborGScore, endX, endY);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method is the G score of a cell after a successful search, which for the ending cell
+     * is the length of the path.
+     *
+     * @param cell cell index
+     * @return G score of the cell
+     */
+    int gScoreOf(int cell){
+        return gScore[cell];
+    }
+
+    private void relax(int currentCell, int neighborCell, int neighborX, int neighborY,
+                       int neighborGScore, int endX, int endY){
+        boolean seen = searchStamp[neighborCell] == currentSearch;
+        byte neighborState = state[neighborCell];
+        if(seen && neighborState == CLOSED){
+            return; //Ignore neighbors that have already been evaluated
+        }
+        if(seen && neighborGScore >= gScore[neighborCell]){
+            return; //Not a better path
+        }
+        if(!seen && grid.isBlocked(neighborX, neighborY)){
+            return;
+        }
+        cameFrom[neighborCell] = currentCell;
+        gScore[neighborCell] = neighborGScore;
+        fScore[neighborCell] = neighborGScore + estimate(neighborCell, neighborX, neighborY, endX, endY);
+        if(seen){
+            openSet.decreaseKey(neighborCell, fScore[neighborCell]);
+        }
+        else {
+            state[neighborCell] = OPEN;
+            searchStamp[neighborCell] = currentSearch;
+            openSet.insert(neighborCell, fScore[neighborCell]);
+        }
+    }
+
+    /**
+     * This method starts a new search by moving on to the next search number, which makes every
+     * cell stamped by an earlier search count as unseen. The arrays are only cleared on the rare
+     * occasion that the search number wraps around.
+     */
+    private void reset(){
+        openSet.clear();
+        expandedNodes = 0;
+        currentSearch++;
+        if(currentSearch == 0){
+            Arrays.fill(searchStamp, 0);
+            currentSearch = 1;
+        }
+    }
+
+    private boolean inBounds(int x, int y){
+        return x >= 0 && y >= 0 && x < dimension && y < dimension;
+    }
+
+    private double estimate(int cell, int x, int y, int endX, int endY){
+        if(!useLandmarks){
+            return hEstimate(x, y, endX, endY);
+        }
+        int bound = Math.max(Math.abs(x - endX) + Math.abs(y - endY), landmarks.lowerBound(cell, endDistances));
+        return bound + bound*tieBreak;
+    }
+
+    /**
+     * This method is the same distance formula as AStar.hEstimate, working on coordinates
+     * instead of Position objects.
+     */
+    private static double hEstimate(int x, int y, int endX, int endY){
+        double changeX = Math.abs(x - endX);
+        double changeY = Math.abs(y - endY);
+        return Math.sqrt((changeX*changeX)+(changeY*changeY));
+    }
+
+    /**
+     * This method follows the parents from the ending cell back to the starting cell, filling
+     * the coordinates in from the back so that the path reads from start to end.
+     */
+    private GridPath constructShortestPath(int endCell){
+        int length = gScore[endCell] + 1;
+        int[] coordinates = new int[2*length];
+        int cell = endCell;
+        for(int i = length - 1; i >= 0; i--){
+            coordinates[2*i] = cell % dimension;
+            coordinates[2*i + 1] = cell / dimension;
+            cell = cameFrom[cell];
+        }
+        return new GridPath(coordinates, gScore[endCell]);
+    }
+}
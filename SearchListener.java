@@ -0,0 +1,19 @@
+package grid;
+
+/**
+ * SearchListener - told about every query searched through SearchMetrics, for example to count
+ * them, see SearchCounters, or to log the slow ones. Queries from many threads can finish at the
+ * same time, so a listener has to be thread safe, and it runs on the searching thread, so it
+ * should return quickly.
+ *
+ * @author Danielle Plecki
+ */
+interface SearchListener {
+
+    /**
+     * This method is called after a query has been searched.
+     *
+     * @param stats result and cost of the query
+     */
+    void searchFinished(SearchStats stats);
+}
@@ -0,0 +1,149 @@
+package grid;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * SearchMetrics - the one place queries are searched through, so that their cost can be
+ * watched. While no SearchListener is registered and no SearchTrace is set, a query costs two
+ * volatile reads more than calling the path finder directly. Otherwise the query is timed, the
+ * bytes its thread allocates are measured where the JVM supports it, the tiles it reads from
+ * disk are counted for paged grids, see PagedOccupancy, the path finder's counters
+ * are collected into a SearchStats for the listeners, and its expanded cells are added to the trace.
+ *
+ * AStar, BatchSearch, ConcurrentGrid and PathCache search through this class; a path finder
+ * called directly is not seen. Queries PathCache answers from its cached paths are reported to the
+ * listeners as queries that expanded no nodes, see answered().
+ *
+ * @author Danielle Plecki
+ */
+final class SearchMetrics {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final SearchListener[] NO_LISTENERS = new SearchListener[0];
+
+    //Copied on every change, so that searching threads read them without a lock
+    private static volatile SearchListener[] listeners = NO_LISTENERS;
+    private static volatile SearchTrace trace;
+
+    private SearchMetrics() {}
+
+    /**
+     * This method finds a path with a path finder, telling the listeners and the trace about it
+     * if there are any.
+     *
+     * @param finder path finder to search with
+     * @param mode kind of search the path finder does
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return path from starting position to ending, or null if there is no path
+     */
+    static GridPath findPath(PathFinder finder, SearchMode mode, Position startPosition, Position endPosition){
+        SearchListener[] current = listeners;
+        SearchTrace currentTrace = trace;
+        if(current.length == 0 && currentTrace == null){
+            return finder.findPath(startPosition, endPosition);
+        }
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = allocatedBytes(thread);
+        long faultsBefore = PagedOccupancy.threadFaults();
+        long began = System.nanoTime();
+        GridPath path = finder.findPath(startPosition, endPosition);
+        long nanos = System.nanoTime() - began;
+        long allocatedAfter = allocatedBytes(thread);
+        if(currentTrace != null){
+            currentTrace.add(finder);
+        }
+        if(current.length > 0){
+            SearchStats stats = new SearchStats(mode, startPosition, endPosition);
+            finder.collectStats(stats);
+            stats.finish(path, nanos, allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore,
+                    PagedOccupancy.threadFaults() - faultsBefore);
+            for(SearchListener listener : current){
+                listener.searchFinished(stats);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @return true if a listener is registered, so that a query answered without searching has to
+     *         be measured for answered()
+     */
+    static boolean hasListeners(){
+        return listeners.length > 0;
+    }
+
+    /**
+     * This method tells the listeners about a query that was answered without searching, such as a
+     * PathCache hit, as a query that expanded no nodes. The trace is left as it is, since no cell
+     * was expanded.
+     *
+     * @param mode kind of search the answer stands in for
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @param path path answered, or null if there is no path
+     * @param nanos wall clock time of the answer
+     * @param bytes bytes allocated by the answer, or -1 if they could not be measured
+     */
+    static void answered(SearchMode mode, Position startPosition, Position endPosition, GridPath path,
+                         long nanos, long bytes){
+        SearchListener[] current = listeners;
+        if(current.length == 0){
+            return;
+        }
+        SearchStats stats = new SearchStats(mode, startPosition, endPosition);
+        stats.finish(path, nanos, bytes, 0);
+        for(SearchListener listener : current){
+            listener.searchFinished(stats);
+        }
+    }
+
+    /**
+     * @param listener listener to tell about every query from now on
+     */
+    static synchronized void addListener(SearchListener listener){
+        SearchListener[] next = new SearchListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, next, 0, listeners.length);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    /**
+     * @param listener listener to stop telling about queries
+     */
+    static synchronized void removeListener(SearchListener listener){
+        for(int i = 0; i < listeners.length; i++){
+            if(listeners[i] == listener){
+                SearchListener[] next = new SearchListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, next, 0, i);
+                System.arraycopy(listeners, i + 1, next, i, next.length - i);
+                listeners = next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param searchTrace heatmap to add the cells expanded by every query to, or null to stop tracing
+     */
+    static void setTrace(SearchTrace searchTrace){
+        trace = searchTrace;
+    }
+
+    /**
+     * @return bytes allocated by the calling thread so far, or -1 if the JVM cannot measure them
+     */
+    static long allocatedBytes(){
+        return allocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return bytes allocated by the thread so far, or -1 if the JVM cannot measure them
+     */
+    private static long allocatedBytes(long thread){
+        if(THREADS instanceof com.sun.management.ThreadMXBean){
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(thread);
+        }
+        return -1;
+    }
+}
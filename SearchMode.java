@@ -0,0 +1,119 @@
+package grid;
+
+/**
+ * SearchMode - the kinds of search that can be used to find a path on a grid.
+ *
+ * @author Danielle Plecki
+ */
+enum SearchMode {
+    /**
+     * A* over every cell, see SearchEngine.
+     */
+    ASTAR {
+        @Override
+        PathFinder createInMemory(Grid grid){
+            return new SearchEngine(grid);
+        }
+    },
+    /**
+     * Jump Point Search, which skips over cells along straight lines, see JumpPointSearch.
+     */
+    JUMP_POINT {
+        @Override
+        PathFinder createInMemory(Grid grid){
+            return new JumpPointSearch(grid);
+        }
+    },
+    /**
+     * A* from the start and the end at the same time, see BidirectionalSearch.
+     */
+    BIDIRECTIONAL {
+        @Override
+        PathFinder createInMemory(Grid grid){
+            return new BidirectionalSearch(grid);
+        }
+    },
+    /**
+     * A* over a graph of clusters of cells, see HierarchicalSearch. Much faster on large grids,
+     * but the paths it finds can be a little longer than the shortest.
+     */
+    HIERARCHICAL {
+        @Override
+        PathFinder createInMemory(Grid grid){
+            return new HierarchicalSearch(grid);
+        }
+
+        @Override
+        boolean findsShortestPaths(){
+            return false;
+        }
+    },
+    /**
+     * A flow field from the end to every cell, see FlowFieldSearch. Building the field looks at
+     * the whole grid once, after which every query with the same end only follows its path.
+     */
+    FLOW_FIELD {
+        @Override
+        PathFinder createInMemory(Grid grid){
+            return new FlowFieldSearch(grid);
+        }
+    },
+    /**
+     * A* with the grid's MovementModel, see WeightedSearch: diagonal moves, terrain costs and a
+     * choice of heuristic and weight. The other modes always take four connected steps costing 1.
+     */
+    WEIGHTED {
+        @Override
+        PathFinder createInMemory(Grid grid){
+            return new WeightedSearch(grid);
+        }
+
+        //Paths may cost more than the cheapest when the heuristic is weighted, and with terrain
+        //their cost is not their number of steps
+        @Override
+        boolean findsShortestPaths(){
+            return false;
+        }
+    },
+    /**
+     * A* guided by the distances to a few landmarks, see LandmarkIndex, which are built for the
+     * grid on first use unless they have been set. It finds the same path lengths as ASTAR while
+     * expanding far fewer cells on grids with many obstacles.
+     */
+    ALT {
+        @Override
+        PathFinder createInMemory(Grid grid){
+            return new SearchEngine(grid, true);
+        }
+    };
+
+    /**
+     * This method creates a new path finder of this kind for a grid. Paged grids are searched by
+     * PagedSearch whatever the mode, since every other path finder keeps arrays or tables with an
+     * entry for each cell of the grid, see Grid.isPaged().
+     *
+     * @param grid grid to search
+     * @return new path finder for the grid
+     */
+    PathFinder create(Grid grid){
+        if(grid.isPaged()){
+            return new PagedSearch(grid);
+        }
+        return createInMemory(grid);
+    }
+
+    /**
+     * This method creates a new path finder of this kind for a grid held in memory.
+     *
+     * @param grid grid to search
+     * @return new path finder for the grid
+     */
+    abstract PathFinder createInMemory(Grid grid);
+
+    /**
+     * @return true if every path this kind of search finds is a shortest one
+     */
+    boolean findsShortestPaths(){
+        return true;
+    }
+}
@@ -0,0 +1,157 @@
+package grid;
+
+/**
+ * SearchStats - what one query cost, handed to every SearchListener after the query is searched
+ * through SearchMetrics. The counters come from the path finder's open set, see
+ * PathFinder.collectStats(); path finders without an open set of cells only report the nodes
+ * they expanded and leave the other counters at zero.
+ *
+ * @author Danielle Plecki
+ */
+class SearchStats {
+    private final SearchMode mode;
+    private final Position start;
+    private final Position end;
+    private boolean found;
+    private double cost;
+    private int expandedNodes;
+    private int generatedNodes;
+    private int decreasedKeys;
+    private int heapOperations;
+    private int peakOpenSetSize;
+    private long wallNanos;
+    private long allocatedBytes = -1;
+    private long tileFaults;
+
+    SearchStats(SearchMode mode, Position start, Position end){
+        this.mode = mode;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * This method records the work of a search. A search that was turned down before it began,
+     * which expands nothing, leaves the open set counters at zero even though the open sets
+     * still hold the counts of an earlier search.
+     *
+     * @param expanded nodes taken off the open set
+     * @param openSets open sets of the search, whose counts are added together
+     */
+    void countSearch(int expanded, IndexedMinHeap... openSets){
+        expandedNodes = expanded;
+        if(expanded == 0){
+            return;
+        }
+        for(IndexedMinHeap openSet : openSets){
+            generatedNodes += openSet.insertCount();
+            decreasedKeys += openSet.decreaseCount();
+            heapOperations += openSet.insertCount() + openSet.decreaseCount() + openSet.pollCount();
+            peakOpenSetSize += openSet.peakSize();
+        }
+    }
+
+    /**
+     * This method records the result of the query and how long it took.
+     *
+     * @param path path found, or null
+     * @param nanos wall clock time of the query
+     * @param bytes bytes allocated by the query, or -1 if the JVM cannot measure them
+     * @param faults tiles of a paged grid the query read from disk, see PagedOccupancy
+     */
+    void finish(GridPath path, long nanos, long bytes, long faults){
+        found = path != null;
+        cost = found ? path.cost() : 0;
+        wallNanos = nanos;
+        allocatedBytes = bytes;
+        tileFaults = faults;
+    }
+
+    SearchMode getMode(){
+        return mode;
+    }
+
+    Position getStart(){
+        return start;
+    }
+
+    Position getEnd(){
+        return end;
+    }
+
+    boolean isFound(){
+        return found;
+    }
+
+    /**
+     * @return cost of the path found, or 0 if there is none
+     */
+    double getCost(){
+        return cost;
+    }
+
+    /**
+     * @return nodes taken off the open set
+     */
+    int getExpandedNodes(){
+        return expandedNodes;
+    }
+
+    /**
+     * @return nodes put on the open set for the first time
+     */
+    int getGeneratedNodes(){
+        return generatedNodes;
+    }
+
+    /**
+     * @return times a node already on the open set was reached through a cheaper path and its
+     *         priority lowered. This does not count closed nodes opened again, which none of the
+     *         searches do: not even WEIGHTED with a weight above 1, whose heuristic is not
+     *         consistent, or ALT, whose tie break adds a little to the heuristic.
+     */
+    int getDecreasedKeys(){
+        return decreasedKeys;
+    }
+
+    /**
+     * @return inserts, decreases and polls of the open set
+     */
+    int getHeapOperations(){
+        return heapOperations;
+    }
+
+    /**
+     * @return most nodes on the open set at once, added up over both directions for
+     *         bidirectional search
+     */
+    int getPeakOpenSetSize(){
+        return peakOpenSetSize;
+    }
+
+    long getWallNanos(){
+        return wallNanos;
+    }
+
+    /**
+     * @return bytes allocated by the query, or -1 if they could not be measured
+     */
+    long getAllocatedBytes(){
+        return allocatedBytes;
+    }
+
+    /**
+     * @return tiles of a paged grid the query read from disk, which is 0 for grids held in memory
+     */
+    long getTileFaults(){
+        return tileFaults;
+    }
+
+    @Override
+    public String toString(){
+        return mode + " (" + start + ") to (" + end + ")" + (found ? " cost=" + cost : " unreachable")
+                + " expanded=" + expandedNodes + " generated=" + generatedNodes + " decreasedKeys=" + decreasedKeys
+                + " heapOps=" + heapOperations + " peakOpen=" + peakOpenSetSize
+                + " time=" + wallNanos / 1000 + "us allocated=" + allocatedBytes + "B"
+                + " tileFaults=" + tileFaults;
+    }
+}
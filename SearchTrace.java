@@ -0,0 +1,146 @@
+package grid;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SearchTrace - heatmap of the cells expanded by the queries searched through SearchMetrics while
+ * the trace is set, counting for every cell how many queries expanded it. It shows where the
+ * searches spend their time, for example a region that every query floods because its end lies
+ * behind a long wall. The heatmap can be written out as text or as a PGM image.
+ *
+ * Tracing looks at the whole scratch state of the path finder after each query, so it is meant
+ * for finding out why queries are slow rather than for running all the time. Only the path
+ * finders that keep their state per cell can be traced, see PathFinder.traceExpanded(), and only
+ * queries on grids with the dimension of the trace are counted.
+ *
+ * @author Danielle Plecki
+ */
+class SearchTrace {
+    //Darker to brighter, the first one for cells no query expanded
+    private static final String SHADES = " .:-=+*%@";
+
+    private final Grid grid;
+    private final int dimension;
+    private final int[] counts;
+    private int queries;
+
+    /**
+     * @param grid grid whose obstacles are drawn in the text heatmap
+     * @throws IllegalStateException if the grid is paged, since the heatmap counts every cell
+     */
+    SearchTrace(Grid grid){
+        grid.requireInMemory("heatmap");
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+        this.counts = new int[dimension*dimension];
+    }
+
+    /**
+     * This method adds the cells expanded by the last search of a path finder to the heatmap.
+     *
+     * @param finder path finder that has just searched
+     */
+    synchronized void add(PathFinder finder){
+        if(finder.getDimension() != dimension){
+            return;
+        }
+        finder.traceExpanded(this);
+        queries++;
+    }
+
+    /**
+     * This method adds the cells whose state has a closed bit set by the current search to the
+     * heatmap. It is called by path finders that stamp their cells with a search number.
+     *
+     * @param expanded nodes expanded by the search, 0 if it was turned down without searching
+     * @param searchStamp search number that last touched each cell
+     * @param currentSearch number of the search
+     * @param state state of each cell
+     * @param closed bits of the state that mark a cell as expanded
+     */
+    void countClosed(int expanded, int[] searchStamp, int currentSearch, byte[] state, int closed){
+        if(expanded == 0){
+            return; //The stamps are still those of an earlier search
+        }
+        for(int cell = 0; cell < counts.length; cell++){
+            if(searchStamp[cell] == currentSearch && (state[cell] & closed) != 0){
+                counts[cell]++;
+            }
+        }
+    }
+
+    /**
+     * @return number of queries added to the heatmap
+     */
+    synchronized int queries(){
+        return queries;
+    }
+
+    /**
+     * @param x x coordinate of the cell
+     * @param y y coordinate of the cell
+     * @return number of queries that expanded the cell
+     */
+    synchronized int count(int x, int y){
+        return counts[y*dimension + x];
+    }
+
+    /**
+     * This method draws the heatmap as text, one line per row with the highest y first. Obstacles
+     * are drawn as #, cells no query expanded as spaces and the others with characters that get
+     * denser the more queries expanded them.
+     *
+     * @return heatmap as lines of text
+     */
+    synchronized String toText(){
+        int most = most();
+        StringBuilder text = new StringBuilder((dimension + 1)*dimension);
+        for(int y = dimension - 1; y >= 0; y--){
+            for(int x = 0; x < dimension; x++){
+                int count = counts[y*dimension + x];
+                if(grid.isBlocked(x, y)){
+                    text.append('#');
+                }
+                else if(count == 0){
+                    text.append(SHADES.charAt(0));
+                }
+                else {
+                    text.append(SHADES.charAt(1 + (int) (((long) count*(SHADES.length() - 1) - 1) / most)));
+                }
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * This method writes the heatmap as a binary greyscale PGM image, one pixel per cell with the
+     * highest y in the top row. Cells no query expanded are black and the most expanded are white.
+     *
+     * @param out stream to write to, which is not closed
+     * @throws IOException if the stream cannot be written to
+     */
+    synchronized void writePgm(OutputStream out) throws IOException{
+        int most = most();
+        out.write(("P5\n" + dimension + " " + dimension + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+        byte[] row = new byte[dimension];
+        for(int y = dimension - 1; y >= 0; y--){
+            for(int x = 0; x < dimension; x++){
+                int count = counts[y*dimension + x];
+                row[x] = (byte) (count == 0 ? 0 : Math.max(1, (int) ((long) count*255 / most)));
+            }
+            out.write(row);
+        }
+        out.flush();
+    }
+
+    private int most(){
+        int most = 1;
+        for(int count : counts){
+            most = Math.max(most, count);
+        }
+        return most;
+    }
+}
@@ -0,0 +1,94 @@
+package grid;
+
+/**
+ * TiledOccupancy - immutable occupancy bitset split into tiles of TILE_WORDS words (4096 cells).
+ * Changing cells creates a new TiledOccupancy that shares every tile with the old one except
+ * the tiles that were changed, which are copied first (copy-on-write). A change to a few cells
+ * of a large grid therefore copies a few small tiles and the array of tile references, instead
+ * of the whole bitset, and readers of the old bitset are never disturbed.
+ *
+ * @author Danielle Plecki
+ */
+class TiledOccupancy implements Occupancy {
+    static final int TILE_SHIFT = 6;
+    static final int TILE_WORDS = 1 << TILE_SHIFT;
+    private static final int WORD_MASK = TILE_WORDS - 1;
+
+    private final long[][] tiles;
+    private final int wordCount;
+
+    private TiledOccupancy(long[][] tiles, int wordCount){
+        this.tiles = tiles;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * This method copies any occupancy into tiles.
+     *
+     * @param occupancy bitset to copy
+     * @return tiled copy of the bitset
+     */
+    static TiledOccupancy copyOf(Occupancy occupancy){
+        int wordCount = occupancy.wordCount();
+        long[][] tiles = new long[(wordCount + WORD_MASK) >>> TILE_SHIFT][TILE_WORDS];
+        for(int i = 0; i < wordCount; i++){
+            tiles[i >>> TILE_SHIFT][i & WORD_MASK] = occupancy.word(i);
+        }
+        return new TiledOccupancy(tiles, wordCount);
+    }
+
+    @Override
+    public boolean isBlocked(int cell){
+        int index = cell >>> 6;
+        return (tiles[index >>> TILE_SHIFT][index & WORD_MASK] & (1L << cell)) != 0;
+    }
+
+    @Override
+    public int wordCount(){
+        return wordCount;
+    }
+
+    @Override
+    public long word(int index){
+        return tiles[index >>> TILE_SHIFT][index & WORD_MASK];
+    }
+
+    /**
+     * This method returns a copy of the bitset with some cells changed, copying only the tiles
+     * those cells lie in. This bitset is left as it is.
+     *
+     * @param cells cell indexes y*dimension+x to change
+     * @param blocked new state of each cell, true for an obstacle
+     * @param count number of cells to change
+     * @return changed bitset
+     */
+    TiledOccupancy with(int[] cells, boolean[] blocked, int count){
+        long[][] changed = tiles.clone();
+        boolean[] copied = new boolean[tiles.length];
+        for(int i = 0; i < count; i++){
+            int index = cells[i] >>> 6;
+            int tile = index >>> TILE_SHIFT;
+            if(!copied[tile]){
+                changed[tile] = tiles[tile].clone();
+                copied[tile] = true;
+            }
+            long bit = 1L << cells[i];
+            if(blocked[i]){
+                changed[tile][index & WORD_MASK] |= bit;
+            }
+            else {
+                changed[tile][index & WORD_MASK] &= ~bit;
+            }
+        }
+        return new TiledOccupancy(changed, wordCount);
+    }
+
+    /**
+     * @param other another bitset made from this one with with()
+     * @param tile index of a tile
+     * @return true if the two bitsets share the tile instead of each having a copy
+     */
+    boolean sharesTile(TiledOccupancy other, int tile){
+        return tiles[tile] == other.tiles[tile];
+    }
+}
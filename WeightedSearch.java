@@ -0,0 +1,260 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * WeightedSearch - A* over every cell like SearchEngine, but moving by the grid's MovementModel:
+ * four or eight connected, with a cost per cell and the heuristic and weight of the model. G
+ * scores are doubles, since diagonal steps cost sqrt(2).
+ *
+ * The model is read at the start of every search and turned into plain fields: the search loop
+ * for the connectivity is picked once, the cost of a step is a lookup in the terrain bytes, and
+ * the heuristic is one formula whose coefficients come from the model. So the loops make no
+ * calls through an interface or a lambda for a step, a cost or an estimate.
+ *
+ * Cells are stamped with a search number, so the engine is reused between searches without
+ * clearing its arrays. A cell that has been expanded is not opened again: with a weight of 1 the
+ * heuristics are consistent and it could not get cheaper, and weighted A* keeps its bound on the
+ * path cost without reopening cells.
+ *
+ * @author Danielle Plecki
+ */
+class WeightedSearch implements PathFinder {
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+    private static final int NO_PARENT = -1;
+    private static final double SQRT2 = Math.sqrt(2);
+
+    private Grid grid;
+    private final int dimension;
+    private final double[] gScore;
+    private final int[] cameFrom;
+    private final byte[] state;
+    private final int[] searchStamp;
+    private int currentSearch;
+    private final IndexedMinHeap openSet;
+    private int expandedNodes;
+    //The grid's movement model for the current search, see useModel()
+    private byte[] terrain;
+    private boolean euclidean;
+    private double heuristicScale;
+    private double diagonalSaving; //what a diagonal step saves over two straight ones in the estimate
+
+    WeightedSearch(Grid grid){
+        this.grid = grid;
+        this.dimension = grid.getDimension();
+        int cells = dimension*dimension;
+        gScore = new double[cells];
+        cameFrom = new int[cells];
+        state = new byte[cells];
+        searchStamp = new int[cells];
+        openSet = new IndexedMinHeap(cells);
+    }
+
+    @Override
+    public Grid getGrid(){
+        return grid;
+    }
+
+    @Override
+    public int getDimension(){
+        return dimension;
+    }
+
+    @Override
+    public boolean useGrid(Grid grid){
+        if(grid.getDimension() != dimension){
+            return false;
+        }
+        this.grid = grid;
+        return true;
+    }
+
+    @Override
+    public int expandedNodes(){
+        return expandedNodes;
+    }
+
+    @Override
+    public void collectStats(SearchStats stats){
+        stats.countSearch(expandedNodes, openSet);
+    }
+
+    @Override
+    public void traceExpanded(SearchTrace trace){
+        trace.countClosed(expandedNodes, searchStamp, currentSearch, state, CLOSED);
+    }
+
+    /**
+     * This method finds the cheapest path between two positions under the grid's movement model,
+     * or one costing at most the model's weight times the cheapest.
+     *
+     * @param startPosition starting position of the path
+     * @param endPosition ending position of the path
+     * @return path from starting position to ending with its cost, or null if there is no path
+     */
+    @Override
+    public GridPath findPath(Position startPosition, Position endPosition){
+        if(!inBounds(startPosition.getX(), startPosition.getY())
+                || !inBounds(endPosition.getX(), endPosition.getY())){
+            return null;
+        }
+        if(!grid.connected(startPosition.getX(), startPosition.getY(),
+                endPosition.getX(), endPosition.getY())){
+            expandedNodes = 0;
+            return null; //Diagonal steps join no regions that straight steps do not, see MovementModel
+        }
+        MovementModel model = grid.getMovementModel();
+        useModel(model);
+        int startCell = startPosition.getY()*dimension + startPosition.getX();
+        int endCell = endPosition.getY()*dimension + endPosition.getX();
+        boolean found = model.isEightConnected() ? searchEight(startCell, endCell) : searchFour(startCell, endCell);
+        if(!found){
+            return null;
+        }
+        return constructPath(endCell);
+    }
+
+    private void useModel(MovementModel model){
+        terrain = model.getTerrain();
+        euclidean = model.getHeuristic() == MovementModel.Heuristic.EUCLIDEAN;
+        heuristicScale = model.getWeight()*model.getCheapestTerrain();
+        diagonalSaving = model.getHeuristic() == MovementModel.Heuristic.OCTILE ? 2 - SQRT2 : 0;
+    }
+
+    private boolean searchFour(int startCell, int endCell){
+        start(startCell, endCell);
+        int endX = endCell % dimension;
+        int endY = endCell / dimension;
+        while(!openSet.isEmpty()){
+            int currentCell = openSet.poll();
+            expandedNodes++;
+            if(currentCell == endCell){
+                return true;
+            }
+            state[currentCell] = CLOSED;
+            int currentX = currentCell % dimension;
+            int currentY = currentCell / dimension;
+            double g = gScore[currentCell];
+            if(currentY + 1 < dimension) relax(currentCell, currentX, currentY + 1, g, 1, endX, endY);
+            if(currentY > 0) relax(currentCell, currentX, currentY - 1, g, 1, endX, endY);
+            if(currentX + 1 < dimension) relax(currentCell, currentX + 1, currentY, g, 1, endX, endY);
+            if(currentX > 0) relax(currentCell, currentX - 1, currentY, g, 1, endX, endY);
+        }
+        return false;
+    }
+
+    private boolean searchEight(int startCell, int endCell){
+        start(startCell, endCell);
+        int endX = endCell % dimension;
+        int endY = endCell / dimension;
+        while(!openSet.isEmpty()){
+            int currentCell = openSet.poll();
+            expandedNodes++;
+            if(currentCell == endCell){
+                return true;
+            }
+            state[currentCell] = CLOSED;
+            int currentX = currentCell % dimension;
+            int currentY = currentCell / dimension;
+            double g = gScore[currentCell];
+            boolean north = currentY + 1 < dimension && !grid.isBlocked(currentX, currentY + 1);
+            boolean south = currentY > 0 && !grid.isBlocked(currentX, currentY - 1);
+            boolean east = currentX + 1 < dimension && !grid.isBlocked(currentX + 1, currentY);
+            boolean west = currentX > 0 && !grid.isBlocked(currentX - 1, currentY);
+            if(north) relax(currentCell, currentX, currentY + 1, g, 1, endX, endY);
+            if(south) relax(currentCell, currentX, currentY - 1, g, 1, endX, endY);
+            if(east) relax(currentCell, currentX + 1, currentY, g, 1, endX, endY);
+            if(west) relax(currentCell, currentX - 1, currentY, g, 1, endX, endY);
+            //Diagonal steps only where both cells beside them are free, so no corner is cut
+            if(north && east) relax(currentCell, currentX + 1, currentY + 1, g, SQRT2, endX, endY);
+            if(north && west) relax(currentCell, currentX - 1, currentY + 1, g, SQRT2, endX, endY);
+            if(south && east) relax(currentCell, currentX + 1, currentY - 1, g, SQRT2, endX, endY);
+            if(south && west) relax(currentCell, currentX - 1, currentY - 1, g, SQRT2, endX, endY);
+        }
+        return false;
+    }
+
+    private void start(int startCell, int endCell){
+        reset();
+        gScore[startCell] = 0;
+        cameFrom[startCell] = NO_PARENT;
+        state[startCell] = OPEN;
+        searchStamp[startCell] = currentSearch;
+        openSet.insert(startCell, estimate(startCell % dimension, startCell / dimension,
+                endCell % dimension, endCell / dimension));
+    }
+
+    /**
+     * This method looks at stepping into a neighbor, which costs the length of the step times the
+     * terrain cost of the neighbor.
+     */
+    private void relax(int currentCell, int neighborX, int neighborY, double currentG, double stepLength,
+                       int endX, int endY){
+        int neighborCell = neighborY*dimension + neighborX;
+        boolean seen = searchStamp[neighborCell] == currentSearch;
+        if(seen && state[neighborCell] == CLOSED){
+            return;
+        }
+        double neighborG = currentG + (terrain == null ? stepLength : stepLength*(terrain[neighborCell] & 0xFF));
+        if(seen && neighborG >= gScore[neighborCell]){
+            return;
+        }
+        if(!seen && grid.isBlocked(neighborX, neighborY)){
+            return;
+        }
+        cameFrom[neighborCell] = currentCell;
+        gScore[neighborCell] = neighborG;
+        double fScore = neighborG + estimate(neighborX, neighborY, endX, endY);
+        if(seen){
+            openSet.decreaseKey(neighborCell, fScore);
+        }
+        else {
+            state[neighborCell] = OPEN;
+            searchStamp[neighborCell] = currentSearch;
+            openSet.insert(neighborCell, fScore);
+        }
+    }
+
+    /**
+     * This method is the weighted heuristic: the Euclidean distance, or the Manhattan distance less
+     * what diagonal steps save, which for the octile distance is 2 - sqrt(2) per diagonal step.
+     */
+    private double estimate(int x, int y, int endX, int endY){
+        int changeX = Math.abs(x - endX);
+        int changeY = Math.abs(y - endY);
+        if(euclidean){
+            return heuristicScale*Math.sqrt((double) changeX*changeX + (double) changeY*changeY);
+        }
+        return heuristicScale*(changeX + changeY - diagonalSaving*Math.min(changeX, changeY));
+    }
+
+    private void reset(){
+        openSet.clear();
+        expandedNodes = 0;
+        currentSearch++;
+        if(currentSearch == 0){
+            Arrays.fill(searchStamp, 0);
+            currentSearch = 1;
+        }
+    }
+
+    private boolean inBounds(int x, int y){
+        return x >= 0 && y >= 0 && x < dimension && y < dimension;
+    }
+
+    private GridPath constructPath(int endCell){
+        int length = 0;
+        for(int cell = endCell; cell != NO_PARENT; cell = cameFrom[cell]){
+            length++;
+        }
+        int[] coordinates = new int[2*length];
+        int index = length;
+        for(int cell = endCell; cell != NO_PARENT; cell = cameFrom[cell]){
+            index--;
+            coordinates[2*index] = cell % dimension;
+            coordinates[2*index + 1] = cell / dimension;
+        }
+        return new GridPath(coordinates, gScore[endCell]);
+    }
+}
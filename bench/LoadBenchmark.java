@@ -0,0 +1,167 @@
+package grid;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * LoadBenchmark - measures how long it takes to load a grid file and how high the heap peaks
+ * while doing it. Every loader runs on the same file, which is either given on the command line
+ * or generated with random obstacles. The binary grid loader maps a converted copy of the file.
+ *
+ * Usage: java grid.LoadBenchmark [--dimension 2000] [--density 0.3] [--iterations 5] [grid file]
+ *
+ * @author Danielle Plecki
+ */
+class LoadBenchmark {
+
+    /**
+     * Loader - one way of reading a grid file that the benchmark compares against the others.
+     */
+    interface Loader {
+        Grid load(Path file) throws IOException;
+    }
+
+    /**
+     * This method lists the loaders that are benchmarked, new loaders are added here.
+     *
+     * @param binaryFile the same grid converted to a binary grid file
+     * @return loaders by name, in the order they are reported
+     */
+    static Map<String, Loader> loaders(Path binaryFile){
+        Map<String, Loader> loaders = new LinkedHashMap<>();
+        loaders.put("gson object tree", LoadBenchmark::loadWithGson);
+        loaders.put("GridLoader stream", GridLoader::load);
+        loaders.put("binary grid mmap", file -> BinaryGridFormat.load(binaryFile));
+        return loaders;
+    }
+
+    public static void main(String[] args) throws Exception{
+        int dimension = 2000;
+        double density = 0.3;
+        int iterations = 5;
+        Path file = null;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--dimension")){
+                dimension = Integer.parseInt(args[++i]);
+            }
+            else if(args[i].equals("--density")){
+                density = Double.parseDouble(args[++i]);
+            }
+            else if(args[i].equals("--iterations")){
+                iterations = Integer.parseInt(args[++i]);
+            }
+            else {
+                file = Paths.get(args[i]);
+            }
+        }
+        boolean generated = file == null;
+        if(generated){
+            file = Files.createTempFile("grid", ".json");
+            writeRandomGrid(file, dimension, density);
+        }
+        Path binaryFile = Files.createTempFile("grid", ".bin");
+        try {
+            BinaryGridFormat.write(GridLoader.load(file), binaryFile);
+            System.out.printf("file %s, %d bytes, %d bytes as binary grid%n", file, Files.size(file),
+                    Files.size(binaryFile));
+            System.out.printf("%-24s %12s %16s%n", "loader", "load ms", "peak heap MB");
+            for(Map.Entry<String, Loader> loader : loaders(binaryFile).entrySet()){
+                report(loader.getKey(), loader.getValue(), file, iterations);
+            }
+        }
+        finally {
+            Files.delete(binaryFile);
+            if(generated){
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static void report(String name, Loader loader, Path file, int iterations) throws IOException{
+        loader.load(file); //warm up
+        long fastest = Long.MAX_VALUE;
+        long peak = 0;
+        for(int i = 0; i < iterations; i++){
+            System.gc();
+            long baseline = usedHeap();
+            resetPeaks();
+            long began = System.nanoTime();
+            Grid grid = loader.load(file);
+            fastest = Math.min(fastest, System.nanoTime() - began);
+            peak = Math.max(peak, peakHeap() - baseline);
+            if(grid.getDimension() < 0){
+                System.out.println(); //keeps the grid alive until it has been measured
+            }
+        }
+        System.out.printf("%-24s %12.1f %16.1f%n", name, fastest / 1e6, peak / 1048576.0);
+    }
+
+    /**
+     * This method is how Main.setGrid used to load grids, reading the whole file into a string
+     * and letting gson build one Position for each obstacle.
+     */
+    static Grid loadWithGson(Path file) throws IOException{
+        String content = new String(Files.readAllBytes(file));
+        Grid grid = new Gson().fromJson(content, Grid.class);
+        grid.indexObstacles();
+        return grid;
+    }
+
+    private static void writeRandomGrid(Path file, int dimension, double density) throws IOException{
+        Random random = new Random(dimension);
+        try(BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+            out.write("{\"dimension\": " + dimension + ", \"start\": {\"x\": 0, \"y\": 0}, \"end\": {\"x\": "
+                    + (dimension - 1) + ", \"y\": " + (dimension - 1) + "}, \"obstacles\": [");
+            boolean first = true;
+            for(int y = 0; y < dimension; y++){
+                for(int x = 0; x < dimension; x++){
+                    if(random.nextDouble() < density){
+                        out.write((first ? "" : ",") + "{\"x\": " + x + ", \"y\": " + y + "}");
+                        first = false;
+                    }
+                }
+            }
+            out.write("]}");
+        }
+    }
+
+    private static long usedHeap(){
+        long used = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP){
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static void resetPeaks(){
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP){
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap(){
+        long peak = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP){
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,198 @@
+package grid;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * PathLoadClient - sends random queries to a PathServer over several connections at once and
+ * reports the throughput and the latency percentiles, so that the server can be measured under
+ * concurrency. Each connection keeps up to the pipeline depth of queries in flight: one thread
+ * sends them as long as fewer are unanswered and another reads the answers, and the latency of a
+ * query is the time from sending it to reading its answer.
+ *
+ * Usage: java grid.PathLoadClient [--host 127.0.0.1] [--port 7070] [--connections 8] [--pipeline 16]
+ *                                 [--requests 10000] [--seed 1]
+ *
+ * The requests are per connection. Queries go between random cells of the grid, which may be
+ * blocked or unreachable; their answers are counted as unreachable.
+ *
+ * @author Danielle Plecki
+ */
+class PathLoadClient {
+
+    public static void main(String[] args) throws Exception{
+        String host = "127.0.0.1";
+        int port = 7070;
+        int connections = 8;
+        int pipeline = 16;
+        int requests = 10000;
+        long seed = 1;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--host")){
+                host = args[++i];
+            }
+            else if(args[i].equals("--port")){
+                port = Integer.parseInt(args[++i]);
+            }
+            else if(args[i].equals("--connections")){
+                connections = Integer.parseInt(args[++i]);
+            }
+            else if(args[i].equals("--pipeline")){
+                pipeline = Integer.parseInt(args[++i]);
+            }
+            else if(args[i].equals("--requests")){
+                requests = Integer.parseInt(args[++i]);
+            }
+            else if(args[i].equals("--seed")){
+                seed = Long.parseLong(args[++i]);
+            }
+        }
+        int dimension = dimension(host, port);
+        Client[] clients = new Client[connections];
+        for(int i = 0; i < connections; i++){
+            clients[i] = new Client(new Socket(host, port), dimension, requests, pipeline, seed + i);
+        }
+        long began = System.nanoTime();
+        for(Client client : clients){
+            client.start();
+        }
+        long[] latencies = new long[connections*requests];
+        int unreachable = 0;
+        for(int i = 0; i < connections; i++){
+            clients[i].join();
+            if(clients[i].failure != null){
+                throw clients[i].failure;
+            }
+            System.arraycopy(clients[i].latencies, 0, latencies, i*requests, requests);
+            unreachable += clients[i].unreachable;
+        }
+        double seconds = (System.nanoTime() - began)/1e9;
+        Arrays.sort(latencies);
+        System.out.printf("%d connections, pipeline %d, %d queries in %.2f s, %.0f queries/s, %d unreachable%n",
+                connections, pipeline, latencies.length, seconds, latencies.length/seconds, unreachable);
+        System.out.printf("latency us: p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n", percentile(latencies, 0.5),
+                percentile(latencies, 0.9), percentile(latencies, 0.99), latencies[latencies.length - 1]/1e3);
+    }
+
+    /**
+     * This method asks the server for the dimension of its grid.
+     */
+    private static int dimension(String host, int port) throws IOException{
+        try(Socket socket = new Socket(host, port)){
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            out.write("INFO\n");
+            out.flush();
+            String info = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII)).readLine();
+            return Integer.parseInt(info.split(" ")[1]);
+        }
+    }
+
+    /**
+     * @return latency in microseconds that the fraction of sorted latencies are at or under
+     */
+    private static double percentile(long[] sorted, double fraction){
+        int index = (int) Math.ceil(fraction*sorted.length) - 1;
+        return sorted[Math.max(0, index)]/1e3;
+    }
+
+    /**
+     * Client - one connection, with the thread sending its queries; the answers are read on a
+     * second thread.
+     */
+    private static class Client extends Thread {
+        final Socket socket;
+        final int dimension;
+        final int requests;
+        final Semaphore inFlight;
+        final ArrayBlockingQueue<Long> sendTimes;
+        final Random random;
+        final long[] latencies;
+        int unreachable;
+        volatile Exception failure;
+
+        Client(Socket socket, int dimension, int requests, int pipeline, long seed){
+            this.socket = socket;
+            this.dimension = dimension;
+            this.requests = requests;
+            this.inFlight = new Semaphore(pipeline);
+            this.sendTimes = new ArrayBlockingQueue<>(pipeline);
+            this.random = new Random(seed);
+            this.latencies = new long[requests];
+        }
+
+        @Override
+        public void run(){
+            Thread reader = new Thread(this::readAnswers);
+            reader.start();
+            try {
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                        StandardCharsets.US_ASCII));
+                for(int i = 0; i < requests; i++){
+                    if(!inFlight.tryAcquire()){
+                        out.flush(); //Send what has been buffered before waiting for answers
+                        inFlight.acquire();
+                    }
+                    String query = random.nextInt(dimension) + " " + random.nextInt(dimension) + " "
+                            + random.nextInt(dimension) + " " + random.nextInt(dimension) + "\n";
+                    sendTimes.offer(System.nanoTime());
+                    out.write(query);
+                }
+                out.flush();
+                reader.join();
+            }
+            catch(IOException | InterruptedException e){
+                if(failure == null){
+                    failure = e;
+                }
+            }
+            finally {
+                try {
+                    socket.close();
+                }
+                catch(IOException ignored){
+                }
+            }
+        }
+
+        private void readAnswers(){
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.US_ASCII));
+                for(int i = 0; i < requests; i++){
+                    String answer = in.readLine();
+                    if(answer == null){
+                        throw new IOException("Connection closed after " + i + " answers");
+                    }
+                    if(answer.startsWith("ERR")){
+                        throw new IOException("Server answered " + answer);
+                    }
+                    latencies[i] = System.nanoTime() - sendTimes.take();
+                    if(answer.equals("0")){
+                        unreachable++;
+                    }
+                    inFlight.release();
+                }
+            }
+            catch(IOException | InterruptedException e){
+                failure = e;
+                inFlight.release(requests); //Let the sending thread run into the closed socket
+                try {
+                    socket.close();
+                }
+                catch(IOException ignored){
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package grid;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SearchBenchmark - measures the searches on synthetic grids and on json grid files. For every
+ * grid and search engine it reports the latency per query (mean, median and 99th percentile),
+ * the throughput, the bytes allocated per query, for engines that count them the nodes expanded
+ * by one query, and how much longer than the shortest path the path found is, after a warm up
+ * phase that lets the JIT compile the search.
+ *
+ * Usage: java grid.SearchBenchmark [--sizes 10,64,256,1024] [--iterations 20] [grid.json ...]
+ *
+ * Sizes up to 4096 are supported but need a large heap, for example -Xmx8g.
+ *
+ * JmhSearchBenchmark in bench/jmh, built with the pom.xml in the bench directory, is the
+ * benchmark to trust for per query times and allocations. This runner times a single query
+ * by hand and is kept as a fallback for when the JMH build is not available, and for the
+ * columns JMH does not report: percentiles and nodes expanded.
+ *
+ * @author Danielle Plecki
+ */
+class SearchBenchmark {
+
+    /**
+     * Engine - one way of searching a grid that the benchmark compares against the others.
+     */
+    interface Engine {
+        Object search(Grid grid, Position start, Position end);
+
+        /**
+         * @return nodes expanded by the last search on the grid, or -1 if the engine does not count them
+         */
+        default int expandedNodes(Grid grid){
+            return -1;
+        }
+    }
+
+    /**
+     * ModeEngine - runs one SearchMode on the calling thread's pooled path finder.
+     */
+    static class ModeEngine implements Engine {
+        private final SearchMode mode;
+
+        ModeEngine(SearchMode mode){
+            this.mode = mode;
+        }
+
+        @Override
+        public Object search(Grid grid, Position start, Position end){
+            return grid.pathFinder(mode).findPath(start, end);
+        }
+
+        @Override
+        public int expandedNodes(Grid grid){
+            return grid.pathFinder(mode).expandedNodes();
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * This method lists the engines that are benchmarked, new engines are added here.
+     *
+     * @return engines by name, in the order they are reported
+     */
+    static Map<String, Engine> engines(){
+        Map<String, Engine> engines = new LinkedHashMap<>();
+        engines.put("AStar.algorithm", AStar::algorithm);
+        for(SearchMode mode : SearchMode.values()){
+            engines.put("pooled " + mode, new ModeEngine(mode));
+        }
+        //Hierarchical search without filling in the cells of the path, for callers that only need its cost
+        engines.put("HIERARCHICAL cost only", new Engine() {
+            @Override
+            public Object search(Grid grid, Position start, Position end){
+                return ((HierarchicalSearch) grid.pathFinder(SearchMode.HIERARCHICAL)).findHierarchicalPath(start, end);
+            }
+
+            @Override
+            public int expandedNodes(Grid grid){
+                return grid.pathFinder(SearchMode.HIERARCHICAL).expandedNodes();
+            }
+        });
+        //Flow field built from scratch for every query, where the pooled FLOW_FIELD engine above
+        //measures queries answered from the field kept by the grid
+        engines.put("FLOW_FIELD build", (grid, start, end) ->
+                new FlowField(grid, end.getX(), end.getY()).path(start));
+        //Landmark distance tables built again before every query, where the pooled ALT engine above
+        //measures queries guided by the tables kept by the grid
+        engines.put("ALT landmark build", (grid, start, end) -> {
+            grid.setLandmarks(LandmarkIndex.build(grid, LandmarkIndex.DEFAULT_COUNT));
+            return grid.pathFinder(SearchMode.ALT).findPath(start, end);
+        });
+        return engines;
+    }
+
+    public static void main(String[] args) throws Exception{
+        int[] sizes = {10, 64, 256, 1024};
+        int iterations = 20;
+        ArrayList<String> files = new ArrayList<>();
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--sizes")){
+                sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+            }
+            else if(args[i].equals("--iterations")){
+                iterations = Integer.parseInt(args[++i]);
+            }
+            else {
+                files.add(args[i]);
+            }
+        }
+
+        Map<String, Grid> grids = new LinkedHashMap<>();
+        for(int size : sizes){
+            grids.put("open " + size, SyntheticGrids.openField(size));
+            grids.put("random 10% " + size, SyntheticGrids.randomObstacles(size, 0.10, size));
+            grids.put("random 30% " + size, SyntheticGrids.randomObstacles(size, 0.30, size));
+            grids.put("maze " + size, SyntheticGrids.maze(size, size));
+            grids.put("unreachable " + size, SyntheticGrids.unreachable(size));
+        }
+        for(String file : files){
+            grids.put(file, Main.setGrid(Paths.get(file)));
+        }
+
+        System.out.printf("%-28s %-24s %12s %12s %12s %12s %14s %12s %8s%n",
+                "grid", "engine", "mean us", "p50 us", "p99 us", "ops/s", "alloc B/op", "expanded", "gap %");
+        //Each grid is measured on a thread of its own and then dropped, so the engines the grid
+        //hands out to that thread and the tables it keeps do not pile up over the grids
+        for(Iterator<Map.Entry<String, Grid>> remaining = grids.entrySet().iterator(); remaining.hasNext(); ){
+            Map.Entry<String, Grid> grid = remaining.next();
+            remaining.remove();
+            String name = grid.getKey();
+            Grid searched = grid.getValue();
+            int measuredIterations = iterations;
+            Thread measuring = new Thread(() -> measureGrid(name, searched, measuredIterations), "benchmark " + name);
+            measuring.start();
+            measuring.join();
+        }
+    }
+
+    /**
+     * This method measures and reports every engine on one grid.
+     */
+    static void measureGrid(String name, Grid grid, int iterations){
+        double shortest = costOf(grid.pathFinder(SearchMode.ASTAR).findPath(grid.getStart(), grid.getEnd()));
+        for(Map.Entry<String, Engine> engine : engines().entrySet()){
+            long[] results = measure(grid, engine.getValue(), iterations);
+            double cost = costOf(engine.getValue().search(grid, grid.getStart(), grid.getEnd()));
+            report(name, engine.getKey(), results, engine.getValue().expandedNodes(grid), gap(cost, shortest));
+        }
+    }
+
+    /**
+     * This method runs one engine on one grid, first for warm up and then for the measured
+     * iterations, timing each query on its own.
+     *
+     * @return nanoseconds of each measured query, followed by the bytes allocated by all of them
+     */
+    static long[] measure(Grid grid, Engine engine, int iterations){
+        Position start = grid.getStart();
+        Position end = grid.getEnd();
+        int warmup = Math.max(5, iterations);
+        for(int i = 0; i < warmup; i++){
+            engine.search(grid, start, end);
+        }
+        long[] results = new long[iterations + 1];
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        for(int i = 0; i < iterations; i++){
+            long began = System.nanoTime();
+            engine.search(grid, start, end);
+            results[i] = System.nanoTime() - began;
+        }
+        results[iterations] = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return results;
+    }
+
+    /**
+     * @return how much longer in percent a path is than the shortest path, 0 when they are as
+     *         long, for example when start and end are the same cell
+     */
+    private static double gap(double cost, double shortest){
+        return cost == shortest ? 0 : 100*(cost - shortest)/shortest;
+    }
+
+    /**
+     * @return cost of a path returned by an engine, or NaN if there is no path or the engine does not return one
+     */
+    private static double costOf(Object result){
+        if(result instanceof GridPath){
+            return ((GridPath) result).cost();
+        }
+        if(result instanceof HierarchicalPath){
+            return ((HierarchicalPath) result).cost();
+        }
+        return Double.NaN;
+    }
+
+    private static void report(String grid, String engine, long[] results, int expanded, double gap){
+        int iterations = results.length - 1;
+        long allocated = results[iterations];
+        long[] times = Arrays.copyOf(results, iterations);
+        Arrays.sort(times);
+        double total = 0;
+        for(long time : times){
+            total += time;
+        }
+        double mean = total / iterations;
+        System.out.printf("%-28s %-24s %12.1f %12.1f %12.1f %12.0f %14d %12s %8s%n", grid, engine,
+                mean / 1000, times[iterations / 2] / 1000.0, times[(int) Math.ceil(iterations * 0.99) - 1] / 1000.0,
+                1e9 / mean, allocated / iterations, expanded < 0 ? "-" : Integer.toString(expanded),
+                Double.isNaN(gap) ? "-" : String.format("%.2f", gap));
+    }
+}
@@ -0,0 +1,137 @@
+package grid;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * SyntheticGrids - deterministic grids for benchmarking the searches. The same size and seed
+ * always produce the same grid, so results can be compared between runs and machines. Every
+ * grid searches from the bottom left corner to the top right corner.
+ *
+ * @author Danielle Plecki
+ */
+class SyntheticGrids {
+
+    private SyntheticGrids(){} //only static methods
+
+    /**
+     * @param dimension width and height of the grid
+     * @return grid without any obstacles
+     */
+    static Grid openField(int dimension){
+        return build(dimension, new ArrayList<>());
+    }
+
+    /**
+     * This method places obstacles at random, keeping the start and end cells free. The end
+     * may not be reachable for high densities.
+     *
+     * @param dimension width and height of the grid
+     * @param density chance of each cell holding an obstacle, from 0 to 1
+     * @param seed seed of the random placement
+     * @return grid with randomly placed obstacles
+     */
+    static Grid randomObstacles(int dimension, double density, long seed){
+        Random random = new Random(seed);
+        ArrayList<Position> obstacles = new ArrayList<>();
+        for(int y = 0; y < dimension; y++){
+            for(int x = 0; x < dimension; x++){
+                if(random.nextDouble() < density && !isCorner(x, y, dimension)){
+                    obstacles.add(new Position(x, y));
+                }
+            }
+        }
+        return build(dimension, obstacles);
+    }
+
+    /**
+     * This method carves a perfect maze with an iterative depth first search. Cells with two
+     * even coordinates are rooms and the cells between them are walls that get knocked down,
+     * so there is exactly one path between any two rooms.
+     *
+     * @param dimension width and height of the grid
+     * @param seed seed of the random carving
+     * @return grid holding a maze
+     */
+    static Grid maze(int dimension, long seed){
+        Random random = new Random(seed);
+        boolean[] open = new boolean[dimension*dimension];
+        int rooms = (dimension + 1) / 2;
+        int[] stack = new int[rooms*rooms];
+        int top = 0;
+        open[0] = true;
+        stack[top++] = 0;
+        int[] directions = new int[4];
+        while(top > 0){
+            int cell = stack[top - 1];
+            int x = cell % dimension;
+            int y = cell / dimension;
+            int count = 0;
+            if(y + 2 < dimension && !open[cell + 2*dimension]) directions[count++] = 0;
+            if(y - 2 >= 0 && !open[cell - 2*dimension]) directions[count++] = 1;
+            if(x + 2 < dimension && !open[cell + 2]) directions[count++] = 2;
+            if(x - 2 >= 0 && !open[cell - 2]) directions[count++] = 3;
+            if(count == 0){
+                top--;
+                continue;
+            }
+            int step;
+            switch(directions[random.nextInt(count)]){
+                case 0: step = dimension; break;
+                case 1: step = -dimension; break;
+                case 2: step = 1; break;
+                default: step = -1; break;
+            }
+            open[cell + step] = true;
+            open[cell + 2*step] = true;
+            stack[top++] = cell + 2*step;
+        }
+        //The top right corner is a room when the dimension is odd, otherwise open it up to the
+        //room next to it so the end is reachable
+        int last = dimension*dimension - 1;
+        open[last] = true;
+        if(dimension % 2 == 0){
+            open[last - 1 - dimension] = true;
+            open[last - 1] = true;
+        }
+        ArrayList<Position> obstacles = new ArrayList<>();
+        for(int cell = 0; cell < open.length; cell++){
+            if(!open[cell]){
+                obstacles.add(new Position(cell % dimension, cell / dimension));
+            }
+        }
+        return build(dimension, obstacles);
+    }
+
+    /**
+     * This method walls off the end position in a small box in the top right corner, which is
+     * the worst case for a search because it has to empty everything reachable from the start.
+     *
+     * @param dimension width and height of the grid, at least 4
+     * @return grid whose end position cannot be reached
+     */
+    static Grid unreachable(int dimension){
+        ArrayList<Position> obstacles = new ArrayList<>();
+        int wall = dimension - 3;
+        for(int i = wall; i < dimension; i++){
+            obstacles.add(new Position(wall, i));
+            if(i != wall){
+                obstacles.add(new Position(i, wall));
+            }
+        }
+        return build(dimension, obstacles);
+    }
+
+    private static boolean isCorner(int x, int y, int dimension){
+        return (x == 0 && y == 0) || (x == dimension - 1 && y == dimension - 1);
+    }
+
+    private static Grid build(int dimension, ArrayList<Position> obstacles){
+        Grid grid = new Grid();
+        grid.setDimension(dimension);
+        grid.setStart(new Position(0, 0));
+        grid.setEnd(new Position(dimension - 1, dimension - 1));
+        grid.setObstacles(obstacles.toArray(new Position[0]));
+        return grid;
+    }
+}
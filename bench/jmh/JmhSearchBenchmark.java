@@ -0,0 +1,145 @@
+package grid;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JmhSearchBenchmark - measures the time of one query for every search mode on the synthetic
+ * grids, with JMH taking care of warm up, forking and dead code elimination. Each operation
+ * answers the next query of a fixed set and the set is cycled through, so the time reported is
+ * the mean over different starts and ends rather than over one query repeated until it is
+ * cached by the CPU.
+ *
+ * The path costs are added up next to the time, see PathCosts, so that the modes which may find
+ * longer paths than the shortest, such as HIERARCHICAL and WEIGHTED, report how much longer.
+ *
+ * Build and run from the bench directory, adding -prof gc for the bytes allocated per query:
+ *
+ *     mvn package
+ *     java -jar target/benchmarks.jar JmhSearchBenchmark -prof gc
+ *     java -jar target/benchmarks.jar JmhSearchBenchmark -p size=64,256 -p mode=ASTAR,JUMP_POINT
+ *
+ * @author Danielle Plecki
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class JmhSearchBenchmark {
+
+    /**
+     * Number of queries cycled through, a power of two so the next one is found with a mask.
+     */
+    static final int QUERIES = 64;
+
+    @Param({"10", "64", "256", "1024", "4096"})
+    public int size;
+
+    @Param({"open", "random10", "random30", "maze", "unreachable"})
+    public String kind;
+
+    @Param({"ASTAR", "JUMP_POINT", "BIDIRECTIONAL", "HIERARCHICAL", "FLOW_FIELD", "WEIGHTED", "ALT"})
+    public String mode;
+
+    private Grid grid;
+    private PathFinder finder;
+    private final Position[] starts = new Position[QUERIES];
+    private final Position[] ends = new Position[QUERIES];
+    //Cost of the shortest path of each query, NaN if it has none
+    private final double[] shortest = new double[QUERIES];
+    private int next;
+
+    /**
+     * PathCosts - the costs of the paths found during an iteration, reported by JMH as the
+     * secondary results extraCost and shortestCost. The optimality gap in percent is
+     * 100*extraCost/shortestCost. Queries without a path are left out.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PathCosts {
+        //How much longer the paths found are than the shortest paths, added up
+        public double extraCost;
+        //Cost of the shortest paths, added up
+        public double shortestCost;
+
+        @Setup(Level.Iteration)
+        public void clear(){
+            extraCost = 0;
+            shortestCost = 0;
+        }
+    }
+
+    /**
+     * This method builds the grid and the queries. The first query goes between the corners
+     * of the grid and the others between free cells drawn at random, except on the
+     * unreachable grid where every query ends in its walled off corner.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        switch(kind){
+            case "open": grid = SyntheticGrids.openField(size); break;
+            case "random10": grid = SyntheticGrids.randomObstacles(size, 0.10, size); break;
+            case "random30": grid = SyntheticGrids.randomObstacles(size, 0.30, size); break;
+            case "maze": grid = SyntheticGrids.maze(size, size); break;
+            case "unreachable": grid = SyntheticGrids.unreachable(size); break;
+            default: throw new IllegalArgumentException("Unknown grid kind " + kind);
+        }
+        //The state is set up on the thread that runs the benchmark, so this is the finder it uses
+        finder = grid.pathFinder(SearchMode.valueOf(mode));
+        Random random = new Random(size);
+        starts[0] = grid.getStart();
+        ends[0] = grid.getEnd();
+        for(int i = 1; i < QUERIES; i++){
+            starts[i] = freeCell(random);
+            ends[i] = kind.equals("unreachable") ? grid.getEnd() : freeCell(random);
+        }
+        PathFinder astar = grid.pathFinder(SearchMode.ASTAR);
+        for(int i = 0; i < QUERIES; i++){
+            GridPath path = astar.findPath(starts[i], ends[i]);
+            shortest[i] = path == null ? Double.NaN : path.cost();
+        }
+        next = 0;
+    }
+
+    private Position freeCell(Random random){
+        while(true){
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if(!grid.isBlocked(x, y)){
+                return new Position(x, y);
+            }
+        }
+    }
+
+    /**
+     * @param costs costs of the paths found in this iteration
+     * @return path of the query, returned so that JMH keeps the search from being optimised away
+     */
+    @Benchmark
+    public Object search(PathCosts costs){
+        int query = next;
+        next = (query + 1) & (QUERIES - 1);
+        GridPath path = finder.findPath(starts[query], ends[query]);
+        if(path != null){
+            costs.extraCost += path.cost() - shortest[query];
+            costs.shortestCost += shortest[query];
+        }
+        return path;
+    }
+}
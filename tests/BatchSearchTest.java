@@ -0,0 +1,80 @@
+package grid;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test running batches of queries in parallel
+ * @author Danielle Plecki
+ */
+public class BatchSearchTest {
+    private static Grid mazeGrid;
+
+    @BeforeClass
+    public static void setUp() throws Exception{
+        //20x20 grid with walls on every fourth column, alternately open at the top and the bottom
+        mazeGrid = new Grid();
+        mazeGrid.setDimension(20);
+        ArrayList<Position> walls = new ArrayList<>();
+        for(int x = 3; x < 16; x += 4){
+            int gap = (x / 4) % 2 == 0 ? 19 : 0;
+            for(int y = 0; y < 20; y++){
+                if(y != gap){
+                    walls.add(new Position(x, y));
+                }
+            }
+        }
+        mazeGrid.setObstacles(walls.toArray(new Position[0]));
+    }
+
+    @Test
+    public void checkResultsInInputOrder() throws Exception{
+        Query[] queries = new Query[200];
+        for(int i = 0; i < queries.length; i++){
+            queries[i] = new Query(new Position(i % 3, i % 20), new Position(19 - i % 3, (7*i) % 20));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        GridPath[] paths = BatchSearch.run(mazeGrid, queries, pool);
+        pool.shutdown();
+        assertTrue(paths.length == queries.length);
+        for(int i = 0; i < queries.length; i++){
+            GridPath expected = new SearchEngine(mazeGrid).findPath(queries[i].getStart(), queries[i].getEnd());
+            assertTrue(paths[i].getStart().equals(queries[i].getStart()));
+            assertTrue(paths[i].getEnd().equals(queries[i].getEnd()));
+            assertTrue(paths[i].cost() == expected.cost());
+        }
+    }
+
+    @Test
+    public void checkUnreachableQuery() throws Exception{
+        Query[] queries = {new Query(new Position(0, 0), new Position(3, 5)),
+                new Query(new Position(0, 0), new Position(1, 1))};
+        GridPath[] paths = BatchSearch.run(mazeGrid, queries);
+        assertNull(paths[0]); //(3,5) is part of a wall
+        assertTrue(paths[1].length() == 3);
+    }
+
+    @Test
+    public void checkBatchThroughCache() throws Exception{
+        Query[] queries = new Query[200];
+        for(int i = 0; i < queries.length; i++){
+            queries[i] = new Query(new Position(0, i % 5), new Position(19, 19 - i % 4));
+        }
+        PathCache cache = new PathCache(SearchMode.ASTAR, 10000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        GridPath[] paths = BatchSearch.run(mazeGrid, queries, pool, cache);
+        pool.shutdown();
+        for(int i = 0; i < queries.length; i++){
+            GridPath expected = new SearchEngine(mazeGrid).findPath(queries[i].getStart(), queries[i].getEnd());
+            assertTrue(paths[i].getStart().equals(queries[i].getStart()));
+            assertTrue(paths[i].cost() == expected.cost());
+        }
+        assertTrue(cache.hits() + cache.subPathHits() + cache.misses() == queries.length);
+        assertTrue(cache.misses() <= 2*20);
+    }
+}
@@ -0,0 +1,73 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test that bidirectional A* finds paths as short as A*
+ * @author Danielle Plecki
+ */
+public class BidirectionalSearchTest {
+
+    @Test
+    public void checkSameLengthAsAStar() throws Exception{
+        Random random = new Random(5);
+        for(int seed = 0; seed < 60; seed++){
+            int dimension = 4 + seed % 25;
+            Grid grid = TestGrids.randomGrid(dimension, dimension*dimension*(seed % 4)/10, random);
+            SearchEngine aStar = new SearchEngine(grid);
+            BidirectionalSearch bidirectional = new BidirectionalSearch(grid);
+            for(int query = 0; query < 20; query++){
+                Position start = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                Position end = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                GridPath expected = aStar.findPath(start, end);
+                GridPath path = bidirectional.findPath(start, end);
+                if(expected == null){
+                    assertNull(path);
+                    continue;
+                }
+                assertTrue(path.cost() == expected.cost());
+                assertTrue(path.getStart().equals(start));
+                assertTrue(path.getEnd().equals(end));
+                for(int i = 1; i < path.length(); i++){
+                    int step = Math.abs(path.getX(i) - path.getX(i-1)) + Math.abs(path.getY(i) - path.getY(i-1));
+                    assertTrue(step == 1);
+                    assertFalse(grid.isBlocked(path.getX(i), path.getY(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkEnclosedEndFoundQuickly() throws Exception{
+        //The end at (48,48) is boxed in by a 3x3 ring of obstacles
+        ArrayList<Position> obstacles = new ArrayList<>();
+        for(int i = 46; i <= 50; i++){
+            obstacles.add(new Position(i, 46));
+            obstacles.add(new Position(i, 50));
+            obstacles.add(new Position(46, i));
+            obstacles.add(new Position(50, i));
+        }
+        Grid grid = TestGrids.grid(60, obstacles);
+        BidirectionalSearch bidirectional = new BidirectionalSearch(grid);
+        assertNull(bidirectional.findPath(new Position(0, 0), new Position(48, 48)));
+        assertTrue(bidirectional.expandedNodes() < 30);
+        grid.components(); //The regions are only labelled when asked for
+        SearchEngine aStar = new SearchEngine(grid);
+        assertNull(aStar.findPath(new Position(0, 0), new Position(48, 48)));
+        assertTrue(aStar.expandedNodes() == 0); //Turned down by the connected regions
+    }
+
+    @Test
+    public void checkTrivialPaths() throws Exception{
+        Grid grid = TestGrids.grid(3, new ArrayList<>());
+        BidirectionalSearch bidirectional = new BidirectionalSearch(grid);
+        assertTrue(bidirectional.findPath(new Position(1, 1), new Position(1, 1)).length() == 1);
+        assertTrue(bidirectional.findPath(new Position(1, 1), new Position(1, 2)).length() == 2);
+        assertNull(bidirectional.findPath(new Position(1, 1), new Position(3, 2)));
+    }
+}
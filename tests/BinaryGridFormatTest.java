@@ -0,0 +1,69 @@
+package grid;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test saving and memory mapping binary grid files
+ * @author Danielle Plecki
+ */
+public class BinaryGridFormatTest {
+
+    @Test
+    public void checkRoundTrip() throws Exception{
+        Random random = new Random(37);
+        ArrayList<Position> obstacles = new ArrayList<>();
+        for(int i = 0; i < 400; i++){
+            obstacles.add(new Position(random.nextInt(37), random.nextInt(37)));
+        }
+        Grid grid = new Grid();
+        grid.setDimension(37);
+        grid.setObstacles(obstacles.toArray(new Position[0]));
+        grid.setStart(new Position(1, 2));
+        grid.setEnd(new Position(30, 36));
+        Path file = Files.createTempFile("grid", ".bin");
+        try {
+            BinaryGridFormat.write(grid, file);
+            assertTrue(Files.size(file) == BinaryGridFormat.HEADER_SIZE + 8*((37*37 + 63) / 64));
+            assertTrue(BinaryGridFormat.isBinaryGrid(file));
+            Grid loaded = Main.setGrid(file);
+            assertTrue(loaded.getDimension() == 37);
+            assertTrue(loaded.getStart().equals(new Position(1, 2)));
+            assertTrue(loaded.getEnd().equals(new Position(30, 36)));
+            for(int y = 0; y < 37; y++){
+                for(int x = 0; x < 37; x++){
+                    assertTrue(loaded.isBlocked(x, y) == grid.isBlocked(x, y));
+                }
+            }
+            assertTrue(AStar.algorithm(loaded, loaded.getStart(), loaded.getEnd())
+                    .equals(AStar.algorithm(grid, grid.getStart(), grid.getEnd())));
+            //Changing a mapped grid copies it into memory and leaves the file alone
+            boolean blocked = loaded.isBlocked(5, 5);
+            loaded.setBlocked(5, 5, !blocked);
+            assertTrue(loaded.isBlocked(5, 5) != blocked);
+            assertTrue(Main.setGrid(file).isBlocked(5, 5) == blocked);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void checkJsonIsNotBinary() throws Exception{
+        Path file = Files.createTempFile("grid", ".json");
+        try {
+            Files.write(file, "{\"dimension\": 2}".getBytes("UTF-8"));
+            assertFalse(BinaryGridFormat.isBinaryGrid(file));
+            assertTrue(Main.setGrid(file).getDimension() == 2);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+}
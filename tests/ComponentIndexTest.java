@@ -0,0 +1,130 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test the connected regions of a grid and how they follow changing obstacles
+ * @author Danielle Plecki
+ */
+public class ComponentIndexTest {
+
+    //A wall down column 2 of a 5x5 grid with a gap at (2,4)
+    private static Grid wallGrid(){
+        ArrayList<Position> obstacles = new ArrayList<>();
+        for(int y = 0; y < 4; y++){
+            obstacles.add(new Position(2, y));
+        }
+        return TestGrids.grid(5, obstacles);
+    }
+
+    @Test
+    public void checkConnected() throws Exception{
+        Grid grid = wallGrid();
+        ComponentIndex components = grid.components();
+        assertTrue(components.connected(0, 0, 4, 0));
+        assertTrue(components.connected(0, 0, 0, 0));
+        assertFalse(components.connected(0, 0, 2, 0)); //End on an obstacle
+        assertTrue(components.connected(2, 0, 1, 0)); //Start on an obstacle next to the region
+        grid.setBlocked(2, 4, true);
+        assertFalse(components.connected(0, 0, 4, 0));
+        assertTrue(components.connected(0, 0, 1, 3));
+        assertTrue(components.connected(2, 0, 3, 3));
+        grid.setBlocked(2, 1, false);
+        assertTrue(components.connected(0, 0, 4, 0));
+    }
+
+    @Test
+    public void checkRejectedWithoutSearching() throws Exception{
+        Grid grid = wallGrid();
+        assertTrue(AStar.isReachable(grid, new Position(0, 0), new Position(4, 0)));
+        assertTrue(AStar.findPath(grid, new Position(0, 0), new Position(4, 0)).length() == 13);
+        grid.setBlocked(2, 4, true);
+        assertFalse(AStar.isReachable(grid, new Position(0, 0), new Position(4, 0)));
+        assertFalse(AStar.isReachable(grid, new Position(0, 0), new Position(5, 0)));
+        for(SearchMode mode : SearchMode.values()){
+            PathFinder finder = grid.pathFinder(mode);
+            assertNull(finder.findPath(new Position(0, 0), new Position(4, 0)));
+            assertTrue(finder.expandedNodes() == 0);
+        }
+        assertTrue(AStar.algorithm(grid, new Position(0, 0), new Position(4, 0)).equals(""));
+    }
+
+    @Test
+    public void checkLabelledOnlyWhenAskedFor() throws Exception{
+        Grid grid = wallGrid();
+        grid.setBlocked(2, 4, true);
+        PathFinder finder = grid.pathFinder(SearchMode.ASTAR);
+        assertNull(finder.findPath(new Position(0, 0), new Position(4, 0)));
+        assertTrue(finder.expandedNodes() > 0); //Searched, since the regions are not labelled yet
+        grid.components();
+        assertNull(finder.findPath(new Position(0, 0), new Position(4, 0)));
+        assertTrue(finder.expandedNodes() == 0);
+    }
+
+    @Test
+    public void checkLabelledForManyQueries() throws Exception{
+        Grid grid = wallGrid();
+        grid.setBlocked(2, 4, true);
+        Query[] queries = new Query[BatchSearch.LABEL_REGIONS_QUERIES];
+        Arrays.fill(queries, new Query(new Position(0, 0), new Position(4, 0)));
+        PathFinder finder = grid.pathFinder(SearchMode.ASTAR);
+        BatchSearch.run(grid, Arrays.copyOf(queries, queries.length - 1));
+        assertNull(finder.findPath(new Position(0, 0), new Position(4, 0)));
+        assertTrue(finder.expandedNodes() > 0); //Too few queries to label the regions for
+        BatchSearch.run(grid, queries);
+        assertNull(finder.findPath(new Position(0, 0), new Position(4, 0)));
+        assertTrue(finder.expandedNodes() == 0);
+        //A server keeps its grid for many queries
+        Grid served = wallGrid();
+        served.setBlocked(2, 4, true);
+        new PathServer(served, SearchMode.ASTAR, 1, 1).close();
+        PathFinder servedFinder = served.pathFinder(SearchMode.ASTAR);
+        assertNull(servedFinder.findPath(new Position(0, 0), new Position(4, 0)));
+        assertTrue(servedFinder.expandedNodes() == 0);
+    }
+
+    @Test
+    public void checkUpdatesMatchRelabelling() throws Exception{
+        Random random = new Random(11);
+        for(int seed = 0; seed < 20; seed++){
+            int dimension = 3 + seed % 17;
+            Grid grid = TestGrids.randomGrid(dimension, dimension*dimension/4, random);
+            ComponentIndex components = grid.components();
+            for(int change = 0; change < 200; change++){
+                grid.setBlocked(random.nextInt(dimension), random.nextInt(dimension), random.nextInt(3) > 0);
+                if(change % 20 == 0){
+                    assertSameRegions(grid, components, new ComponentIndex(grid));
+                }
+            }
+            assertSameRegions(grid, components, new ComponentIndex(grid));
+        }
+    }
+
+    //Both indexes must split the free cells into the same regions, whatever the region numbers are
+    private static void assertSameRegions(Grid grid, ComponentIndex updated, ComponentIndex relabelled){
+        Map<Integer, Integer> updatedToRelabelled = new HashMap<>();
+        Map<Integer, Integer> relabelledToUpdated = new HashMap<>();
+        int dimension = grid.getDimension();
+        for(int y = 0; y < dimension; y++){
+            for(int x = 0; x < dimension; x++){
+                int a = updated.regionOf(x, y);
+                int b = relabelled.regionOf(x, y);
+                assertTrue((a == 0) == grid.isBlocked(x, y));
+                assertTrue((b == 0) == grid.isBlocked(x, y));
+                if(a == 0){
+                    continue;
+                }
+                assertTrue(updatedToRelabelled.computeIfAbsent(a, k -> b) == b);
+                assertTrue(relabelledToUpdated.computeIfAbsent(b, k -> a) == a);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test that searches on a ConcurrentGrid see consistent snapshots while it changes
+ * @author Danielle Plecki
+ */
+public class ConcurrentGridTest {
+
+    private static ConcurrentGrid concurrentGrid(int dimension){
+        Grid grid = new Grid();
+        grid.setDimension(dimension);
+        grid.setObstacles(new Position[0]);
+        grid.setStart(new Position(0, 0));
+        grid.setEnd(new Position(dimension - 1, dimension - 1));
+        return new ConcurrentGrid(grid);
+    }
+
+    @Test
+    public void checkSnapshotsDoNotChange() throws Exception{
+        ConcurrentGrid grid = concurrentGrid(100);
+        Grid first = grid.snapshot();
+        assertTrue(grid.version() == 0);
+        assertTrue(grid.apply(new ConcurrentGrid.Batch(grid).block(3, 4).block(99, 99).free(3, 4).block(5, 5)) == 1);
+        Grid second = grid.snapshot();
+        assertFalse(first.isBlocked(5, 5));
+        assertTrue(second.isBlocked(5, 5));
+        assertFalse(second.isBlocked(3, 4));
+        assertTrue(second.isBlocked(99, 99));
+        assertTrue(second.getVersion() == 1);
+        assertTrue(second.getEnd().equals(new Position(99, 99)));
+        //Only the tiles holding the changed cells were copied
+        TiledOccupancy before = (TiledOccupancy) first.getOccupancy();
+        TiledOccupancy after = (TiledOccupancy) second.getOccupancy();
+        assertFalse(before.sharesTile(after, 0));
+        assertTrue(before.sharesTile(after, 1));
+        assertFalse(before.sharesTile(after, (99*100 + 99) / 64 / TiledOccupancy.TILE_WORDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void checkSnapshotCannotBeChanged() throws Exception{
+        concurrentGrid(10).snapshot().setBlocked(1, 1, true);
+    }
+
+    @Test
+    public void checkPathFindersMoveToNewSnapshots() throws Exception{
+        ConcurrentGrid grid = concurrentGrid(20);
+        PathFinder finder = grid.snapshot().pathFinder(SearchMode.ASTAR);
+        assertTrue(grid.findPath(new Position(0, 0), new Position(19, 0), SearchMode.ASTAR).cost() == 19);
+        grid.apply(new ConcurrentGrid.Batch(grid).block(10, 0));
+        assertTrue(grid.findPath(new Position(0, 0), new Position(19, 0), SearchMode.ASTAR).cost() == 21);
+        assertTrue(grid.snapshot().pathFinder(SearchMode.ASTAR) == finder);
+        assertTrue(finder.getGrid() == grid.snapshot());
+    }
+
+    @Test
+    public void checkHierarchicalFinderMovesToNewSnapshots() throws Exception{
+        ConcurrentGrid grid = concurrentGrid(40);
+        PathFinder finder = grid.snapshot().pathFinder(SearchMode.HIERARCHICAL);
+        assertTrue(grid.findPath(new Position(0, 0), new Position(39, 0), SearchMode.HIERARCHICAL).cost() == 39);
+        ConcurrentGrid.Batch wall = new ConcurrentGrid.Batch(grid);
+        for(int y = 0; y < 39; y++){
+            wall.block(20, y);
+        }
+        grid.apply(wall);
+        //The pooled finder searches the new snapshot, so the path goes round the wall through the top row
+        assertTrue(grid.findPath(new Position(0, 0), new Position(39, 0), SearchMode.HIERARCHICAL).cost() >= 39 + 2*39);
+        assertTrue(grid.snapshot().pathFinder(SearchMode.HIERARCHICAL) == finder);
+        assertTrue(finder.getGrid() == grid.snapshot());
+    }
+
+    @Test
+    public void checkSearchesDuringChanges() throws Exception{
+        //A wall across the middle row always has exactly one gap, which the writer keeps moving
+        int dimension = 64;
+        ConcurrentGrid grid = concurrentGrid(dimension);
+        ConcurrentGrid.Batch wall = new ConcurrentGrid.Batch(grid);
+        for(int x = 1; x < dimension; x++){
+            wall.block(x, 32);
+        }
+        grid.apply(wall);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger searches = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(16);
+            int gap = 0;
+            while(running.get()){
+                int next = random.nextInt(dimension);
+                grid.apply(new ConcurrentGrid.Batch(grid).block(gap, 32).free(next, 32));
+                gap = next;
+            }
+        });
+        ArrayList<Thread> readers = new ArrayList<>();
+        for(int i = 0; i < 3; i++){
+            Random random = new Random(i);
+            readers.add(new Thread(() -> {
+                while(running.get()){
+                    Grid snapshot = grid.snapshot();
+                    Position start = new Position(random.nextInt(dimension), random.nextInt(32));
+                    Position end = new Position(random.nextInt(dimension), 33 + random.nextInt(31));
+                    GridPath path = AStar.pooledFindPath(snapshot, start, end, SearchMode.values()[random.nextInt(3)]);
+                    if(path == null || !path.getEnd().equals(end)){
+                        failures.incrementAndGet();
+                        continue;
+                    }
+                    for(int step = 0; step < path.length(); step++){
+                        if(snapshot.isBlocked(path.getX(step), path.getY(step))){
+                            failures.incrementAndGet();
+                        }
+                    }
+                    searches.incrementAndGet();
+                }
+            }));
+        }
+        writer.start();
+        readers.forEach(Thread::start);
+        Thread.sleep(500);
+        running.set(false);
+        writer.join();
+        for(Thread reader : readers){
+            reader.join();
+        }
+        assertTrue(failures.get() == 0);
+        assertTrue(searches.get() > 0);
+        assertTrue(grid.version() > 1);
+    }
+}
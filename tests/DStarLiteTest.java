@@ -0,0 +1,72 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test that D* Lite keeps its path up to date as obstacles change and the agent moves
+ * @author Danielle Plecki
+ */
+public class DStarLiteTest {
+
+    @Test
+    public void checkSameLengthAsAStar() throws Exception{
+        Random random = new Random(15);
+        for(int seed = 0; seed < 40; seed++){
+            int dimension = 3 + seed % 23;
+            Grid grid = TestGrids.randomGrid(dimension, dimension*dimension*(seed % 4)/10, random);
+            Position start = new Position(random.nextInt(dimension), random.nextInt(dimension));
+            Position goal = new Position(random.nextInt(dimension), random.nextInt(dimension));
+            DStarLite planner = new DStarLite(grid, start, goal);
+            for(int change = 0; change < 30; change++){
+                if(change % 3 == 0){
+                    start = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                    planner.moveStart(start);
+                }
+                else {
+                    planner.setBlocked(random.nextInt(dimension), random.nextInt(dimension), random.nextBoolean());
+                }
+                GridPath expected = new SearchEngine(grid).findPath(start, goal);
+                GridPath path = planner.path();
+                if(expected == null){
+                    assertNull(path);
+                    continue;
+                }
+                assertTrue(path.cost() == expected.cost());
+                assertTrue(path.getStart().equals(start));
+                assertTrue(path.getEnd().equals(goal));
+                for(int i = 1; i < path.length(); i++){
+                    int step = Math.abs(path.getX(i) - path.getX(i-1)) + Math.abs(path.getY(i) - path.getY(i-1));
+                    assertTrue(step == 1);
+                    assertFalse(grid.isBlocked(path.getX(i), path.getY(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkLocalChangeIsCheap() throws Exception{
+        Grid grid = TestGrids.randomGrid(200, 8000, new Random(1));
+        grid.setBlocked(0, 0, false);
+        grid.setBlocked(199, 199, false);
+        DStarLite planner = new DStarLite(grid, new Position(0, 0), new Position(199, 199));
+        GridPath path = planner.path();
+        int initial = planner.expandedNodes();
+        //Block a cell in the middle of the path and follow the path a few steps
+        Position blocked = path.get(path.length() / 2);
+        planner.setBlocked(blocked.getX(), blocked.getY(), true);
+        planner.moveStart(path.get(5));
+        GridPath repaired = planner.path();
+        assertTrue(planner.expandedNodes()*20 < initial);
+        assertTrue(repaired.cost() == new SearchEngine(grid).findPath(path.get(5), new Position(199, 199)).cost());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkOutsideCell() throws Exception{
+        DStarLite planner = new DStarLite(TestGrids.randomGrid(5, 0, new Random(2)), new Position(0, 0), new Position(4, 4));
+        planner.setBlocked(5, 0, true);
+    }
+}
@@ -0,0 +1,127 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test flow fields against A* and the grid's cache of them
+ * @author Danielle Plecki
+ */
+public class FlowFieldTest {
+
+    private static void assertMatchesSearch(Grid grid, FlowField field, Position end, Random random, int queries){
+        SearchEngine engine = new SearchEngine(grid);
+        int dimension = grid.getDimension();
+        for(int i = 0; i < queries; i++){
+            Position start = new Position(random.nextInt(dimension), random.nextInt(dimension));
+            GridPath expected = engine.findPath(start, end);
+            GridPath path = field.path(start);
+            if(expected == null){
+                assertNull(path);
+                assertTrue(field.distance(start.getX(), start.getY()) == -1);
+                continue;
+            }
+            assertTrue(path.cost() == expected.cost());
+            assertTrue(field.distance(start.getX(), start.getY()) == expected.cost());
+            assertTrue(path.get(0).equals(start));
+            assertTrue(path.getEnd().equals(end));
+            for(int step = 1; step < path.length(); step++){
+                assertFalse(grid.isBlocked(path.getX(step), path.getY(step)));
+                assertTrue(Math.abs(path.getX(step) - path.getX(step - 1))
+                        + Math.abs(path.getY(step) - path.getY(step - 1)) == 1);
+            }
+        }
+    }
+
+    @Test
+    public void checkSmallField() throws Exception{
+        ArrayList<Position> walls = new ArrayList<>();
+        walls.add(new Position(1, 0));
+        walls.add(new Position(1, 1));
+        Grid grid = new Grid();
+        grid.setDimension(3);
+        grid.setObstacles(walls.toArray(new Position[0]));
+        FlowField field = grid.flowField(2, 0);
+        assertTrue(field.distance(2, 0) == 0);
+        assertTrue(field.direction(2, 0) == FlowField.NONE);
+        assertTrue(field.distance(0, 0) == 6);
+        assertTrue(field.direction(0, 0) == FlowField.NORTH);
+        assertTrue(field.direction(2, 2) == FlowField.SOUTH);
+        assertTrue(field.distance(1, 0) == 1); //A blocked cell can be left
+        assertTrue(field.direction(1, 0) == FlowField.EAST);
+        assertTrue(field.path(new Position(0, 0)).length() == 7);
+        assertNull(field.path(new Position(3, 0)));
+    }
+
+    @Test
+    public void checkBlockedTarget() throws Exception{
+        ArrayList<Position> walls = new ArrayList<>();
+        walls.add(new Position(2, 2));
+        Grid grid = new Grid();
+        grid.setDimension(5);
+        grid.setObstacles(walls.toArray(new Position[0]));
+        FlowField field = grid.flowField(2, 2);
+        assertTrue(field.distance(2, 2) == 0);
+        assertTrue(field.distance(2, 1) == -1);
+        assertNull(field.path(new Position(0, 0)));
+    }
+
+    @Test
+    public void checkRandomGridsAcrossTiles() throws Exception{
+        Random random = new Random(18);
+        for(int dimension : new int[]{1, 7, 64, 65, 130, 200}){
+            Grid grid = TestGrids.randomGrid(dimension, dimension*dimension/3, random);
+            for(int target = 0; target < 3; target++){
+                Position end = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                assertMatchesSearch(grid, new FlowField(grid, end.getX(), end.getY()), end, random, 200);
+            }
+        }
+    }
+
+    @Test
+    public void checkMazeAcrossTiles() throws Exception{
+        Random random = new Random(3);
+        Grid grid = TestGrids.mazeGrid(257);
+        Position end = new Position(256, 128);
+        FlowField field = grid.flowField(end.getX(), end.getY());
+        assertMatchesSearch(grid, field, end, random, 100);
+        assertTrue(field.distance(0, 0) > 257*257/4);
+    }
+
+    @Test
+    public void checkFieldsKeptUntilChanged() throws Exception{
+        Grid grid = TestGrids.mazeGrid(41);
+        FlowField first = grid.flowField(40, 40);
+        assertTrue(grid.flowField(40, 40) == first);
+        for(int i = 0; i < Grid.FLOW_FIELDS_KEPT - 1; i++){
+            grid.flowField(i, 0);
+        }
+        assertTrue(grid.flowField(40, 40) == first);
+        grid.setBlocked(3, 0, false);
+        FlowField second = grid.flowField(40, 40);
+        assertTrue(second != first);
+        assertTrue(second.distance(0, 0) < first.distance(0, 0));
+        for(int i = 0; i < Grid.FLOW_FIELDS_KEPT; i++){
+            grid.flowField(i, 1);
+        }
+        assertTrue(grid.flowField(40, 40) != second);
+    }
+
+    @Test
+    public void checkSearchMode() throws Exception{
+        Grid grid = TestGrids.mazeGrid(41);
+        PathFinder finder = grid.pathFinder(SearchMode.FLOW_FIELD);
+        GridPath path = finder.findPath(new Position(0, 0), new Position(40, 40));
+        assertTrue(path.cost() == AStar.findPath(grid, new Position(0, 0), new Position(40, 40)).cost());
+        assertTrue(finder.expandedNodes() > 0);
+        path = finder.findPath(new Position(20, 5), new Position(40, 40));
+        assertTrue(path.cost() == AStar.findPath(grid, new Position(20, 5), new Position(40, 40)).cost());
+        assertTrue(finder.expandedNodes() == 0);
+        assertNull(finder.findPath(new Position(0, 0), new Position(3, 5))); //(3,5) is part of a wall
+        assertNull(finder.findPath(new Position(0, 0), new Position(41, 5)));
+    }
+}
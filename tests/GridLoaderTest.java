@@ -0,0 +1,58 @@
+package grid;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test loading json grids as a stream
+ * @author Danielle Plecki
+ */
+public class GridLoaderTest {
+
+    @Test
+    public void checkLoad() throws Exception{
+        String json = "{\"dimension\": 5, \"start\": {\"x\": 0, \"y\": 1}, \"end\": {\"x\": 4, \"y\": 3},"
+                + " \"obstacles\": [{\"x\": 2, \"y\": 2}, {\"x\": 3, \"y\": 0}, {\"x\": 9, \"y\": 9}]}";
+        Grid grid = GridLoader.load(new StringReader(json));
+        assertTrue(grid.getDimension() == 5);
+        assertTrue(grid.getStart().equals(new Position(0, 1)));
+        assertTrue(grid.getEnd().equals(new Position(4, 3)));
+        assertTrue(grid.isBlocked(2, 2));
+        assertTrue(grid.isBlocked(3, 0));
+        assertFalse(grid.isBlocked(0, 3));
+        assertNull(grid.getQueries());
+        //The obstacle outside of the grid is dropped, the others are listed row by row
+        Position[] obstacles = grid.getObstacles();
+        assertTrue(obstacles.length == 2);
+        assertTrue(obstacles[0].equals(new Position(3, 0)));
+        assertTrue(obstacles[1].equals(new Position(2, 2)));
+    }
+
+    @Test
+    public void checkFieldOrder() throws Exception{
+        //Obstacles before the dimension, unknown fields and queries
+        String json = "{\"obstacles\": [{\"y\": 1, \"x\": 1}], \"comment\": [1, {\"a\": 2}], \"dimension\": 3,"
+                + " \"queries\": [{\"start\": {\"x\": 0, \"y\": 0}, \"end\": {\"x\": 2, \"y\": 2}}]}";
+        Grid grid = GridLoader.load(new StringReader(json));
+        assertTrue(grid.isBlocked(1, 1));
+        assertFalse(grid.isBlocked(0, 1));
+        assertTrue(grid.getQueries().length == 1);
+        assertTrue(grid.getQueries()[0].getEnd().equals(new Position(2, 2)));
+        assertTrue(AStar.findPath(grid, new Position(0, 0), new Position(2, 2)).length() == 5);
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void checkInvalidJson() throws Exception{
+        GridLoader.load(new StringReader("{\"dimension\": 3, \"obstacles\": [{\"x\": 1"));
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void checkDimensionGivenTwice() throws Exception{
+        //The obstacles read before the second dimension are already in a bitset of the first one
+        GridLoader.load(new StringReader("{\"obstacles\": [{\"x\": 1, \"y\": 1}], \"dimension\": 3,"
+                + " \"obstacles\": [{\"x\": 2, \"y\": 0}], \"dimension\": 4}"));
+    }
+}
@@ -0,0 +1,47 @@
+package grid;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test GridPath and the PathFormatter that prints it
+ * @author Danielle Plecki
+ */
+public class GridPathTest {
+    //(0,0) -> (1,0) -> (1,1) -> (1,2)
+    private static final GridPath path = new GridPath(new int[]{0, 0, 1, 0, 1, 1, 1, 2}, 3);
+
+    @Test
+    public void checkAccessors() throws Exception{
+        assertTrue(path.length() == 4);
+        assertTrue(path.cost() == 3);
+        assertTrue(path.getX(1) == 1 && path.getY(1) == 0);
+        assertTrue(path.getStart().equals(new Position(0, 0)));
+        assertTrue(path.getEnd().equals(new Position(1, 2)));
+    }
+
+    @Test
+    public void checkIterationOrder() throws Exception{
+        Iterator<Position> positions = path.iterator();
+        assertTrue(positions.next().equals(new Position(0, 0)));
+        assertTrue(positions.next().equals(new Position(1, 0)));
+        assertTrue(positions.next().equals(new Position(1, 1)));
+        assertTrue(positions.next().equals(new Position(1, 2)));
+        assertFalse(positions.hasNext());
+    }
+
+    @Test
+    public void checkFormat() throws Exception{
+        String expected = "x=1, y=2\nx=1, y=1\nx=1, y=0\nx=0, y=0";
+        assertTrue(PathFormatter.format(path).equals(expected));
+        GridPath negative = new GridPath(new int[]{-12, 305}, 0);
+        assertTrue(PathFormatter.format(negative).equals("x=-12, y=305"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PathFormatter.write(path, out);
+        assertTrue(out.toString("US-ASCII").equals(expected + "\n"));
+    }
+}
@@ -45,4 +45,17 @@ public class GridTest extends Grid{
         Position notObstacle = new Position(4,4);
         assertFalse(allObstacles[7].equals(notObstacle));
     }
+
+    @Test
+    public void testIsBlocked() throws Exception{
+        //(2,3) is an obstacle in InstructorExample.json and (8,7) is not
+        assertTrue(instructorTestGrid.isBlocked(2, 3));
+        assertFalse(instructorTestGrid.isBlocked(8, 7));
+        //Obstacles set after creation are indexed as well
+        Grid grid = new Grid();
+        grid.setDimension(4);
+        grid.setObstacles(new Position[]{new Position(1, 2), new Position(7, 7)});
+        assertTrue(grid.isBlocked(1, 2));
+        assertFalse(grid.isBlocked(2, 1));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test hierarchical search over clusters of the grid
+ * @author Danielle Plecki
+ */
+public class HierarchicalSearchTest {
+
+    private static void assertValidPath(Grid grid, GridPath path, Position start, Position end){
+        assertTrue(path.getStart().equals(start));
+        assertTrue(path.getEnd().equals(end));
+        assertTrue(path.length() == path.cost() + 1);
+        for(int i = 1; i < path.length(); i++){
+            int step = Math.abs(path.getX(i) - path.getX(i-1)) + Math.abs(path.getY(i) - path.getY(i-1));
+            assertTrue(step == 1);
+            assertFalse(grid.isBlocked(path.getX(i), path.getY(i)));
+        }
+    }
+
+    @Test
+    public void checkPathsAgainstAStar() throws Exception{
+        Random random = new Random(14);
+        for(int seed = 0; seed < 40; seed++){
+            int dimension = 5 + seed % 31;
+            Grid grid = TestGrids.randomGrid(dimension, dimension*dimension*(seed % 4)/10, random);
+            SearchEngine aStar = new SearchEngine(grid);
+            HierarchicalSearch hierarchical = new HierarchicalSearch(grid, 2 + seed % 7);
+            for(int query = 0; query < 20; query++){
+                Position start = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                Position end = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                GridPath expected = aStar.findPath(start, end);
+                GridPath path = hierarchical.findPath(start, end);
+                if(expected == null){
+                    assertNull(path);
+                    continue;
+                }
+                assertValidPath(grid, path, start, end);
+                assertTrue(path.cost() >= expected.cost());
+            }
+        }
+    }
+
+    @Test
+    public void checkOpenGridIsShortest() throws Exception{
+        Grid grid = TestGrids.grid(100, new ArrayList<>());
+        HierarchicalSearch hierarchical = new HierarchicalSearch(grid, 10);
+        GridPath path = hierarchical.findPath(new Position(3, 97), new Position(95, 2));
+        assertValidPath(grid, path, new Position(3, 97), new Position(95, 2));
+        assertTrue(path.cost() == 92 + 95);
+    }
+
+    @Test
+    public void checkLazyRefinement() throws Exception{
+        Random random = new Random(3);
+        ArrayList<Position> obstacles = new ArrayList<>();
+        for(int i = 0; i < 1200; i++){
+            obstacles.add(new Position(random.nextInt(80), random.nextInt(80)));
+        }
+        Grid grid = TestGrids.grid(80, obstacles);
+        HierarchicalSearch hierarchical = new HierarchicalSearch(grid, 8);
+        Position start = new Position(0, 0);
+        Position end = new Position(79, 79);
+        grid.setBlocked(0, 0, false);
+        grid.setBlocked(79, 79, false);
+        GridPath whole = hierarchical.findPath(start, end);
+        HierarchicalPath lazy = hierarchical.findHierarchicalPath(start, end);
+        assertTrue(lazy.cost() == whole.cost());
+        assertTrue(lazy.getWaypoint(0).equals(start));
+        assertTrue(lazy.getWaypoint(lazy.waypointCount() - 1).equals(end));
+        GridPath firstSteps = lazy.firstSteps(5);
+        assertTrue(firstSteps.length() == 6);
+        assertTrue(firstSteps.cost() == 5);
+        for(int i = 0; i < firstSteps.length(); i++){
+            assertTrue(firstSteps.getX(i) == whole.getX(i) && firstSteps.getY(i) == whole.getY(i));
+        }
+        assertValidPath(grid, lazy.toGridPath(), start, end);
+    }
+
+    @Test
+    public void checkGraphFollowsObstacles() throws Exception{
+        Grid grid = TestGrids.grid(20, new ArrayList<>());
+        HierarchicalSearch hierarchical = new HierarchicalSearch(grid, 5);
+        assertTrue(hierarchical.findPath(new Position(0, 12), new Position(19, 12)).cost() == 19);
+        //A wall across x = 10 with a gap at the top
+        for(int y = 0; y < 19; y++){
+            grid.setBlocked(10, y, true);
+        }
+        GridPath path = hierarchical.findPath(new Position(0, 12), new Position(19, 12));
+        assertValidPath(grid, path, new Position(0, 12), new Position(19, 12));
+        grid.setBlocked(10, 19, true);
+        assertNull(hierarchical.findPath(new Position(0, 12), new Position(19, 12)));
+    }
+}
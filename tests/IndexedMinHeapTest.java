@@ -0,0 +1,84 @@
+package grid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test the IndexedMinHeap used as the open set of the A* search
+ * @author Danielle Plecki
+ */
+public class IndexedMinHeapTest {
+
+    @Test
+    public void checkPollOrder() throws Exception{
+        IndexedMinHeap heap = new IndexedMinHeap(10);
+        heap.insert(4, 3.5);
+        heap.insert(7, 1.0);
+        heap.insert(2, 2.0);
+        heap.insert(9, 8.0);
+        assertTrue(heap.size() == 4);
+        assertTrue(heap.poll() == 7);
+        assertTrue(heap.poll() == 2);
+        assertTrue(heap.poll() == 4);
+        assertTrue(heap.poll() == 9);
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void checkTiesInInsertionOrder() throws Exception{
+        IndexedMinHeap heap = new IndexedMinHeap(10);
+        heap.insert(5, 2.0);
+        heap.insert(1, 2.0);
+        heap.insert(8, 2.0);
+        heap.insert(3, 2.0);
+        assertTrue(heap.poll() == 5);
+        assertTrue(heap.poll() == 1);
+        assertTrue(heap.poll() == 8);
+        assertTrue(heap.poll() == 3);
+    }
+
+    @Test
+    public void checkDecreaseKey() throws Exception{
+        IndexedMinHeap heap = new IndexedMinHeap(10);
+        heap.insert(0, 5.0);
+        heap.insert(1, 6.0);
+        heap.insert(2, 7.0);
+        heap.decreaseKey(2, 1.0);
+        assertTrue(heap.priorityOf(2) == 1.0);
+        assertTrue(heap.poll() == 2);
+        assertTrue(heap.poll() == 0);
+    }
+
+    @Test
+    public void checkContainsAndClear() throws Exception{
+        IndexedMinHeap heap = new IndexedMinHeap(10);
+        heap.insert(3, 1.0);
+        heap.insert(6, 2.0);
+        assertTrue(heap.contains(3));
+        assertFalse(heap.contains(4));
+        heap.poll();
+        assertFalse(heap.contains(3));
+        heap.clear();
+        assertFalse(heap.contains(6));
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void checkOperationCounts() throws Exception{
+        IndexedMinHeap heap = new IndexedMinHeap(10);
+        heap.insert(3, 4.0);
+        heap.insert(6, 2.0);
+        heap.insert(1, 5.0);
+        heap.decreaseKey(1, 1.0);
+        heap.poll();
+        heap.insert(2, 3.0);
+        assertTrue(heap.insertCount() == 4);
+        assertTrue(heap.decreaseCount() == 1);
+        assertTrue(heap.pollCount() == 1);
+        assertTrue(heap.peakSize() == 3);
+        heap.clear();
+        assertTrue(heap.insertCount() == 0);
+        assertTrue(heap.peakSize() == 0);
+    }
+}
@@ -0,0 +1,64 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test that Jump Point Search finds paths as short as A*
+ * @author Danielle Plecki
+ */
+public class JumpPointSearchTest {
+
+    @Test
+    public void checkSameLengthAsAStar() throws Exception{
+        Random random = new Random(11);
+        for(int seed = 0; seed < 60; seed++){
+            int dimension = 5 + seed % 30;
+            Grid grid = TestGrids.randomGrid(dimension, (seed % 5) * 0.1, seed);
+            SearchEngine aStar = new SearchEngine(grid);
+            JumpPointSearch jumpPoint = new JumpPointSearch(grid);
+            for(int query = 0; query < 20; query++){
+                Position start = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                Position end = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                GridPath expected = aStar.findPath(start, end);
+                GridPath path = jumpPoint.findPath(start, end);
+                if(expected == null){
+                    assertNull(path);
+                    continue;
+                }
+                assertTrue(path.cost() == expected.cost());
+                assertTrue(path.length() == expected.length());
+                assertTrue(path.getStart().equals(start));
+                assertTrue(path.getEnd().equals(end));
+                for(int i = 1; i < path.length(); i++){
+                    int step = Math.abs(path.getX(i) - path.getX(i-1)) + Math.abs(path.getY(i) - path.getY(i-1));
+                    assertTrue(step == 1);
+                    assertFalse(grid.isBlocked(path.getX(i), path.getY(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkFewerExpansionsInOpenField() throws Exception{
+        Grid grid = TestGrids.randomGrid(100, 0, 0);
+        SearchEngine aStar = new SearchEngine(grid);
+        JumpPointSearch jumpPoint = new JumpPointSearch(grid);
+        Position start = new Position(0, 0);
+        Position end = new Position(99, 99);
+        assertTrue(jumpPoint.findPath(start, end).cost() == aStar.findPath(start, end).cost());
+        assertTrue(jumpPoint.expandedNodes()*10 < aStar.expandedNodes());
+    }
+
+    @Test
+    public void checkModeSelection() throws Exception{
+        Grid grid = TestGrids.randomGrid(20, 0.2, 3);
+        assertTrue(grid.pathFinder(SearchMode.JUMP_POINT) instanceof JumpPointSearch);
+        assertSame(grid.pathFinder(SearchMode.ASTAR), grid.searchEngine());
+        GridPath path = AStar.findPath(grid, new Position(0, 0), new Position(0, 0), SearchMode.JUMP_POINT);
+        assertTrue(path.length() == 1);
+    }
+}
@@ -0,0 +1,125 @@
+package grid;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test landmark distance tables and the ALT search mode
+ * @author Danielle Plecki
+ */
+public class LandmarkIndexTest {
+
+    @Test
+    public void checkSameLengthsAsAStar() throws Exception{
+        Random random = new Random(59);
+        Grid[] grids = {TestGrids.randomGrid(60, 1200, random), TestGrids.mazeGrid(61)};
+        for(Grid grid : grids){
+            for(int i = 0; i < 200; i++){
+                Position start = new Position(random.nextInt(grid.getDimension()), random.nextInt(grid.getDimension()));
+                Position end = new Position(random.nextInt(grid.getDimension()), random.nextInt(grid.getDimension()));
+                GridPath expected = AStar.findPath(grid, start, end, SearchMode.ASTAR);
+                GridPath path = AStar.findPath(grid, start, end, SearchMode.ALT);
+                if(expected == null){
+                    assertNull(path);
+                    continue;
+                }
+                assertTrue(path.cost() == expected.cost());
+                assertTrue(path.getStart().equals(start));
+                assertTrue(path.getEnd().equals(end));
+            }
+        }
+    }
+
+    @Test
+    public void checkFewerExpanded() throws Exception{
+        Random random = new Random(79);
+        Grid grid = TestGrids.randomGrid(120, 5000, random);
+        PathFinder astar = grid.pathFinder(SearchMode.ASTAR);
+        PathFinder alt = grid.pathFinder(SearchMode.ALT);
+        long astarExpanded = 0;
+        long altExpanded = 0;
+        for(int i = 0; i < 100; i++){
+            Position start = new Position(random.nextInt(120), random.nextInt(120));
+            Position end = new Position(random.nextInt(120), random.nextInt(120));
+            GridPath expected = astar.findPath(start, end);
+            GridPath path = alt.findPath(start, end);
+            assertTrue(expected == null ? path == null : path.cost() == expected.cost());
+            astarExpanded += astar.expandedNodes();
+            altExpanded += alt.expandedNodes();
+        }
+        assertTrue(altExpanded < astarExpanded / 2);
+    }
+
+    @Test
+    public void checkBoundsAreAdmissible() throws Exception{
+        Random random = new Random(61);
+        Grid grid = TestGrids.randomGrid(50, 900, random);
+        LandmarkIndex index = LandmarkIndex.build(grid, 5);
+        assertTrue(index.count() == 5);
+        int region = grid.components().largestRegion();
+        for(int i = 0; i < index.count(); i++){
+            int cell = index.landmark(i);
+            assertTrue(grid.components().regionOf(cell % 50, cell / 50) == region);
+            assertTrue(index.distance(i, cell) == 0);
+        }
+        SearchEngine engine = new SearchEngine(grid);
+        int[] endDistances = new int[index.count()];
+        for(int i = 0; i < 300; i++){
+            int startCell = random.nextInt(2500);
+            int endCell = random.nextInt(2500);
+            GridPath path = engine.findPath(new Position(startCell % 50, startCell / 50),
+                    new Position(endCell % 50, endCell / 50));
+            if(path != null && !grid.isBlocked(startCell % 50, startCell / 50)){
+                index.distancesTo(endCell, endDistances);
+                assertTrue(index.lowerBound(startCell, endDistances) <= path.cost());
+            }
+        }
+    }
+
+    @Test
+    public void checkSaveAndLoad() throws Exception{
+        Grid grid = TestGrids.randomGrid(40, 500, new Random(67));
+        LandmarkIndex index = LandmarkIndex.build(grid, 4);
+        Path file = Files.createTempFile("landmarks", ".bin");
+        try {
+            index.write(file);
+            assertTrue(Files.size(file) == LandmarkIndex.HEADER_SIZE + 4L*4*(1 + 40*40));
+            LandmarkIndex loaded = LandmarkIndex.load(file, grid);
+            assertTrue(loaded.count() == 4);
+            for(int i = 0; i < 4; i++){
+                assertTrue(loaded.landmark(i) == index.landmark(i));
+                for(int cell = 0; cell < 40*40; cell++){
+                    assertTrue(loaded.distance(i, cell) == index.distance(i, cell));
+                }
+            }
+            grid.setLandmarks(loaded);
+            assertTrue(grid.landmarks() == loaded);
+            //Changing the obstacles drops the tables and makes the saved ones useless
+            grid.setBlocked(1, 1, !grid.isBlocked(1, 1));
+            assertTrue(grid.landmarks() != loaded);
+            try {
+                LandmarkIndex.load(file, grid);
+                fail("Loaded landmarks saved for other obstacles");
+            }
+            catch(IOException expected){
+                //the saved tables belong to the grid before the change
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkOtherGridsLandmarks() throws Exception{
+        Grid grid = TestGrids.randomGrid(30, 200, new Random(71));
+        Grid other = TestGrids.randomGrid(30, 200, new Random(73));
+        grid.setLandmarks(LandmarkIndex.build(other, 2));
+    }
+}
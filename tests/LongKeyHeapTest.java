@@ -0,0 +1,74 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test the LongKeyHeap used as the open set of D* Lite
+ * @author Danielle Plecki
+ */
+public class LongKeyHeapTest {
+
+    @Test
+    public void checkPackedOrder() throws Exception{
+        LongKeyHeap heap = new LongKeyHeap(10);
+        heap.insert(4, LongKeyHeap.pack(3, 9));
+        heap.insert(7, LongKeyHeap.pack(3, 2));
+        heap.insert(2, LongKeyHeap.pack(1, 50));
+        heap.insert(9, LongKeyHeap.pack(8, 0));
+        assertTrue(heap.peekPriority() == LongKeyHeap.pack(1, 50));
+        assertTrue(heap.poll() == 2);
+        assertTrue(heap.poll() == 7);
+        assertTrue(heap.poll() == 4);
+        assertTrue(heap.poll() == 9);
+        assertTrue(heap.isEmpty());
+        assertTrue(heap.peekPriority() == Long.MAX_VALUE);
+    }
+
+    @Test
+    public void checkUpdateAndRemove() throws Exception{
+        Random random = new Random(8);
+        LongKeyHeap heap = new LongKeyHeap(200);
+        long[] priorities = new long[200];
+        for(int round = 0; round < 5000; round++){
+            int key = random.nextInt(200);
+            long priority = random.nextInt(1000);
+            int operation = random.nextInt(3);
+            if(!heap.contains(key)){
+                heap.insert(key, priority);
+                priorities[key] = priority;
+            }
+            else if(operation == 0){
+                heap.update(key, priority);
+                priorities[key] = priority;
+            }
+            else if(operation == 1){
+                heap.remove(key);
+            }
+            else {
+                long lowest = Long.MAX_VALUE;
+                for(int other = 0; other < 200; other++){
+                    if(heap.contains(other)){
+                        lowest = Math.min(lowest, priorities[other]);
+                    }
+                }
+                assertTrue(heap.peekPriority() == lowest);
+                assertTrue(priorities[heap.poll()] == lowest);
+            }
+        }
+        PriorityQueue<Long> rest = new PriorityQueue<>();
+        for(int key = 0; key < 200; key++){
+            if(heap.contains(key)){
+                rest.add(priorities[key]);
+            }
+        }
+        assertTrue(heap.size() == rest.size());
+        while(!heap.isEmpty()){
+            assertTrue(priorities[heap.poll()] == rest.poll());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package grid;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test tiled grid files and searching them through a bounded cache of tiles
+ * @author Danielle Plecki
+ */
+public class PagedGridFormatTest {
+
+    @Test
+    public void checkRoundTripWithFewResidentTiles() throws Exception{
+        Grid grid = TestGrids.randomGrid(150, 5000, new Random(41));
+        grid.setStart(new Position(0, 0));
+        grid.setEnd(new Position(149, 149));
+        grid.setBlocked(0, 0, false);
+        grid.setBlocked(149, 149, false);
+        Path file = Files.createTempFile("grid", ".tiles");
+        try {
+            PagedGridFormat.write(grid, file);
+            assertTrue(Files.size(file) == PagedGridFormat.HEADER_SIZE + 9*PagedOccupancy.TILE_BYTES);
+            assertTrue(PagedGridFormat.isPagedGrid(file));
+            assertFalse(BinaryGridFormat.isBinaryGrid(file));
+            Grid loaded = PagedGridFormat.load(file, 4);
+            PagedOccupancy tiles = (PagedOccupancy) loaded.getOccupancy();
+            try {
+                assertTrue(loaded.getDimension() == 150);
+                assertTrue(loaded.getStart().equals(new Position(0, 0)));
+                assertTrue(loaded.getEnd().equals(new Position(149, 149)));
+                for(int y = 0; y < 150; y++){
+                    for(int x = 0; x < 150; x++){
+                        assertTrue(loaded.isBlocked(x, y) == grid.isBlocked(x, y));
+                    }
+                }
+                assertTrue(tiles.residentTiles() == 4);
+                assertTrue(tiles.evictions() == tiles.faults() - 4);
+                Random random = new Random(5);
+                for(int i = 0; i < 50; i++){
+                    Position start = new Position(random.nextInt(150), random.nextInt(150));
+                    Position end = new Position(random.nextInt(150), random.nextInt(150));
+                    GridPath expected = new SearchEngine(grid).findPath(start, end);
+                    GridPath path = new SearchEngine(loaded).findPath(start, end);
+                    assertTrue(expected == null ? path == null : path.cost() == expected.cost());
+                }
+                assertTrue(loaded.getOccupancy().word(7) == grid.getOccupancy().word(7));
+            }
+            finally {
+                tiles.close();
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void checkWiderThanHigh() throws Exception{
+        Grid grid = TestGrids.randomGrid(200, 6000, new Random(43));
+        Path file = Files.createTempFile("grid", ".tiles");
+        try {
+            PagedGridFormat.write(grid, 200, 70, file);
+            Grid loaded = Main.setGrid(file);
+            try {
+                assertTrue(loaded.getWidth() == 200);
+                assertTrue(loaded.getHeight() == 70);
+                assertTrue(loaded.getDimension() == 200);
+                //The same grid held in memory, with the rows above the map blocked
+                Grid expected = TestGrids.randomGrid(200, 6000, new Random(43));
+                for(int y = 70; y < 200; y++){
+                    for(int x = 0; x < 200; x++){
+                        expected.setBlocked(x, y, true);
+                    }
+                }
+                for(int y = 0; y < 200; y++){
+                    for(int x = 0; x < 200; x++){
+                        assertTrue(loaded.isBlocked(x, y) == expected.isBlocked(x, y));
+                    }
+                }
+                Random random = new Random(7);
+                for(int i = 0; i < 50; i++){
+                    Position start = new Position(random.nextInt(200), random.nextInt(70));
+                    Position end = new Position(random.nextInt(200), random.nextInt(90));
+                    GridPath expectedPath = AStar.findPath(expected, start, end, SearchMode.JUMP_POINT);
+                    GridPath path = AStar.findPath(loaded, start, end, SearchMode.JUMP_POINT);
+                    assertTrue(expectedPath == null ? path == null : path.cost() == expectedPath.cost());
+                }
+            }
+            finally {
+                ((PagedOccupancy) loaded.getOccupancy()).close();
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void checkSearchOnlyReadsNearbyTiles() throws Exception{
+        Grid open = new Grid();
+        open.setDimension(1024);
+        Path file = Files.createTempFile("grid", ".tiles");
+        try {
+            PagedGridFormat.write(open, file);
+            Grid loaded = PagedGridFormat.load(file);
+            PagedOccupancy tiles = (PagedOccupancy) loaded.getOccupancy();
+            try {
+                assertTrue(tiles.tileCount() == 256);
+                GridPath path = AStar.findPath(loaded, new Position(10, 10), new Position(100, 40), SearchMode.ASTAR);
+                assertTrue(path.length() == 121);
+                assertTrue(tiles.faults() <= 4);
+            }
+            finally {
+                tiles.close();
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void checkTileFaultsReported() throws Exception{
+        Grid grid = TestGrids.randomGrid(300, 20000, new Random(47));
+        grid.setBlocked(5, 5, false);
+        grid.setBlocked(290, 280, false);
+        Path file = Files.createTempFile("grid", ".tiles");
+        ArrayList<SearchStats> seen = new ArrayList<>();
+        SearchListener listener = seen::add;
+        SearchMetrics.addListener(listener);
+        try {
+            PagedGridFormat.write(grid, file);
+            Grid loaded = PagedGridFormat.load(file);
+            PagedOccupancy tiles = (PagedOccupancy) loaded.getOccupancy();
+            try {
+                AStar.findPath(loaded, new Position(5, 5), new Position(290, 280), SearchMode.ASTAR);
+                AStar.findPath(loaded, new Position(5, 5), new Position(290, 280), SearchMode.ASTAR);
+                assertTrue(seen.size() == 2);
+                assertTrue(seen.get(0).getTileFaults() == tiles.faults());
+                assertTrue(seen.get(0).getTileFaults() > 0);
+                assertTrue(seen.get(1).getTileFaults() == 0); //every tile it needs is still resident
+            }
+            finally {
+                tiles.close();
+            }
+        }
+        finally {
+            SearchMetrics.removeListener(listener);
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void checkLargerThanIntCells() throws Exception{
+        Path file = Files.createTempFile("grid", ".tiles");
+        try {
+            PagedGridFormat.writeOpen(file, 70000, 40000);
+            Grid loaded = PagedGridFormat.load(file);
+            PagedOccupancy tiles = (PagedOccupancy) loaded.getOccupancy();
+            try {
+                assertTrue((long) loaded.getWidth()*loaded.getHeight() > Integer.MAX_VALUE);
+                assertTrue(loaded.pathFinder(SearchMode.ASTAR) instanceof PagedSearch);
+                Position start = new Position(68500, 38800);
+                Position end = new Position(69999, 39999);
+                for(SearchMode mode : SearchMode.values()){
+                    GridPath path = AStar.pooledFindPath(loaded, start, end, mode);
+                    assertTrue(path.cost() == 1499 + 1199);
+                    assertTrue(path.getEnd().equals(end));
+                }
+                assertNull(AStar.findPath(loaded, start, new Position(70000, 39999)));
+                //Only the tiles along the path were read and only the cells near it were kept
+                assertTrue(tiles.faults() < 100);
+                assertTrue(((PagedSearch) loaded.pathFinder(SearchMode.ASTAR)).cellCapacity() <= 1 << 14);
+            }
+            finally {
+                tiles.close();
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void checkThinMapIsNotSquared() throws Exception{
+        Path file = Files.createTempFile("grid", ".tiles");
+        try {
+            PagedGridFormat.writeOpen(file, 40000000, 64);
+            Grid loaded = PagedGridFormat.load(file);
+            PagedOccupancy tiles = (PagedOccupancy) loaded.getOccupancy();
+            try {
+                assertTrue(loaded.getDimension() == 40000000);
+                GridPath path = AStar.findPath(loaded, new Position(39990000, 3), new Position(39995000, 60));
+                assertTrue(path.length() == 5000 + 57 + 1);
+                for(int i = 0; i < path.length(); i++){
+                    assertTrue(path.getY(i) < 64);
+                }
+                assertTrue(tiles.faults() <= 80);
+            }
+            finally {
+                tiles.close();
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void checkSearchLimit() throws Exception{
+        Path file = Files.createTempFile("grid", ".tiles");
+        try {
+            PagedGridFormat.writeOpen(file, 500, 500);
+            Grid loaded = PagedGridFormat.load(file);
+            try {
+                //The far corner is too far away to reach within the limit
+                PagedSearch search = new PagedSearch(loaded, 1000);
+                assertTrue(search.findPath(new Position(0, 0), new Position(20, 20)).cost() == 40);
+                try {
+                    search.findPath(new Position(0, 0), new Position(499, 499));
+                    fail();
+                }
+                catch(IllegalStateException expected){
+                    assertTrue(search.cellCapacity() <= 1000);
+                }
+            }
+            finally {
+                ((PagedOccupancy) loaded.getOccupancy()).close();
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void checkNoTablesForEveryCell() throws Exception{
+        Path file = Files.createTempFile("grid", ".tiles");
+        try {
+            PagedGridFormat.write(TestGrids.randomGrid(100, 500, new Random(59)), file);
+            Grid loaded = PagedGridFormat.load(file);
+            try {
+                for(Runnable table : new Runnable[]{loaded::components, () -> loaded.clusterGraph(16),
+                        () -> loaded.flowField(1, 1), loaded::landmarks, () -> new SearchTrace(loaded)}){
+                    try {
+                        table.run();
+                        fail();
+                    }
+                    catch(IllegalStateException expected){
+                        //paged grids are never labelled, clustered, traced or given flow fields or landmarks
+                    }
+                }
+            }
+            finally {
+                ((PagedOccupancy) loaded.getOccupancy()).close();
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void checkPagedGridCannotChange() throws Exception{
+        Path file = Files.createTempFile("grid", ".tiles");
+        try {
+            PagedGridFormat.write(TestGrids.randomGrid(10, 10, new Random(53)), file);
+            Grid loaded = PagedGridFormat.load(file);
+            try {
+                loaded.setBlocked(1, 1, !loaded.isBlocked(1, 1));
+            }
+            finally {
+                ((PagedOccupancy) loaded.getOccupancy()).close();
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+}
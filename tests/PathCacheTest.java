@@ -0,0 +1,180 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test the path cache and the queries it answers from cached paths
+ * @author Danielle Plecki
+ */
+public class PathCacheTest {
+
+    @Test
+    public void checkRepeatedQueries() throws Exception{
+        Grid grid = TestGrids.grid(20, new ArrayList<>());
+        PathCache cache = new PathCache(SearchMode.ASTAR, 1000);
+        GridPath first = cache.findPath(grid, new Position(0, 0), new Position(19, 5));
+        GridPath second = cache.findPath(grid, new Position(0, 0), new Position(19, 5));
+        assertTrue(first == second);
+        assertTrue(cache.hits() == 1);
+        assertTrue(cache.misses() == 1);
+        assertTrue(cache.weight() == first.length());
+        assertNull(cache.findPath(grid, new Position(0, 0), new Position(20, 5)));
+        assertTrue(cache.misses() == 1);
+    }
+
+    @Test
+    public void checkSubPaths() throws Exception{
+        Grid grid = TestGrids.grid(20, new ArrayList<>());
+        PathCache cache = new PathCache(SearchMode.ASTAR, 1000);
+        GridPath whole = cache.findPath(grid, new Position(0, 3), new Position(19, 3));
+        assertTrue(whole.cost() == 19);
+        GridPath forward = cache.findPath(grid, new Position(4, 3), new Position(10, 3));
+        assertTrue(forward.cost() == 6);
+        assertTrue(forward.get(0).equals(new Position(4, 3)));
+        assertTrue(forward.getEnd().equals(new Position(10, 3)));
+        GridPath backward = cache.findPath(grid, new Position(12, 3), new Position(2, 3));
+        assertTrue(backward.cost() == 10);
+        assertTrue(backward.get(1).equals(new Position(11, 3)));
+        assertTrue(backward.getEnd().equals(new Position(2, 3)));
+        assertTrue(cache.subPathHits() == 2);
+        assertTrue(cache.misses() == 1);
+        assertTrue(cache.size() == 1);
+    }
+
+    @Test
+    public void checkNoSubPathsFromHierarchical() throws Exception{
+        Grid grid = TestGrids.grid(40, new ArrayList<>());
+        PathCache cache = new PathCache(SearchMode.HIERARCHICAL, 1000);
+        cache.findPath(grid, new Position(0, 3), new Position(39, 3));
+        cache.findPath(grid, new Position(4, 3), new Position(10, 3));
+        assertTrue(cache.subPathHits() == 0);
+        assertTrue(cache.misses() == 2);
+    }
+
+    @Test
+    public void checkBackwardsNotToBlockedStart() throws Exception{
+        ArrayList<Position> obstacles = new ArrayList<>();
+        obstacles.add(new Position(0, 0));
+        Grid grid = TestGrids.grid(10, obstacles);
+        PathCache cache = new PathCache(SearchMode.ASTAR, 1000);
+        assertTrue(cache.findPath(grid, new Position(0, 0), new Position(5, 0)).cost() == 5);
+        assertNull(cache.findPath(grid, new Position(5, 0), new Position(0, 0)));
+        assertTrue(cache.subPathHits() == 0);
+    }
+
+    @Test
+    public void checkEviction() throws Exception{
+        Grid grid = TestGrids.grid(20, new ArrayList<>());
+        PathCache cache = new PathCache(SearchMode.ASTAR, 25);
+        cache.findPath(grid, new Position(0, 0), new Position(9, 0));
+        cache.findPath(grid, new Position(0, 1), new Position(9, 1));
+        //Using the first path makes the second the least recently used
+        cache.findPath(grid, new Position(0, 0), new Position(9, 0));
+        cache.findPath(grid, new Position(0, 2), new Position(9, 2));
+        assertTrue(cache.evictions() == 1);
+        assertTrue(cache.weight() == 20);
+        cache.findPath(grid, new Position(2, 0), new Position(5, 0));
+        assertTrue(cache.subPathHits() == 1);
+        cache.findPath(grid, new Position(2, 1), new Position(5, 1));
+        assertTrue(cache.subPathHits() == 1);
+        assertTrue(cache.weight() == 24);
+        //Paths heavier than the whole cache are not kept
+        cache.findPath(grid, new Position(0, 5), new Position(19, 15));
+        assertTrue(cache.evictions() == 1);
+        assertTrue(cache.weight() == 24);
+    }
+
+    @Test
+    public void checkBusyCell() throws Exception{
+        //A wall down the middle with one gap, which every path across goes through
+        ArrayList<Position> wall = new ArrayList<>();
+        for(int y = 0; y < 30; y++){
+            if(y != 15){
+                wall.add(new Position(15, y));
+            }
+        }
+        Grid grid = TestGrids.grid(30, wall);
+        PathCache cache = new PathCache(SearchMode.ASTAR, 10000);
+        for(int y = 0; y < 20; y++){
+            cache.findPath(grid, new Position(0, y), new Position(29, y));
+        }
+        assertTrue(cache.size() == 20);
+        //Only the first paths through the gap are found from it, later ones are searched again
+        GridPath early = cache.findPath(grid, new Position(15, 15), new Position(29, 3));
+        assertTrue(early.cost() == 14 + 12);
+        assertTrue(cache.subPathHits() == 1);
+        GridPath late = cache.findPath(grid, new Position(15, 15), new Position(29, 19));
+        assertTrue(late.cost() == 14 + 4);
+        assertTrue(cache.subPathHits() == 1);
+        //From its other end, which few paths go through, a later path is still found
+        cache.clear();
+        for(int y = 0; y < 20; y++){
+            cache.findPath(grid, new Position(0, y), new Position(29, y));
+        }
+        assertTrue(cache.findPath(grid, new Position(29, 19), new Position(15, 15)).cost() == 18);
+        assertTrue(cache.subPathHits() == 2);
+    }
+
+    @Test
+    public void checkVersionChanges() throws Exception{
+        Grid grid = TestGrids.grid(10, new ArrayList<>());
+        PathCache cache = new PathCache(SearchMode.ASTAR, 1000);
+        assertTrue(cache.findPath(grid, new Position(0, 0), new Position(9, 0)).cost() == 9);
+        grid.setBlocked(5, 0, true);
+        assertTrue(cache.size() == 1);
+        assertTrue(cache.findPath(grid, new Position(0, 0), new Position(9, 0)).cost() == 11);
+        assertTrue(cache.findPath(grid, new Position(2, 0), new Position(7, 0)).cost() == 7);
+        assertTrue(cache.hits() == 0);
+        assertTrue(cache.misses() >= 2);
+    }
+
+    @Test
+    public void checkOlderSnapshotsBypassCache() throws Exception{
+        Grid start = TestGrids.grid(10, new ArrayList<>());
+        start.setStart(new Position(0, 0));
+        start.setEnd(new Position(9, 0));
+        ConcurrentGrid grid = new ConcurrentGrid(start);
+        PathCache cache = new PathCache(SearchMode.ASTAR, 1000);
+        Grid old = grid.snapshot();
+        grid.apply(new ConcurrentGrid.Batch(grid).block(5, 0));
+        assertTrue(cache.findPath(grid.snapshot(), new Position(0, 0), new Position(9, 0)).cost() == 11);
+        assertTrue(cache.findPath(old, new Position(0, 0), new Position(9, 0)).cost() == 9);
+        assertTrue(cache.findPath(grid.snapshot(), new Position(0, 0), new Position(9, 0)).cost() == 11);
+        assertTrue(cache.hits() == 1);
+    }
+
+    @Test
+    public void checkMatchesSearch() throws Exception{
+        Random random = new Random(17);
+        int dimension = 30;
+        Grid grid = TestGrids.randomGrid(dimension, 200, random);
+        PathCache cache = new PathCache(SearchMode.ASTAR, 2000);
+        Position[] targets = {new Position(3, 3), new Position(26, 4), new Position(15, 27)};
+        for(int i = 0; i < 2000; i++){
+            Position start = new Position(random.nextInt(dimension), random.nextInt(dimension));
+            Position end = random.nextBoolean() ? targets[random.nextInt(3)]
+                    : new Position(random.nextInt(dimension), random.nextInt(dimension));
+            GridPath expected = AStar.findPath(grid, start, end);
+            GridPath path = cache.findPath(grid, start, end);
+            if(expected == null){
+                assertNull(path);
+                continue;
+            }
+            assertTrue(path.cost() == expected.cost());
+            assertTrue(path.get(0).equals(start));
+            assertTrue(path.getEnd().equals(end));
+            for(int step = 1; step < path.length(); step++){
+                assertFalse(grid.isBlocked(path.getX(step), path.getY(step)));
+                assertTrue(Math.abs(path.getX(step) - path.getX(step - 1))
+                        + Math.abs(path.getY(step) - path.getY(step - 1)) == 1);
+            }
+        }
+        assertTrue(cache.hits() + cache.subPathHits() > 0);
+        assertTrue(cache.weight() <= 2000);
+    }
+}
@@ -0,0 +1,147 @@
+package grid;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test answering pipelined queries over a socket
+ * @author Danielle Plecki
+ */
+public class PathServerTest {
+    private static Grid mazeGrid;
+    private static PathServer server;
+    private static InetSocketAddress address;
+
+    @BeforeClass
+    public static void setUp() throws Exception{
+        //30x30 grid with walls on every fourth column, alternately open at the top and the bottom
+        mazeGrid = new Grid();
+        mazeGrid.setDimension(30);
+        ArrayList<Position> walls = new ArrayList<>();
+        for(int x = 3; x < 28; x += 4){
+            int gap = (x / 4) % 2 == 0 ? 29 : 0;
+            for(int y = 0; y < 30; y++){
+                if(y != gap){
+                    walls.add(new Position(x, y));
+                }
+            }
+        }
+        mazeGrid.setObstacles(walls.toArray(new Position[0]));
+        server = new PathServer(mazeGrid, SearchMode.ASTAR, 2, 4);
+        address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception{
+        server.close();
+    }
+
+    private static String expected(int startX, int startY, int endX, int endY){
+        GridPath path = new SearchEngine(mazeGrid).findPath(new Position(startX, startY), new Position(endX, endY));
+        return new String(PathFormatter.toCompactLine(path), StandardCharsets.US_ASCII).trim();
+    }
+
+    @Test
+    public void checkPipelinedAnswersInOrder() throws Exception{
+        try(Socket socket = new Socket(address.getAddress(), address.getPort())){
+            OutputStream out = socket.getOutputStream();
+            //Everything is sent before any answer is read, partly in one write and with a split line
+            out.write("0 0 29 29\nINFO\n\n0 0 3 5\nhello\n1 2 3\n0 0 1 1\r\n40 0 0 0\n5 7 ".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            out.write("22 14\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals(expected(0, 0, 29, 29), in.readLine());
+            assertEquals("dimension 30 mode ASTAR", in.readLine());
+            assertEquals("0", in.readLine()); //(3,5) is part of a wall
+            assertTrue(in.readLine().startsWith("ERR"));
+            assertTrue(in.readLine().startsWith("ERR"));
+            assertEquals(expected(0, 0, 1, 1), in.readLine());
+            assertEquals("0", in.readLine()); //out of bounds
+            assertEquals(expected(5, 7, 22, 14), in.readLine());
+        }
+    }
+
+    @Test
+    public void checkAnswersAfterHalfClose() throws Exception{
+        //More requests than MAX_PENDING, the last one without a line break, then the client stops sending
+        Random random = new Random(5);
+        int[][] queries = new int[PathServer.MAX_PENDING + 1000][4];
+        StringBuilder requests = new StringBuilder();
+        for(int[] query : queries){
+            for(int i = 0; i < 4; i++){
+                query[i] = random.nextInt(30);
+            }
+            requests.append(query[0]).append(' ').append(query[1]).append(' ')
+                    .append(query[2]).append(' ').append(query[3]).append('\n');
+        }
+        requests.setLength(requests.length() - 1);
+        try(Socket socket = new Socket(address.getAddress(), address.getPort())){
+            socket.getOutputStream().write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+            socket.shutdownOutput();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            for(int[] query : queries){
+                assertEquals(expected(query[0], query[1], query[2], query[3]), in.readLine());
+            }
+            //The server closes the connection after the last answer
+            assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    public void checkConcurrentConnections() throws Exception{
+        Thread[] clients = new Thread[4];
+        AssertionError[] failures = new AssertionError[clients.length];
+        for(int c = 0; c < clients.length; c++){
+            int client = c;
+            clients[c] = new Thread(() -> {
+                Random random = new Random(client);
+                int[][] queries = new int[500][4];
+                StringBuilder requests = new StringBuilder();
+                for(int[] query : queries){
+                    for(int i = 0; i < 4; i++){
+                        query[i] = random.nextInt(30);
+                    }
+                    requests.append(query[0]).append(' ').append(query[1]).append(' ')
+                            .append(query[2]).append(' ').append(query[3]).append('\n');
+                }
+                try(Socket socket = new Socket(address.getAddress(), address.getPort())){
+                    socket.getOutputStream().write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+                    socket.getOutputStream().flush();
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                            StandardCharsets.US_ASCII));
+                    for(int[] query : queries){
+                        assertEquals(expected(query[0], query[1], query[2], query[3]), in.readLine());
+                    }
+                }
+                catch(Exception e){
+                    failures[client] = new AssertionError(e);
+                }
+                catch(AssertionError e){
+                    failures[client] = e;
+                }
+            });
+            clients[c].start();
+        }
+        for(int c = 0; c < clients.length; c++){
+            clients[c].join();
+            if(failures[c] != null){
+                throw failures[c];
+            }
+        }
+    }
+}
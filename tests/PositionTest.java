@@ -4,6 +4,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -41,4 +44,25 @@ public class PositionTest extends Position{
         assertFalse(instructorTestGrid.getStart().equals(endCorrect));
     }
 
+    @Test
+    public void checkHashCode() throws Exception{
+        Position first = new Position(32, 14);
+        Object second = new Position(32, 14);
+        assertTrue(first.equals(second));
+        assertTrue(first.hashCode() == second.hashCode());
+        assertFalse(first.equals((Object) new Position(14, 32)));
+        Set<Position> positions = new HashSet<>(Arrays.asList(first, new Position(1, 1)));
+        assertTrue(positions.contains(new Position(32, 14)));
+        assertFalse(positions.contains(new Position(1, 2)));
+    }
+
+    @Test
+    public void checkCanonicalPositions() throws Exception{
+        Position cached = instructorTestGrid.position(3, 4);
+        assertTrue(cached.equals(new Position(3, 4)));
+        assertSame(cached, instructorTestGrid.position(3, 4));
+        //Positions outside of the grid are still created, just not shared
+        assertTrue(instructorTestGrid.position(-1, 20).equals(new Position(-1, 20)));
+    }
+
 }
\ No newline at end of file
@@ -5,12 +5,20 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 /**
- * Class to run test suite of the other three test classes
+ * Class to run test suite of the other test classes
  * @author Danielle Plecki
  */
 
 @RunWith(Suite.class)
-@SuiteClasses({AStarTest.class, GridTest.class, PositionTest.class})
+@SuiteClasses({AStarTest.class, GridTest.class, PositionTest.class, IndexedMinHeapTest.class,
+        SearchEngineTest.class, GridPathTest.class,
+        BatchSearchTest.class, GridLoaderTest.class,
+        BinaryGridFormatTest.class, JumpPointSearchTest.class,
+        BidirectionalSearchTest.class, ComponentIndexTest.class,
+        HierarchicalSearchTest.class, LongKeyHeapTest.class, DStarLiteTest.class,
+        ConcurrentGridTest.class, PathCacheTest.class, FlowFieldTest.class,
+        SearchMetricsTest.class, WeightedSearchTest.class, PathServerTest.class,
+        PagedGridFormatTest.class, LandmarkIndexTest.class})
 
 public class RunTestSuite {
 }
@@ -0,0 +1,67 @@
+package grid;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test the primitive array search engine
+ * @author Danielle Plecki
+ */
+public class SearchEngineTest {
+    private static Grid wallGrid;
+
+    @BeforeClass
+    public static void setUp() throws Exception{
+        //5x5 grid with a wall along x=2 that is open only at y=4
+        wallGrid = new Grid();
+        wallGrid.setDimension(5);
+        wallGrid.setObstacles(new Position[]{new Position(2, 0), new Position(2, 1),
+                new Position(2, 2), new Position(2, 3)});
+    }
+
+    @Test
+    public void checkFindPath() throws Exception{
+        SearchEngine engine = new SearchEngine(wallGrid);
+        GridPath path = engine.findPath(new Position(0, 0), new Position(4, 0));
+        assertTrue(path.length() == 13); //4 up, 4 across, 4 down
+        assertTrue(path.cost() == 12);
+        assertTrue(path.getStart().equals(new Position(0, 0)));
+        assertTrue(path.getEnd().equals(new Position(4, 0)));
+        for(int i = 1; i < path.length(); i++){
+            int step = Math.abs(path.getX(i) - path.getX(i-1)) + Math.abs(path.getY(i) - path.getY(i-1));
+            assertTrue(step == 1);
+            assertFalse(wallGrid.isBlocked(path.getX(i), path.getY(i)));
+        }
+    }
+
+    @Test
+    public void checkReuse() throws Exception{
+        SearchEngine engine = new SearchEngine(wallGrid);
+        assertTrue(engine.findPath(new Position(0, 0), new Position(4, 0)).length() == 13);
+        assertTrue(engine.findPath(new Position(0, 4), new Position(4, 4)).length() == 5);
+        assertTrue(engine.findPath(new Position(3, 3), new Position(3, 3)).length() == 1);
+    }
+
+    @Test
+    public void checkPooledEngine() throws Exception{
+        SearchEngine engine = wallGrid.searchEngine();
+        assertSame(engine, wallGrid.searchEngine());
+        String first = AStar.pooledAlgorithm(wallGrid, new Position(0, 0), new Position(4, 0));
+        assertTrue(first.equals(AStar.algorithm(wallGrid, new Position(0, 0), new Position(4, 0))));
+        //Results do not depend on what the pooled engine searched before
+        AStar.pooledAlgorithm(wallGrid, new Position(4, 4), new Position(0, 4));
+        assertTrue(first.equals(AStar.pooledAlgorithm(wallGrid, new Position(0, 0), new Position(4, 0))));
+    }
+
+    @Test
+    public void checkUnreachable() throws Exception{
+        Grid closedGrid = new Grid();
+        closedGrid.setDimension(3);
+        closedGrid.setObstacles(new Position[]{new Position(1, 0), new Position(1, 1), new Position(1, 2)});
+        SearchEngine engine = new SearchEngine(closedGrid);
+        assertNull(engine.findPath(new Position(0, 0), new Position(2, 2)));
+        assertNull(engine.findPath(new Position(0, 0), new Position(5, 5)));
+    }
+}
@@ -0,0 +1,154 @@
+package grid;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test the stats, listeners, JMX counters and heatmaps of searches
+ * @author Danielle Plecki
+ */
+public class SearchMetricsTest {
+
+    //A wall down column 5 of a 10x10 grid with a gap at (5,9)
+    private static Grid wallGrid(){
+        Grid grid = new Grid();
+        grid.setDimension(10);
+        ArrayList<Position> obstacles = new ArrayList<>();
+        for(int y = 0; y < 9; y++){
+            obstacles.add(new Position(5, y));
+        }
+        grid.setObstacles(obstacles.toArray(new Position[0]));
+        return grid;
+    }
+
+    @Test
+    public void checkStatsOfEveryMode() throws Exception{
+        Grid grid = wallGrid();
+        List<SearchStats> received = Collections.synchronizedList(new ArrayList<>());
+        SearchListener listener = received::add;
+        SearchMetrics.addListener(listener);
+        try {
+            for(SearchMode mode : SearchMode.values()){
+                GridPath path = AStar.pooledFindPath(grid, new Position(0, 0), new Position(9, 0), mode);
+                SearchStats stats = received.get(received.size() - 1);
+                assertTrue(stats.getMode() == mode);
+                assertTrue(stats.isFound());
+                assertTrue(stats.getCost() == path.cost());
+                assertTrue(stats.getExpandedNodes() == grid.pathFinder(mode).expandedNodes());
+                assertTrue(stats.getWallNanos() > 0);
+            }
+            SearchStats astar = received.get(SearchMode.ASTAR.ordinal());
+            assertTrue(astar.getCost() == 27);
+            assertTrue(astar.getGeneratedNodes() >= astar.getExpandedNodes());
+            assertTrue(astar.getHeapOperations() == astar.getGeneratedNodes()
+                    + astar.getDecreasedKeys() + astar.getExpandedNodes());
+            assertTrue(astar.getPeakOpenSetSize() > 0);
+            //Turned down without searching, so the counts of the search before must not show
+            AStar.pooledFindPath(grid, new Position(0, 0), new Position(5, 0));
+            SearchStats unreachable = received.get(received.size() - 1);
+            assertFalse(unreachable.isFound());
+            assertTrue(unreachable.getExpandedNodes() == 0);
+            assertTrue(unreachable.getHeapOperations() == 0);
+        }
+        finally {
+            SearchMetrics.removeListener(listener);
+        }
+        int count = received.size();
+        AStar.pooledFindPath(grid, new Position(0, 0), new Position(9, 0));
+        assertTrue(received.size() == count);
+    }
+
+    @Test
+    public void checkCountersOverJmx() throws Exception{
+        Grid grid = wallGrid();
+        SearchCounters counters = SearchCounters.register();
+        try {
+            Query[] queries = new Query[50];
+            for(int i = 0; i < queries.length; i++){
+                queries[i] = new Query(new Position(0, i % 10), new Position(i % 2 == 0 ? 9 : 5, 0));
+            }
+            BatchSearch.run(grid, queries);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(SearchCounters.OBJECT_NAME);
+            assertTrue((Long) server.getAttribute(name, "Queries") == 50);
+            assertTrue((Long) server.getAttribute(name, "PathsFound") == 25);
+            assertTrue((Long) server.getAttribute(name, "ExpandedNodes") > 0);
+            assertTrue((Long) server.getAttribute(name, "PeakOpenSetSize") > 0);
+            server.invoke(name, "reset", null, null);
+            assertTrue(counters.getQueries() == 0);
+        }
+        finally {
+            counters.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(SearchCounters.OBJECT_NAME)));
+    }
+
+    @Test
+    public void checkCacheHitsAreReported() throws Exception{
+        Grid grid = wallGrid();
+        PathCache cache = new PathCache(SearchMode.ASTAR, 1000);
+        List<SearchStats> received = Collections.synchronizedList(new ArrayList<>());
+        SearchListener listener = received::add;
+        SearchMetrics.addListener(listener);
+        try {
+            GridPath searched = cache.findPath(grid, new Position(0, 0), new Position(9, 0));
+            assertTrue(received.size() == 1);
+            assertTrue(received.get(0).getExpandedNodes() > 0);
+            //Answered from the cache, once as the same query and once as a part of the cached path
+            cache.findPath(grid, new Position(0, 0), new Position(9, 0));
+            cache.findPath(grid, new Position(5, 9), new Position(9, 0));
+            assertTrue(cache.hits() == 1 && cache.subPathHits() == 1);
+            assertTrue(received.size() == 3);
+            for(SearchStats hit : received.subList(1, 3)){
+                assertTrue(hit.getMode() == SearchMode.ASTAR);
+                assertTrue(hit.isFound());
+                assertTrue(hit.getExpandedNodes() == 0);
+                assertTrue(hit.getHeapOperations() == 0);
+            }
+            assertTrue(received.get(1).getCost() == searched.cost());
+            assertTrue(received.get(2).getCost() == 13);
+        }
+        finally {
+            SearchMetrics.removeListener(listener);
+        }
+    }
+
+    @Test
+    public void checkTrace() throws Exception{
+        Grid grid = wallGrid();
+        SearchTrace trace = new SearchTrace(grid);
+        SearchMetrics.setTrace(trace);
+        try {
+            AStar.pooledFindPath(grid, new Position(0, 0), new Position(9, 0));
+            AStar.pooledFindPath(grid, new Position(0, 0), new Position(9, 0), SearchMode.BIDIRECTIONAL);
+        }
+        finally {
+            SearchMetrics.setTrace(null);
+        }
+        AStar.pooledFindPath(grid, new Position(0, 0), new Position(9, 0));
+        assertTrue(trace.queries() == 2);
+        assertTrue(trace.count(0, 0) == 2);
+        assertTrue(trace.count(5, 9) > 0);
+        assertTrue(trace.count(5, 0) == 0);
+        String text = trace.toText();
+        String[] rows = text.split("\n");
+        assertTrue(rows.length == 10);
+        assertTrue(rows[9].charAt(0) == '@');
+        assertTrue(rows[9].charAt(5) == '#');
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        trace.writePgm(image);
+        byte[] bytes = image.toByteArray();
+        assertTrue(new String(bytes, 0, 12, "US-ASCII").equals("P5\n10 10\n255"));
+        assertTrue(bytes.length == 13 + 100);
+        assertTrue((bytes[13 + 90] & 0xFF) == 255); //(0,0) is in the bottom row
+    }
+}
@@ -0,0 +1,86 @@
+package grid;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * TestGrids - grids shared by the test classes. The random grids only depend on their
+ * arguments, so a test sees the same grid on every run.
+ *
+ * @author Danielle Plecki
+ */
+class TestGrids {
+
+    private TestGrids(){} //only static methods
+
+    /**
+     * This method visits every cell in row order and blocks it with the given chance.
+     *
+     * @param dimension width and height of the grid
+     * @param density chance of each cell holding an obstacle, from 0 to 1
+     * @param seed seed of the random placement
+     * @return grid with randomly placed obstacles
+     */
+    static Grid randomGrid(int dimension, double density, long seed){
+        Random random = new Random(seed);
+        ArrayList<Position> obstacles = new ArrayList<>();
+        for(int y = 0; y < dimension; y++){
+            for(int x = 0; x < dimension; x++){
+                if(random.nextDouble() < density){
+                    obstacles.add(new Position(x, y));
+                }
+            }
+        }
+        return grid(dimension, obstacles);
+    }
+
+    /**
+     * This method draws the obstacles one after another from the given random numbers, so
+     * the caller can carry on drawing start and end cells from the same sequence. Cells may
+     * be drawn more than once.
+     *
+     * @param dimension width and height of the grid
+     * @param obstacleCount number of obstacles to draw
+     * @param random source of the obstacle cells
+     * @return grid with randomly placed obstacles
+     */
+    static Grid randomGrid(int dimension, int obstacleCount, Random random){
+        ArrayList<Position> obstacles = new ArrayList<>();
+        for(int i = 0; i < obstacleCount; i++){
+            obstacles.add(new Position(random.nextInt(dimension), random.nextInt(dimension)));
+        }
+        return grid(dimension, obstacles);
+    }
+
+    /**
+     * This method puts walls on every fourth column, alternately open at the bottom and the
+     * top, so that paths wind through the whole grid and back.
+     *
+     * @param dimension width and height of the grid
+     * @return grid holding the walls
+     */
+    static Grid mazeGrid(int dimension){
+        ArrayList<Position> walls = new ArrayList<>();
+        for(int x = 3; x < dimension; x += 4){
+            int gap = (x / 4) % 2 == 0 ? dimension - 1 : 0;
+            for(int y = 0; y < dimension; y++){
+                if(y != gap){
+                    walls.add(new Position(x, y));
+                }
+            }
+        }
+        return grid(dimension, walls);
+    }
+
+    /**
+     * @param dimension width and height of the grid
+     * @param obstacles cells to block
+     * @return grid with the given obstacles
+     */
+    static Grid grid(int dimension, ArrayList<Position> obstacles){
+        Grid grid = new Grid();
+        grid.setDimension(dimension);
+        grid.setObstacles(obstacles.toArray(new Position[0]));
+        return grid;
+    }
+}
@@ -0,0 +1,229 @@
+package grid;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class to test searching with movement models: diagonal moves, terrain costs and heuristics
+ * @author Danielle Plecki
+ */
+public class WeightedSearchTest {
+
+    private static byte[] randomTerrain(int dimension, Random random){
+        byte[] terrain = new byte[dimension*dimension];
+        for(int i = 0; i < terrain.length; i++){
+            terrain[i] = (byte) (1 + random.nextInt(random.nextBoolean() ? 3 : 255));
+        }
+        return terrain;
+    }
+
+    //Dijkstra over the same moves as WeightedSearch, written plainly to check it against
+    private static double cheapestCost(Grid grid, Position start, Position end, boolean eightConnected, byte[] terrain){
+        int dimension = grid.getDimension();
+        double[] cost = new double[dimension*dimension];
+        Arrays.fill(cost, Double.MAX_VALUE);
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        cost[start.getY()*dimension + start.getX()] = 0;
+        queue.add(new double[]{0, start.getX(), start.getY()});
+        while(!queue.isEmpty()){
+            double[] current = queue.poll();
+            int x = (int) current[1];
+            int y = (int) current[2];
+            if(current[0] > cost[y*dimension + x]){
+                continue;
+            }
+            for(int dx = -1; dx <= 1; dx++){
+                for(int dy = -1; dy <= 1; dy++){
+                    int nx = x + dx;
+                    int ny = y + dy;
+                    if((dx == 0 && dy == 0) || (!eightConnected && dx != 0 && dy != 0)
+                            || nx < 0 || ny < 0 || nx >= dimension || ny >= dimension || grid.isBlocked(nx, ny)){
+                        continue;
+                    }
+                    if(dx != 0 && dy != 0 && (grid.isBlocked(nx, y) || grid.isBlocked(x, ny))){
+                        continue;
+                    }
+                    double step = (dx != 0 && dy != 0 ? Math.sqrt(2) : 1)
+                            * (terrain == null ? 1 : terrain[ny*dimension + nx] & 0xFF);
+                    if(current[0] + step < cost[ny*dimension + nx]){
+                        cost[ny*dimension + nx] = current[0] + step;
+                        queue.add(new double[]{current[0] + step, nx, ny});
+                    }
+                }
+            }
+        }
+        return cost[end.getY()*dimension + end.getX()];
+    }
+
+    private static void assertValidPath(Grid grid, GridPath path, boolean eightConnected){
+        for(int step = 1; step < path.length(); step++){
+            int dx = Math.abs(path.getX(step) - path.getX(step - 1));
+            int dy = Math.abs(path.getY(step) - path.getY(step - 1));
+            assertFalse(grid.isBlocked(path.getX(step), path.getY(step)));
+            assertTrue(dx + dy == 1 || (eightConnected && dx == 1 && dy == 1));
+            if(dx == 1 && dy == 1){
+                assertFalse(grid.isBlocked(path.getX(step), path.getY(step - 1)));
+                assertFalse(grid.isBlocked(path.getX(step - 1), path.getY(step)));
+            }
+        }
+    }
+
+    @Test
+    public void checkEuclideanMatchesAStar() throws Exception{
+        Random random = new Random(20);
+        Grid grid = TestGrids.randomGrid(30, 250, random);
+        grid.setMovementModel(MovementModel.fourConnected().withHeuristic(MovementModel.Heuristic.EUCLIDEAN));
+        WeightedSearch search = new WeightedSearch(grid);
+        SearchEngine engine = new SearchEngine(grid);
+        for(int i = 0; i < 300; i++){
+            Position start = new Position(random.nextInt(30), random.nextInt(30));
+            Position end = new Position(random.nextInt(30), random.nextInt(30));
+            GridPath expected = engine.findPath(start, end);
+            GridPath path = search.findPath(start, end);
+            if(expected == null){
+                assertNull(path);
+                continue;
+            }
+            assertTrue(PathFormatter.format(path).equals(PathFormatter.format(expected)));
+            assertTrue(search.expandedNodes() == engine.expandedNodes());
+        }
+    }
+
+    @Test
+    public void checkManhattanExpandsLess() throws Exception{
+        Random random = new Random(21);
+        Grid grid = TestGrids.randomGrid(60, 600, random);
+        WeightedSearch search = new WeightedSearch(grid);
+        SearchEngine engine = new SearchEngine(grid);
+        long manhattanExpanded = 0;
+        long euclideanExpanded = 0;
+        for(int i = 0; i < 200; i++){
+            Position start = new Position(random.nextInt(60), random.nextInt(60));
+            Position end = new Position(random.nextInt(60), random.nextInt(60));
+            GridPath expected = engine.findPath(start, end);
+            GridPath path = search.findPath(start, end);
+            if(expected == null){
+                assertNull(path);
+                continue;
+            }
+            assertTrue(path.cost() == expected.cost());
+            assertValidPath(grid, path, false);
+            manhattanExpanded += search.expandedNodes();
+            euclideanExpanded += engine.expandedNodes();
+        }
+        assertTrue(manhattanExpanded < euclideanExpanded);
+    }
+
+    @Test
+    public void checkAgainstDijkstra() throws Exception{
+        Random random = new Random(22);
+        for(int round = 0; round < 8; round++){
+            int dimension = 5 + random.nextInt(30);
+            Grid grid = TestGrids.randomGrid(dimension, dimension*dimension/4, random);
+            boolean eightConnected = round % 2 == 0;
+            byte[] terrain = round % 4 < 2 ? randomTerrain(dimension, random) : null;
+            MovementModel model = eightConnected ? MovementModel.eightConnected() : MovementModel.fourConnected();
+            grid.setMovementModel(model.withTerrain(terrain));
+            PathFinder finder = grid.pathFinder(SearchMode.WEIGHTED);
+            for(int i = 0; i < 100; i++){
+                Position start = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                Position end = new Position(random.nextInt(dimension), random.nextInt(dimension));
+                double expected = cheapestCost(grid, start, end, eightConnected, terrain);
+                GridPath path = finder.findPath(start, end);
+                if(expected == Double.MAX_VALUE){
+                    assertNull(path);
+                    continue;
+                }
+                assertTrue(Math.abs(path.cost() - expected) < 1e-9);
+                assertTrue(path.get(0).equals(start));
+                assertTrue(path.getEnd().equals(end));
+                assertValidPath(grid, path, eightConnected);
+            }
+        }
+    }
+
+    @Test
+    public void checkTerrainDetour() throws Exception{
+        //Crossing the swamp in column 2 costs 10 a cell, going round it through row 4 costs 1
+        Grid grid = TestGrids.randomGrid(5, 0, new Random(0));
+        byte[] terrain = new byte[25];
+        Arrays.fill(terrain, (byte) 1);
+        for(int y = 0; y < 4; y++){
+            terrain[y*5 + 2] = 10;
+        }
+        grid.setMovementModel(MovementModel.fourConnected().withTerrain(terrain));
+        GridPath path = AStar.findPath(grid, new Position(0, 0), new Position(4, 0), SearchMode.WEIGHTED);
+        assertTrue(path.cost() == 12);
+        assertTrue(path.length() == 13);
+        grid.setMovementModel(MovementModel.eightConnected().withTerrain(terrain));
+        path = AStar.findPath(grid, new Position(0, 0), new Position(4, 0), SearchMode.WEIGHTED);
+        assertTrue(Math.abs(path.cost() - (4 + 4*Math.sqrt(2))) < 1e-9);
+    }
+
+    @Test
+    public void checkWeightedBound() throws Exception{
+        Random random = new Random(23);
+        Grid grid = TestGrids.randomGrid(80, 1800, random);
+        byte[] terrain = randomTerrain(80, random);
+        grid.setMovementModel(MovementModel.eightConnected().withTerrain(terrain));
+        WeightedSearch optimal = new WeightedSearch(grid);
+        Grid weightedGrid = TestGrids.randomGrid(80, 0, random);
+        weightedGrid.setObstacles(grid.getObstacles());
+        weightedGrid.setMovementModel(MovementModel.eightConnected().withTerrain(terrain).withWeight(1.5));
+        WeightedSearch weighted = new WeightedSearch(weightedGrid);
+        long optimalExpanded = 0;
+        long weightedExpanded = 0;
+        for(int i = 0; i < 100; i++){
+            Position start = new Position(random.nextInt(80), random.nextInt(80));
+            Position end = new Position(random.nextInt(80), random.nextInt(80));
+            GridPath best = optimal.findPath(start, end);
+            GridPath path = weighted.findPath(start, end);
+            if(best == null){
+                assertNull(path);
+                continue;
+            }
+            assertTrue(path.cost() >= best.cost() - 1e-9);
+            assertTrue(path.cost() <= 1.5*best.cost() + 1e-9);
+            optimalExpanded += optimal.expandedNodes();
+            weightedExpanded += weighted.expandedNodes();
+        }
+        assertTrue(weightedExpanded < optimalExpanded);
+    }
+
+    @Test
+    public void checkModelChecks() throws Exception{
+        Grid grid = TestGrids.randomGrid(4, 0, new Random(0));
+        long version = grid.getVersion();
+        grid.setMovementModel(MovementModel.eightConnected());
+        assertTrue(grid.getVersion() == version + 1);
+        try {
+            MovementModel.eightConnected().withHeuristic(MovementModel.Heuristic.MANHATTAN);
+            fail();
+        }
+        catch(IllegalArgumentException expected){
+        }
+        try {
+            MovementModel.DEFAULT.withWeight(0.5);
+            fail();
+        }
+        catch(IllegalArgumentException expected){
+        }
+        try {
+            MovementModel.DEFAULT.withTerrain(new byte[16]);
+            fail();
+        }
+        catch(IllegalArgumentException expected){
+        }
+        try {
+            grid.setMovementModel(MovementModel.DEFAULT.withTerrain(new byte[]{1, 2, 3}));
+            fail();
+        }
+        catch(IllegalArgumentException expected){
+        }
+    }
+}